@@ -0,0 +1,176 @@
+package com.agonyengine.forge.config;
+
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.broker.TransportConnector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Sends one frame of output to one subscribed session and waits for it to come out
+ * the other side, which is what every flush of an outbox costs in broker time. The
+ * relay goes over TCP to an ActiveMQ broker running in the same JVM, so a real broker
+ * on another host will only be slower. Sampled, because the relay's tail matters more
+ * than its average.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BrokerModeBenchmark {
+    private static final String SESSION_ID = "benchmark";
+    private static final List<String> PREFIXES = Arrays.asList("/queue", "/topic");
+
+    // what /user/{name}/queue/output turns into once the user destination is resolved
+    private static final String DESTINATION = "/queue/output-user" + SESSION_ID;
+
+    @Param({"RELAY", "EMBEDDED"})
+    private BrokerMode mode;
+
+    private BrokerService activeMq;
+    private AbstractBrokerMessageHandler broker;
+    private BlockingQueue<Message<?>> replies = new LinkedBlockingQueue<>();
+    private BlockingQueue<Message<?>> delivered = new LinkedBlockingQueue<>();
+    private Message<byte[]> output;
+
+    @Setup
+    public void setUp() throws Exception {
+        ExecutorSubscribableChannel clientInboundChannel = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutboundChannel = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+
+        clientOutboundChannel.subscribe(message -> {
+            if (SimpMessageType.MESSAGE == SimpMessageHeaderAccessor.getMessageType(message.getHeaders())) {
+                delivered.add(message);
+            } else {
+                replies.add(message);
+            }
+        });
+
+        if (mode == BrokerMode.RELAY) {
+            activeMq = new BrokerService();
+
+            activeMq.setPersistent(false);
+            activeMq.setUseJmx(false);
+
+            TransportConnector stomp = activeMq.addConnector("stomp://127.0.0.1:0");
+
+            activeMq.start();
+            activeMq.waitUntilStarted();
+
+            StompBrokerRelayMessageHandler relay = new StompBrokerRelayMessageHandler(
+                clientInboundChannel,
+                clientOutboundChannel,
+                brokerChannel,
+                PREFIXES);
+
+            relay.setRelayHost("127.0.0.1");
+            relay.setRelayPort(stomp.getConnectUri().getPort());
+
+            broker = relay;
+        } else {
+            broker = new SimpleBrokerMessageHandler(
+                clientInboundChannel,
+                clientOutboundChannel,
+                brokerChannel,
+                PREFIXES);
+        }
+
+        broker.start();
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+
+        while (!broker.isBrokerAvailable()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Broker did not become available");
+            }
+
+            Thread.sleep(10);
+        }
+
+        broker.handleMessage(clientFrame(StompCommand.CONNECT));
+        take(replies);
+
+        broker.handleMessage(clientFrame(StompCommand.SUBSCRIBE));
+
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
+
+        headerAccessor.setDestination(DESTINATION);
+        headerAccessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+
+        output = MessageBuilder.createMessage(
+            "{\"output\":[\"[green]Scion gossips '[white]Is anybody out there?[green]'\",\"[default]Dani> \"]}".getBytes(UTF_8),
+            headerAccessor.getMessageHeaders());
+
+        // the relay subscribes asynchronously, so make sure a frame makes it all the way round before measuring
+        roundTrip();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        broker.stop();
+
+        if (activeMq != null) {
+            activeMq.stop();
+            activeMq.waitUntilStopped();
+        }
+    }
+
+    @Benchmark
+    public Message<?> roundTrip() throws InterruptedException {
+        broker.handleMessage(output);
+
+        return take(delivered);
+    }
+
+    private static Message<byte[]> clientFrame(StompCommand command) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.create(command);
+
+        headerAccessor.setSessionId(SESSION_ID);
+
+        if (command == StompCommand.CONNECT) {
+            headerAccessor.setAcceptVersion("1.2");
+            headerAccessor.setHeartbeat(0, 0);
+            headerAccessor.setHeader(SimpMessageHeaderAccessor.HEART_BEAT_HEADER, new long[] {0, 0});
+        } else {
+            headerAccessor.setDestination(DESTINATION);
+            headerAccessor.setSubscriptionId("0");
+        }
+
+        return MessageBuilder.createMessage(new byte[0], headerAccessor.getMessageHeaders());
+    }
+
+    private static Message<?> take(BlockingQueue<Message<?>> queue) throws InterruptedException {
+        Message<?> message = queue.poll(5, TimeUnit.SECONDS);
+
+        if (message == null) {
+            throw new IllegalStateException("Broker did not answer");
+        }
+
+        return message;
+    }
+}
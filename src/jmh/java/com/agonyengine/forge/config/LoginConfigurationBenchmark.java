@@ -0,0 +1,53 @@
+package com.agonyengine.forge.config;
+
+import com.agonyengine.forge.model.Connection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders login prompts with and without variables in them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoginConfigurationBenchmark {
+    private LoginConfiguration loginConfiguration = new LoginConfiguration();
+    private Connection connection = new Connection();
+
+    @Setup
+    public void setUp() {
+        Map<String, String> prompt = new HashMap<>();
+
+        prompt.put("loginAskName", "[default]Name: ");
+        prompt.put("createConfirmName", "[default]Are you sure '%name%' is the name you want? [y/N]: ");
+
+        loginConfiguration.setPrompt(prompt);
+
+        connection.setName("Scion");
+        connection.setRemoteAddress("12.34.56.78");
+    }
+
+    @Benchmark
+    public String literal() {
+        return loginConfiguration.getPrompt("loginAskName", connection);
+    }
+
+    @Benchmark
+    public String withName() {
+        return loginConfiguration.getPrompt("createConfirmName", connection);
+    }
+
+    @Benchmark
+    public String undefined() {
+        return loginConfiguration.getPrompt("missing", connection);
+    }
+}
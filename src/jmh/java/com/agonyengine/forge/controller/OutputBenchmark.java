@@ -0,0 +1,70 @@
+package com.agonyengine.forge.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds Outputs the way the interpreters do: a line at a time, a few lines at once,
+ * and by combining smaller Outputs, then walks the lines like the encoder does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OutputBenchmark {
+    @Param({"1", "10", "100"})
+    private int lines;
+
+    private String[] text;
+    private Output[] parts;
+    private Output built;
+
+    @Setup
+    public void setUp() {
+        text = new String[lines];
+        parts = new Output[lines];
+
+        for (int i = 0; i < lines; i++) {
+            text[i] = "[cyan]Line number " + i + " of the output.";
+            parts[i] = new Output(text[i]);
+        }
+
+        built = new Output(text);
+    }
+
+    @Benchmark
+    public Output constructVararg() {
+        return new Output(text);
+    }
+
+    @Benchmark
+    public Output appendLines() {
+        Output output = new Output();
+
+        for (String line : text) {
+            output.append(line);
+        }
+
+        return output;
+    }
+
+    @Benchmark
+    public Output appendOutputs() {
+        return new Output().append(parts);
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (String line : built.getOutput()) {
+            blackhole.consume(line);
+        }
+    }
+}
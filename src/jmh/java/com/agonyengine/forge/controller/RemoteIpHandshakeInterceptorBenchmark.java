@@ -0,0 +1,118 @@
+package com.agonyengine.forge.controller;
+
+import com.agonyengine.forge.config.RemoteIpProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.ServerHttpAsyncRequestControl;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.agonyengine.forge.controller.ControllerConstants.AGONY_REMOTE_IP_KEY;
+
+/**
+ * Works out the client's address from an X-Forwarded-For header that has passed
+ * through some number of trusted proxies.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RemoteIpHandshakeInterceptorBenchmark {
+    @Param({"1", "4", "16"})
+    private int hops;
+
+    @Param({"ipv4", "ipv6"})
+    private String family;
+
+    private RemoteIpHandshakeInterceptor interceptor = new RemoteIpHandshakeInterceptor(new RemoteIpProperties());
+    private Map<String, Object> attributes = new HashMap<>();
+    private ServerHttpRequest request;
+
+    @Setup
+    public void setUp() {
+        boolean isIpv4 = "ipv4".equals(family);
+        StringBuilder forwarded = new StringBuilder(isIpv4 ? "203.0.113.7" : "2001:db8::7");
+        HttpHeaders headers = new HttpHeaders();
+
+        // everything after the client is one of our own proxies
+        for (int i = 1; i < hops; i++) {
+            forwarded.append(", ").append(isIpv4 ? "10.0.0." + i : "fd00::" + Integer.toHexString(i));
+        }
+
+        headers.add(RemoteIpHandshakeInterceptor.X_FORWARDED_FOR_HEADER, forwarded.toString());
+
+        request = new FixedRequest(headers, new InetSocketAddress(isIpv4 ? "10.0.0.254" : "fd00::fe", 41234));
+    }
+
+    @Benchmark
+    public Object beforeHandshake() {
+        interceptor.beforeHandshake(request, null, null, attributes);
+
+        return attributes.get(AGONY_REMOTE_IP_KEY);
+    }
+
+    private static class FixedRequest implements ServerHttpRequest {
+        private final HttpHeaders headers;
+        private final InetSocketAddress remoteAddress;
+
+        FixedRequest(HttpHeaders headers, InetSocketAddress remoteAddress) {
+            this.headers = headers;
+            this.remoteAddress = remoteAddress;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return remoteAddress;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return new InetSocketAddress(8080);
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public ServerHttpAsyncRequestControl getAsyncRequestControl(ServerHttpResponse response) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getMethodValue() {
+            return "GET";
+        }
+
+        @Override
+        public URI getURI() {
+            return URI.create("http://localhost:8080/mud/info");
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.agonyengine.forge.controller.channel;
+
+import com.agonyengine.forge.config.GameLoopProperties;
+import com.agonyengine.forge.config.OutputPolicyProperties;
+import com.agonyengine.forge.config.ResumeProperties;
+import com.agonyengine.forge.config.ScrollbackProperties;
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.ResumeManager;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
+import com.agonyengine.forge.controller.outbox.SlowConsumerPolicy;
+import com.agonyengine.forge.controller.scrollback.ScrollbackManager;
+import com.agonyengine.forge.controller.stats.SessionStatsRegistry;
+import com.agonyengine.forge.loop.TimingWheel;
+import com.agonyengine.forge.model.Connection;
+import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.model.PrimaryConnectionState;
+import com.agonyengine.forge.repository.CreatureRepository;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.session.SessionRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Publishes a message to a channel that every online player is on and flushes their
+ * outboxes, which is what happens on the pulse after somebody gossips. The broker is
+ * a loop that hands each subscriber a copy, the way the simple broker does. Nothing
+ * leaves the JVM because the messaging template the outboxes send with is a mock.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChannelPublishBenchmark {
+    @Param({"10", "100", "1000"})
+    private int recipients;
+
+    private Channel channel = new Channel("gossip");
+    private Creature sender = new Creature();
+    private Output message = new Output("[green]Scion gossips '[white]Is anybody out there?[green]'");
+    private Output prompt = new Output("[default]> ");
+    private OutboxManager outboxManager;
+    private ChannelPublisher channelPublisher;
+
+    @Setup
+    public void setUp() {
+        // a stub only mock doesn't remember its calls, so memory stays flat however long this runs
+        SimpMessagingTemplate simpMessagingTemplate = mock(SimpMessagingTemplate.class, withSettings().stubOnly());
+        OutputEncoder outputEncoder = new OutputEncoder(new ObjectMapper());
+        OnlineCreatureRegistry onlineCreatureRegistry = new OnlineCreatureRegistry();
+        ScrollbackManager scrollbackManager = new ScrollbackManager(new ScrollbackProperties());
+        List<String> sessionIds = new ArrayList<>();
+
+        outboxManager = new OutboxManager(
+            simpMessagingTemplate,
+            outputEncoder,
+            scrollbackManager,
+            new SlowConsumerPolicy(
+                new SessionStatsRegistry(),
+                Runnable::run,
+                outputEncoder,
+                new OutputPolicyProperties(),
+                new SimpleMeterRegistry()));
+
+        when(simpMessagingTemplate.getUserDestinationPrefix()).thenReturn("/user/");
+
+        for (int i = 0; i < recipients; i++) {
+            Connection connection = new Connection();
+            Creature creature = new Creature();
+
+            connection.setId(UUID.randomUUID());
+            connection.setSessionUsername("user-" + i);
+            connection.setSessionId("session-" + i);
+            connection.setPrimaryState(PrimaryConnectionState.IN_GAME);
+
+            creature.setId(UUID.randomUUID());
+            creature.setName("Player" + i);
+            creature.setConnection(connection);
+
+            onlineCreatureRegistry.register(creature);
+            scrollbackManager.open(connection.getId());
+            outboxManager.open(connection);
+            sessionIds.add(connection.getSessionId());
+        }
+
+        Connection senderConnection = new Connection();
+
+        senderConnection.setSessionId("sender-session");
+        sender.setName("Scion");
+        sender.setConnection(senderConnection);
+
+        ChannelMembershipInterceptor interceptor = new ChannelMembershipInterceptor(
+            onlineCreatureRegistry,
+            () -> outboxManager,
+            outputEncoder);
+
+        MessageChannel broker = (published, timeout) -> {
+            for (String sessionId : sessionIds) {
+                SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+
+                headerAccessor.setSessionId(sessionId);
+                headerAccessor.copyHeadersIfAbsent(published.getHeaders());
+
+                interceptor.preSend(MessageBuilder.createMessage(published.getPayload(), headerAccessor.getMessageHeaders()), null);
+            }
+
+            return true;
+        };
+
+        channelPublisher = new ChannelPublisher(
+            new SimpMessagingTemplate(broker),
+            outputEncoder,
+            new ResumeManager(
+                mock(CreatureRepository.class, withSettings().stubOnly()),
+                mock(SessionRepository.class, withSettings().stubOnly()),
+                new TimingWheel(),
+                Runnable::run,
+                scrollbackManager,
+                new ResumeProperties(),
+                new GameLoopProperties()),
+            scrollbackManager,
+            new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public void publishAndFlush() {
+        channelPublisher.publish(channel, sender, message);
+        outboxManager.flushAll(connection -> prompt);
+    }
+}
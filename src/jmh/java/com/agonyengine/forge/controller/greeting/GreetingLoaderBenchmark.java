@@ -0,0 +1,44 @@
+package com.agonyengine.forge.controller.greeting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a greeting with the usual mix of comments, raw HTML and ASCII art.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GreetingLoaderBenchmark {
+    private String greeting;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < 10; i++) {
+            builder.append("# comment line ").append(i).append('\n');
+            builder.append("*<img src=\"/img/banner-").append(i).append(".png\" alt=\"banner\">\n");
+            builder.append("[yellow]   ___    ___   ___   _  _  __   __  ").append(i).append('\n');
+            builder.append("[dyellow]  / _ \\  / __| / _ \\ | \\| | \\ \\ / /\n");
+            builder.append("[white]Welcome to the game, traveller!\n");
+        }
+
+        greeting = builder.toString();
+    }
+
+    @Benchmark
+    public List<String> parse() {
+        return GreetingLoader.parse(new BufferedReader(new StringReader(greeting)));
+    }
+}
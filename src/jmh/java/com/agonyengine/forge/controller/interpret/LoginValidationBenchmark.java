@@ -0,0 +1,43 @@
+package com.agonyengine.forge.controller.interpret;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks names and passwords the way the login screens do. Invalid names are
+ * included because every rule that throws builds an exception on the way out.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoginValidationBenchmark {
+    @Param({"Scion", "scion", "Sc1on", "ScionOfTheVeryLongNameThatKeepsGoing"})
+    private String name;
+
+    private String password = "correct horse battery staple";
+
+    @Benchmark
+    public Object validateName() {
+        try {
+            return DefaultLoginInterpreterDelegate.validateName(name);
+        } catch (InvalidInputException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object validatePassword() {
+        try {
+            return DefaultLoginInterpreterDelegate.validatePassword(password);
+        } catch (InvalidInputException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.agonyengine.forge.loop;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares scheduling and cancelling a timer on the TimingWheel against a
+ * ScheduledThreadPoolExecutor, with a large number of other timers already waiting.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimingWheelBenchmark {
+    private static final Runnable NOTHING = () -> { };
+    private static final int BATCH = 1000;
+
+    @Param({"1000", "100000"})
+    private int pending;
+
+    private TimingWheel wheel;
+    private ScheduledThreadPoolExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        wheel = new TimingWheel();
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+
+        // far enough out that none of these fire while the benchmark advances the wheel
+        for (int i = 0; i < pending; i++) {
+            wheel.schedule(NOTHING, 10_000_000 + i);
+            executor.schedule(NOTHING, 10_000_000 + i, TimeUnit.SECONDS);
+        }
+
+        // move the waiting timers from the hand-off queue into the wheel
+        wheel.advance();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void wheelScheduleAndCancel(Blackhole blackhole) {
+        Timeout[] timeouts = new Timeout[BATCH];
+
+        for (int i = 0; i < BATCH; i++) {
+            timeouts[i] = wheel.schedule(NOTHING, 10 + i);
+        }
+
+        // placing and unlinking happen on the next pulse, so that's part of the cost
+        wheel.advance();
+
+        for (Timeout timeout : timeouts) {
+            blackhole.consume(timeout.cancel());
+        }
+
+        wheel.advance();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void executorScheduleAndCancel(Blackhole blackhole) {
+        ScheduledFuture<?>[] futures = new ScheduledFuture<?>[BATCH];
+
+        for (int i = 0; i < BATCH; i++) {
+            futures[i] = executor.schedule(NOTHING, 10 + i, TimeUnit.SECONDS);
+        }
+
+        for (ScheduledFuture<?> future : futures) {
+            blackhole.consume(future.cancel(false));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.agonyengine.forge.model.util;
+
+import com.agonyengine.forge.model.DefaultLoginConnectionState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import static com.agonyengine.forge.model.DefaultLoginConnectionState.*;
+
+/**
+ * Converts an EnumSet to its bit mask column and back again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BaseEnumSetConverterBenchmark {
+    private DefaultLoginConnectionState.Converter converter = new DefaultLoginConnectionState.Converter();
+    private EnumSet<DefaultLoginConnectionState> set = EnumSet.of(DEFAULT, LOGIN_ASK_PASSWORD, CREATE_CONFIRM_NAME);
+    private Long column = converter.convertToDatabaseColumn(set);
+
+    @Benchmark
+    public Long toDatabaseColumn() {
+        return converter.convertToDatabaseColumn(set);
+    }
+
+    @Benchmark
+    public EnumSet<DefaultLoginConnectionState> toEntityAttribute() {
+        return converter.convertToEntityAttribute(column);
+    }
+}
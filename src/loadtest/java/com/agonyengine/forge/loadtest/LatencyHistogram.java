@@ -0,0 +1,102 @@
+package com.agonyengine.forge.loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of latencies. Each power of two range of microseconds is
+ * split into 16 equal buckets, so any percentile is within about 6% of the truth
+ * no matter how large the values get.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int RANGES = 64 - SUB_BUCKET_BITS + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(RANGES * SUB_BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+
+        counts.incrementAndGet(indexOf(micros));
+        total.incrementAndGet();
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return the upper bound of the bucket holding that percentile, in microseconds
+     */
+    public long getPercentileMicros(double percentile) {
+        long count = total.get();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    public String summary() {
+        return String.format(
+            "n=%d p50=%s p90=%s p99=%s p99.9=%s max=%s",
+            getCount(),
+            format(getPercentileMicros(50)),
+            format(getPercentileMicros(90)),
+            format(getPercentileMicros(99)),
+            format(getPercentileMicros(99.9)),
+            format(getMaxMicros()));
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+
+        int range = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (micros >>> (range - 1)) & (SUB_BUCKETS - 1);
+
+        return range * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        int range = index / SUB_BUCKETS;
+        long subBucket = index % SUB_BUCKETS;
+
+        if (range == 0) {
+            return subBucket;
+        }
+
+        return ((SUB_BUCKETS + subBucket + 1) << (range - 1)) - 1;
+    }
+
+    private static String format(long micros) {
+        if (micros >= 10_000) {
+            return (micros / 1000) + "ms";
+        }
+
+        return String.format("%.2fms", micros / 1000.0);
+    }
+}
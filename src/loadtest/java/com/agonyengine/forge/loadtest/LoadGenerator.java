@@ -0,0 +1,142 @@
+package com.agonyengine.forge.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.RestTemplateXhrTransport;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.Transport;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a number of SockJS/STOMP sessions to a running game, walks each one through
+ * the login screens and then has them all gossip at a steady rate, reporting
+ * latencies, frame rates and errors as it goes. Start a server with
+ * {@link LocalServer} first if there isn't one already.
+ */
+public class LoadGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private final LoadTestOptions options;
+    private final LoadStats stats = new LoadStats();
+    private final List<PlayerSession> players = new ArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private final WebSocketStompClient stompClient;
+    private long startNanos;
+    private long lastReportNanos;
+    private long lastFrames;
+    private long lastInputs;
+
+    public LoadGenerator(LoadTestOptions options) {
+        this.options = options;
+
+        List<Transport> transports = Arrays.asList(
+            new WebSocketTransport(new StandardWebSocketClient()),
+            new RestTemplateXhrTransport());
+
+        stompClient = new WebSocketStompClient(new SockJsClient(transports));
+        scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "load-generator");
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    public static void main(String ... args) throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(new LoadTestOptions());
+        LoadStats stats = generator.run();
+
+        System.exit(stats.getErrors() == 0 ? 0 : 1);
+    }
+
+    public LoadStats run() throws InterruptedException {
+        LOGGER.info("Starting load test: {}", options);
+
+        startNanos = System.nanoTime();
+        lastReportNanos = startNanos;
+
+        for (int i = 0; i < options.getSessions(); i++) {
+            long delayNanos = (long) (i * TimeUnit.SECONDS.toNanos(1) / options.getRampPerSecond());
+            PlayerSession player = new PlayerSession(options, stats, i);
+
+            players.add(player);
+            scheduler.schedule(() -> connect(player), delayNanos, TimeUnit.NANOSECONDS);
+
+            if (options.getGossipPerSecond() > 0) {
+                long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.getGossipPerSecond());
+
+                // spread the players out so they don't all gossip on the same tick
+                scheduler.scheduleAtFixedRate(
+                    player::gossip,
+                    delayNanos + ThreadLocalRandom.current().nextLong(periodNanos),
+                    periodNanos,
+                    TimeUnit.NANOSECONDS);
+            }
+        }
+
+        scheduler.scheduleAtFixedRate(this::report, options.getReportSeconds(), options.getReportSeconds(), TimeUnit.SECONDS);
+
+        TimeUnit.SECONDS.sleep(options.getDurationSeconds());
+
+        scheduler.shutdownNow();
+        players.forEach(PlayerSession::close);
+
+        LOGGER.info("Finished after {}s with {} of {} players in game at the end",
+            options.getDurationSeconds(),
+            players.stream().filter(PlayerSession::isInGame).count(),
+            options.getSessions());
+        LOGGER.info("Frames received: {} ({}/s)", stats.getFramesReceived(), rate(stats.getFramesReceived(), System.nanoTime() - startNanos));
+        LOGGER.info("Inputs sent: {} ({}/s)", stats.getInputsSent(), rate(stats.getInputsSent(), System.nanoTime() - startNanos));
+        LOGGER.info("Errors: {}", stats.getErrors());
+        LOGGER.info("Input to output latency: {}", stats.getCommandLatency().summary());
+        LOGGER.info("Gossip delivery latency: {}", stats.getBroadcastLatency().summary());
+
+        return stats;
+    }
+
+    private void connect(PlayerSession player) {
+        stompClient
+            .connect(options.getUrl(), player)
+            .addCallback(
+                session -> { },
+                e -> {
+                    LOGGER.debug("Unable to connect", e);
+                    stats.error();
+                });
+    }
+
+    private void report() {
+        long now = System.nanoTime();
+        long frames = stats.getFramesReceived();
+        long inputs = stats.getInputsSent();
+
+        LOGGER.info("[{}s] connected={} in-game={} frames/s={} inputs/s={} errors={} | input->output {} | gossip {}",
+            TimeUnit.NANOSECONDS.toSeconds(now - startNanos),
+            stats.getConnected(),
+            stats.getInGame(),
+            rate(frames - lastFrames, now - lastReportNanos),
+            rate(inputs - lastInputs, now - lastReportNanos),
+            stats.getErrors(),
+            stats.takeIntervalCommandLatency().summary(),
+            stats.takeIntervalBroadcastLatency().summary());
+
+        lastReportNanos = now;
+        lastFrames = frames;
+        lastInputs = inputs;
+    }
+
+    private static String rate(long count, long nanos) {
+        return String.format("%.1f", count / Math.max(1e-9, nanos / 1e9));
+    }
+}
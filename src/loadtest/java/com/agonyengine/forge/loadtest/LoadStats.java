@@ -0,0 +1,94 @@
+package com.agonyengine.forge.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Counters shared by every simulated player. The latency histograms are kept both
+ * for the whole run and for the current reporting interval.
+ */
+public class LoadStats {
+    private final AtomicLong connected = new AtomicLong();
+    private final AtomicLong inGame = new AtomicLong();
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong inputsSent = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final LatencyHistogram commandLatency = new LatencyHistogram();
+    private final LatencyHistogram broadcastLatency = new LatencyHistogram();
+    private final AtomicReference<LatencyHistogram> intervalCommandLatency = new AtomicReference<>(new LatencyHistogram());
+    private final AtomicReference<LatencyHistogram> intervalBroadcastLatency = new AtomicReference<>(new LatencyHistogram());
+
+    void connected() {
+        connected.incrementAndGet();
+    }
+
+    void disconnected(boolean wasInGame) {
+        connected.decrementAndGet();
+
+        if (wasInGame) {
+            inGame.decrementAndGet();
+        }
+    }
+
+    void enteredGame() {
+        inGame.incrementAndGet();
+    }
+
+    void frameReceived() {
+        framesReceived.incrementAndGet();
+    }
+
+    void inputSent() {
+        inputsSent.incrementAndGet();
+    }
+
+    void error() {
+        errors.incrementAndGet();
+    }
+
+    void commandLatency(long nanos) {
+        commandLatency.record(nanos);
+        intervalCommandLatency.get().record(nanos);
+    }
+
+    void broadcastLatency(long nanos) {
+        broadcastLatency.record(nanos);
+        intervalBroadcastLatency.get().record(nanos);
+    }
+
+    public long getConnected() {
+        return connected.get();
+    }
+
+    public long getInGame() {
+        return inGame.get();
+    }
+
+    public long getFramesReceived() {
+        return framesReceived.get();
+    }
+
+    public long getInputsSent() {
+        return inputsSent.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public LatencyHistogram getCommandLatency() {
+        return commandLatency;
+    }
+
+    public LatencyHistogram getBroadcastLatency() {
+        return broadcastLatency;
+    }
+
+    public LatencyHistogram takeIntervalCommandLatency() {
+        return intervalCommandLatency.getAndSet(new LatencyHistogram());
+    }
+
+    public LatencyHistogram takeIntervalBroadcastLatency() {
+        return intervalBroadcastLatency.getAndSet(new LatencyHistogram());
+    }
+}
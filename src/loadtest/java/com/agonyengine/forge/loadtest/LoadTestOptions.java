@@ -0,0 +1,104 @@
+package com.agonyengine.forge.loadtest;
+
+import java.util.Random;
+
+/**
+ * Settings for a load test run, read from system properties that start with "loadtest.",
+ * for example {@code ./gradlew loadTest -Dloadtest.sessions=500}.
+ */
+public class LoadTestOptions {
+    public enum Mode {
+        CREATE,
+        LOGIN
+    }
+
+    private String url = property("url", "http://localhost:8080/mud");
+    private int sessions = Integer.parseInt(property("sessions", "100"));
+    private double rampPerSecond = Double.parseDouble(property("ramp", "20"));
+    private double gossipPerSecond = Double.parseDouble(property("rate", "0.2"));
+    private long durationSeconds = Long.parseLong(property("duration", "60"));
+    private long reportSeconds = Long.parseLong(property("report", "5"));
+    private Mode mode = Mode.valueOf(property("mode", "create").toUpperCase());
+    private String prefix = property("prefix", randomPrefix());
+    private String password = property("password", "loadtest-password");
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    public double getRampPerSecond() {
+        return rampPerSecond;
+    }
+
+    public double getGossipPerSecond() {
+        return gossipPerSecond;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public long getReportSeconds() {
+        return reportSeconds;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * Names may only contain letters and only the first may be upper case, so the
+     * index is written in base 26 after the prefix. Logging in again later with
+     * the same prefix finds the same characters.
+     *
+     * @param index the session number
+     * @return a valid character name
+     */
+    public String nameFor(int index) {
+        StringBuilder builder = new StringBuilder();
+        int value = index;
+
+        do {
+            builder.append((char) ('a' + value % 26));
+            value /= 26;
+        } while (value > 0);
+
+        String name = prefix.toLowerCase() + builder.reverse();
+
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "url=%s sessions=%d ramp=%.1f/s rate=%.2f/s duration=%ds mode=%s prefix=%s",
+            url, sessions, rampPerSecond, gossipPerSecond, durationSeconds, mode.name().toLowerCase(), prefix);
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+
+    private static String randomPrefix() {
+        Random random = new Random();
+        StringBuilder builder = new StringBuilder("lt");
+
+        for (int i = 0; i < 4; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+
+        return builder.toString();
+    }
+}
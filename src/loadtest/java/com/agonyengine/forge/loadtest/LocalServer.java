@@ -0,0 +1,85 @@
+package com.agonyengine.forge.loadtest;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfiguration;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.agonyengine.forge.AgonyForge;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.broker.TransportConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the game with an embedded MariaDB and an in-process ActiveMQ STOMP broker,
+ * so that a load test needs nothing else installed. Everything is thrown away
+ * when the process exits. Extra arguments are passed on to Spring Boot.
+ *
+ * With --agony.broker.mode=embedded no ActiveMQ is started and the game routes
+ * messages itself, so the two modes can be load tested side by side.
+ */
+public class LocalServer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalServer.class);
+    private static final String DATABASE = "agonyforge";
+    private static final String EMBEDDED_BROKER = "--agony.broker.mode=embedded";
+
+    public static void main(String ... args) throws Exception {
+        DBConfigurationBuilder builder = DBConfigurationBuilder.newBuilder();
+
+        // zero picks a free port
+        builder.setPort(0);
+
+        DBConfiguration dbConfiguration = builder.build();
+        DB db = DB.newEmbeddedDB(dbConfiguration);
+
+        db.start();
+        db.createDB(DATABASE);
+
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+            "--agony.datasource.jdbc-url=jdbc:mysql://127.0.0.1:" + dbConfiguration.getPort() + "/" + DATABASE + "?useSSL=false",
+            "--agony.datasource.username=root",
+            "--agony.datasource.password=",
+
+            // every simulated player comes from the same address
+            "--agony.connection-limit.per-address=0",
+            "--agony.connection-limit.per-subnet=0",
+
+            // the broker is only here for the relay, so don't let Boot set up JMS against it too
+            "--spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jms.activemq.ActiveMQAutoConfiguration"));
+
+        if (Arrays.asList(args).contains(EMBEDDED_BROKER)) {
+            LOGGER.info("Embedded database on port {}, no STOMP broker", dbConfiguration.getPort());
+        } else {
+            BrokerService broker = new BrokerService();
+
+            broker.setPersistent(false);
+            broker.setUseJmx(false);
+
+            TransportConnector stomp = broker.addConnector("stomp://127.0.0.1:0");
+
+            broker.start();
+            broker.waitUntilStarted();
+
+            LOGGER.info("Embedded database on port {}, STOMP broker on port {}",
+                dbConfiguration.getPort(),
+                stomp.getConnectUri().getPort());
+
+            arguments.addAll(Arrays.asList(
+                "--agony.broker.ssl=false",
+                "--agony.broker.host=127.0.0.1",
+                "--agony.broker.port=" + stomp.getConnectUri().getPort(),
+                "--agony.broker.system-username=admin",
+                "--agony.broker.system-password=admin",
+                "--agony.broker.client-username=agonyforge",
+                "--agony.broker.client-password=agonyforge"));
+        }
+
+        arguments.addAll(Arrays.asList(args));
+
+        SpringApplication.run(AgonyForge.class, arguments.toArray(new String[0]));
+    }
+}
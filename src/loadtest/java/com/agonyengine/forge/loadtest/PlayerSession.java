@@ -0,0 +1,205 @@
+package com.agonyengine.forge.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * One simulated player. It answers the login prompts the way a person would, using
+ * the prompts' text and the secret flag to tell where it is, and once it reaches the
+ * game it gossips whenever {@link #gossip()} is called.
+ */
+public class PlayerSession extends StompSessionHandlerAdapter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlayerSession.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Pattern STAMP = Pattern.compile("lt(\\d+)x");
+
+    private final LoadTestOptions options;
+    private final LoadStats stats;
+    private final String name;
+    private final Queue<Long> pendingInputs = new ConcurrentLinkedQueue<>();
+    private volatile StompSession session;
+    private volatile boolean isInGame = false;
+    private volatile boolean isClosed = false;
+
+    PlayerSession(LoadTestOptions options, LoadStats stats, int index) {
+        this.options = options;
+        this.stats = stats;
+        this.name = options.nameFor(index);
+    }
+
+    public boolean isInGame() {
+        return isInGame;
+    }
+
+    @Override
+    public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+        this.session = session;
+
+        stats.connected();
+
+        StompHeaders outputHeaders = new StompHeaders();
+
+        outputHeaders.setDestination("/user/queue/output");
+        outputHeaders.set("agony-format", "json");
+
+        session.subscribe(outputHeaders, new Handler(this::onOutput));
+        session.subscribe("/topic/channel.gossip", new Handler(this::onGossip));
+    }
+
+    @Override
+    public void handleException(StompSession session, StompCommand command, StompHeaders headers, byte[] payload, Throwable exception) {
+        LOGGER.debug("{}: error handling {}", name, command, exception);
+        stats.error();
+    }
+
+    @Override
+    public void handleTransportError(StompSession session, Throwable exception) {
+        if (!isClosed) {
+            LOGGER.debug("{}: transport error", name, exception);
+            stats.error();
+            close();
+        }
+    }
+
+    /**
+     * Sends one gossip message stamped with the time it was sent, so whoever receives
+     * it can tell how long it took to get to them.
+     */
+    public void gossip() {
+        if (isInGame && !isClosed) {
+            send("gossip lt" + System.nanoTime() + "x from " + name);
+        }
+    }
+
+    public void close() {
+        if (isClosed) {
+            return;
+        }
+
+        isClosed = true;
+
+        StompSession current = session;
+
+        if (current != null) {
+            stats.disconnected(isInGame);
+
+            if (current.isConnected()) {
+                current.disconnect();
+            }
+        }
+    }
+
+    private void onOutput(JsonNode frame) {
+        JsonNode lines = frame.path("output");
+        Long sentAt = pendingInputs.poll();
+
+        if (sentAt != null) {
+            stats.commandLatency(System.nanoTime() - sentAt);
+        }
+
+        for (JsonNode line : lines) {
+            if (line.asText().startsWith("[red]")) {
+                LOGGER.debug("{}: {}", name, line.asText());
+                stats.error();
+
+                // asking for the same name again would only loop forever
+                if (line.asText().contains("already in use")) {
+                    close();
+                    return;
+                }
+            }
+        }
+
+        if (lines.size() == 0) {
+            // a password check in progress answers with nothing until it's done
+            return;
+        }
+
+        String prompt = lines.get(lines.size() - 1).asText();
+        boolean isSecret = frame.path("secret").asBoolean();
+
+        if (isSecret) {
+            send(options.getPassword());
+        } else if (prompt.contains("Create a new character?")) {
+            send(options.getMode() == LoadTestOptions.Mode.CREATE ? "y" : "n");
+        } else if (prompt.contains("choose a name") || prompt.contains("Name: ")) {
+            send(name);
+        } else if (prompt.contains("Are you sure")) {
+            send("y");
+        } else if (prompt.endsWith("> ") && !isInGame) {
+            isInGame = true;
+            stats.enteredGame();
+        }
+    }
+
+    private void onGossip(JsonNode frame) {
+        for (JsonNode line : frame.path("output")) {
+            Matcher matcher = STAMP.matcher(line.asText());
+
+            if (matcher.find()) {
+                stats.broadcastLatency(System.nanoTime() - Long.parseLong(matcher.group(1)));
+            }
+        }
+    }
+
+    private void send(String input) {
+        StompHeaders headers = new StompHeaders();
+
+        headers.setDestination("/app/input");
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+
+        try {
+            byte[] payload = OBJECT_MAPPER.writeValueAsBytes(OBJECT_MAPPER.createObjectNode().put("input", input));
+
+            pendingInputs.add(System.nanoTime());
+            session.send(headers, payload);
+            stats.inputSent();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("{}: unable to send input", name, e);
+            stats.error();
+        }
+    }
+
+    private class Handler implements StompFrameHandler {
+        private final Consumer<JsonNode> consumer;
+
+        Handler(Consumer<JsonNode> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return byte[].class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            stats.frameReceived();
+
+            try {
+                consumer.accept(OBJECT_MAPPER.readTree(new String((byte[]) payload, UTF_8)));
+            } catch (IOException | RuntimeException e) {
+                LOGGER.debug("{}: unreadable frame", name, e);
+                stats.error();
+            }
+        }
+    }
+}
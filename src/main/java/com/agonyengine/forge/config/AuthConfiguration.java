@@ -0,0 +1,30 @@
+package com.agonyengine.forge.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.inject.Inject;
+
+@Configuration
+public class AuthConfiguration {
+    private AuthProperties authProperties;
+
+    @Inject
+    public AuthConfiguration(AuthProperties authProperties) {
+        this.authProperties = authProperties;
+    }
+
+    // password hashing is slow on purpose, so it gets its own small pool that refuses work when it's backed up
+    @Bean
+    public ThreadPoolTaskExecutor authTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(authProperties.getPoolSize());
+        executor.setMaxPoolSize(authProperties.getPoolSize());
+        executor.setQueueCapacity(authProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("auth-");
+
+        return executor;
+    }
+}
@@ -0,0 +1,17 @@
+package com.agonyengine.forge.config;
+
+/**
+ * Where STOMP messages go to be routed to subscribers.
+ */
+public enum BrokerMode {
+    /**
+     * Relay everything through an external broker such as ActiveMQ, so that
+     * several nodes can share subscriptions and users.
+     */
+    RELAY,
+
+    /**
+     * Route messages in memory, without leaving the JVM. Only for a single node.
+     */
+    EMBEDDED
+}
@@ -0,0 +1,45 @@
+package com.agonyengine.forge.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "agony.connection-limit")
+public class ConnectionLimitProperties {
+    private Integer perAddress = 20;
+    private Integer perSubnet = 100;
+    private Integer ipv4SubnetPrefix = 24;
+    private Integer ipv6SubnetPrefix = 64;
+
+    public Integer getPerAddress() {
+        return perAddress;
+    }
+
+    public void setPerAddress(Integer perAddress) {
+        this.perAddress = perAddress;
+    }
+
+    public Integer getPerSubnet() {
+        return perSubnet;
+    }
+
+    public void setPerSubnet(Integer perSubnet) {
+        this.perSubnet = perSubnet;
+    }
+
+    public Integer getIpv4SubnetPrefix() {
+        return ipv4SubnetPrefix;
+    }
+
+    public void setIpv4SubnetPrefix(Integer ipv4SubnetPrefix) {
+        this.ipv4SubnetPrefix = ipv4SubnetPrefix;
+    }
+
+    public Integer getIpv6SubnetPrefix() {
+        return ipv6SubnetPrefix;
+    }
+
+    public void setIpv6SubnetPrefix(Integer ipv6SubnetPrefix) {
+        this.ipv6SubnetPrefix = ipv6SubnetPrefix;
+    }
+}
@@ -0,0 +1,18 @@
+package com.agonyengine.forge.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "agony.loop")
+public class GameLoopProperties {
+    private Long pulse = 100L;
+
+    public Long getPulse() {
+        return pulse;
+    }
+
+    public void setPulse(Long pulse) {
+        this.pulse = pulse;
+    }
+}
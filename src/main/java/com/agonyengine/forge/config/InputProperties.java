@@ -0,0 +1,27 @@
+package com.agonyengine.forge.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "agony.input")
+public class InputProperties {
+    private Integer burst = 10;
+    private Integer refillPerSecond = 4;
+
+    public Integer getBurst() {
+        return burst;
+    }
+
+    public void setBurst(Integer burst) {
+        this.burst = burst;
+    }
+
+    public Integer getRefillPerSecond() {
+        return refillPerSecond;
+    }
+
+    public void setRefillPerSecond(Integer refillPerSecond) {
+        this.refillPerSecond = refillPerSecond;
+    }
+}
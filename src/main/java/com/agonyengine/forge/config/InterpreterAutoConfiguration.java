@@ -1,17 +1,24 @@
 package com.agonyengine.forge.config;
 
+import com.agonyengine.forge.controller.ResumeManager;
+import com.agonyengine.forge.controller.command.CommandRegistry;
+import com.agonyengine.forge.controller.interpret.AsyncAuthenticator;
 import com.agonyengine.forge.controller.interpret.DefaultInGameInterpreterDelegate;
 import com.agonyengine.forge.controller.interpret.DefaultLoginInterpreterDelegate;
 import com.agonyengine.forge.controller.interpret.InGameInterpreterDelegate;
 import com.agonyengine.forge.controller.interpret.LoginInterpreterDelegate;
-import com.agonyengine.forge.repository.ConnectionRepository;
+import com.agonyengine.forge.repository.ConnectionCache;
 import com.agonyengine.forge.repository.CreatureRepository;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.provisioning.UserDetailsManager;
 import org.springframework.session.SessionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.inject.Inject;
 
@@ -21,8 +28,14 @@ public class InterpreterAutoConfiguration {
     private UserDetailsManager userDetailsManager;
     private AuthenticationManager authenticationManager;
     private SessionRepository sessionRepository;
-    private ConnectionRepository connectionRepository;
+    private ConnectionCache connectionCache;
     private CreatureRepository creatureRepository;
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+    private CommandRegistry commandRegistry;
+    private AsyncAuthenticator asyncAuthenticator;
+    private PlatformTransactionManager transactionManager;
+    private ResumeManager resumeManager;
+    private MeterRegistry meterRegistry;
 
     @Inject
     public InterpreterAutoConfiguration(
@@ -30,15 +43,27 @@ public class InterpreterAutoConfiguration {
         @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") UserDetailsManager userDetailsManager,
         AuthenticationManager authenticationManager,
         SessionRepository sessionRepository,
-        ConnectionRepository connectionRepository,
-        CreatureRepository creatureRepository) {
+        ConnectionCache connectionCache,
+        CreatureRepository creatureRepository,
+        OnlineCreatureRegistry onlineCreatureRegistry,
+        CommandRegistry commandRegistry,
+        AsyncAuthenticator asyncAuthenticator,
+        PlatformTransactionManager transactionManager,
+        ResumeManager resumeManager,
+        MeterRegistry meterRegistry) {
 
         this.loginConfiguration = loginConfiguration;
         this.userDetailsManager = userDetailsManager;
         this.authenticationManager = authenticationManager;
         this.sessionRepository = sessionRepository;
-        this.connectionRepository = connectionRepository;
+        this.connectionCache = connectionCache;
         this.creatureRepository = creatureRepository;
+        this.onlineCreatureRegistry = onlineCreatureRegistry;
+        this.commandRegistry = commandRegistry;
+        this.asyncAuthenticator = asyncAuthenticator;
+        this.transactionManager = transactionManager;
+        this.resumeManager = resumeManager;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
@@ -49,14 +74,19 @@ public class InterpreterAutoConfiguration {
             userDetailsManager,
             authenticationManager,
             sessionRepository,
-            connectionRepository,
-            creatureRepository
+            connectionCache,
+            creatureRepository,
+            onlineCreatureRegistry,
+            asyncAuthenticator,
+            new TransactionTemplate(transactionManager),
+            resumeManager,
+            meterRegistry
         );
     }
 
     @Bean
     @ConditionalOnMissingBean(InGameInterpreterDelegate.class)
     public InGameInterpreterDelegate inGameInterpreterDelegate() {
-        return new DefaultInGameInterpreterDelegate(creatureRepository, loginConfiguration);
+        return new DefaultInGameInterpreterDelegate(onlineCreatureRegistry, loginConfiguration, commandRegistry);
     }
 }
@@ -6,19 +6,66 @@ import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @ConfigurationProperties(prefix = "agony.login")
 public class LoginConfiguration {
-    private Map<String, String> prompt = new HashMap<>();
+    private static final PromptTemplate UNDEFINED = PromptTemplate.compile("[red]Oops! This prompt is undefined!");
+
+    private Map<String, PromptTemplate> prompt = new HashMap<>();
+
+    // the last prompt rendered for each connection, until invalidatePrompt() says a variable in it changed
+    private Map<UUID, Rendered> rendered = new ConcurrentHashMap<>();
 
     public String getPrompt(String key, Connection connection) {
-        return prompt
-            .getOrDefault(key, "[red]Oops! This prompt is undefined!")
-            .replace("%name%", connection.getName() == null ? "???" : connection.getName());
+        PromptTemplate template = prompt.getOrDefault(key, UNDEFINED);
+
+        if (connection.getId() == null) {
+            return template.render(connection);
+        }
+
+        Rendered last = rendered.get(connection.getId());
+
+        if (last != null && last.template == template) {
+            return last.text;
+        }
+
+        String text = template.render(connection);
+
+        rendered.put(connection.getId(), new Rendered(template, text));
+
+        return text;
+    }
+
+    /**
+     * Forgets the cached prompt for a connection. Call it whenever something a
+     * {@link PromptVariable} reads from the connection changes, and when it disconnects.
+     *
+     * @param connectionId the ID of the connection
+     */
+    public void invalidatePrompt(UUID connectionId) {
+        if (connectionId != null) {
+            rendered.remove(connectionId);
+        }
     }
 
     public void setPrompt(Map<String, String> prompt) {
-        this.prompt = prompt;
+        Map<String, PromptTemplate> compiled = new HashMap<>();
+
+        prompt.forEach((key, value) -> compiled.put(key, PromptTemplate.compile(value)));
+
+        this.prompt = compiled;
+    }
+
+    private static final class Rendered {
+        private final PromptTemplate template;
+        private final String text;
+
+        Rendered(PromptTemplate template, String text) {
+            this.template = template;
+            this.text = text;
+        }
     }
 }
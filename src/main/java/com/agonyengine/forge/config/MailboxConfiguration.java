@@ -0,0 +1,28 @@
+package com.agonyengine.forge.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.inject.Inject;
+
+@Configuration
+public class MailboxConfiguration {
+    private MailboxProperties mailboxProperties;
+
+    @Inject
+    public MailboxConfiguration(MailboxProperties mailboxProperties) {
+        this.mailboxProperties = mailboxProperties;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor mailboxTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(mailboxProperties.getPoolSize());
+        executor.setMaxPoolSize(mailboxProperties.getPoolSize());
+        executor.setThreadNamePrefix("mailbox-");
+
+        return executor;
+    }
+}
@@ -0,0 +1,22 @@
+package com.agonyengine.forge.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class OutputPolicyConfiguration {
+    // closes sessions that fell too far behind; each close can sit behind a stuck write,
+    // so they get their own threads and a bounded queue instead of the mailbox pool
+    @Bean
+    public ThreadPoolTaskExecutor slowConsumerTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("slow-consumer-");
+
+        return executor;
+    }
+}
@@ -0,0 +1,64 @@
+package com.agonyengine.forge.config;
+
+import com.agonyengine.forge.controller.outbox.OutputPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "agony.output")
+public class OutputPolicyProperties {
+    private OutputPolicy policy = OutputPolicy.DROP_OLDEST;
+    private Integer backlogLimit = 500;
+    private Long stallThreshold = 2000L;
+    private Integer queueThreshold = 100;
+    private Integer sendBufferLimit = 512 * 1024;
+    private Integer sendTimeLimit = 10000;
+
+    public OutputPolicy getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(OutputPolicy policy) {
+        this.policy = policy;
+    }
+
+    public Integer getBacklogLimit() {
+        return backlogLimit;
+    }
+
+    public void setBacklogLimit(Integer backlogLimit) {
+        this.backlogLimit = backlogLimit;
+    }
+
+    public Long getStallThreshold() {
+        return stallThreshold;
+    }
+
+    public void setStallThreshold(Long stallThreshold) {
+        this.stallThreshold = stallThreshold;
+    }
+
+    public Integer getQueueThreshold() {
+        return queueThreshold;
+    }
+
+    public void setQueueThreshold(Integer queueThreshold) {
+        this.queueThreshold = queueThreshold;
+    }
+
+    public Integer getSendBufferLimit() {
+        return sendBufferLimit;
+    }
+
+    public void setSendBufferLimit(Integer sendBufferLimit) {
+        this.sendBufferLimit = sendBufferLimit;
+    }
+
+    public Integer getSendTimeLimit() {
+        return sendTimeLimit;
+    }
+
+    public void setSendTimeLimit(Integer sendTimeLimit) {
+        this.sendTimeLimit = sendTimeLimit;
+    }
+}
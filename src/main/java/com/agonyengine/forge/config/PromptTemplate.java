@@ -0,0 +1,86 @@
+package com.agonyengine.forge.config;
+
+import com.agonyengine.forge.model.Connection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A prompt parsed once into literal text and {@link PromptVariable}s. Use %% for a
+ * literal percent sign; anything between percent signs that isn't a known variable
+ * is left alone.
+ */
+public final class PromptTemplate {
+    private final String source;
+    private final String[] literals;
+    private final PromptVariable[] variables;
+    private final int literalLength;
+
+    private PromptTemplate(String source, List<String> literals, List<PromptVariable> variables) {
+        this.source = source;
+        this.literals = literals.toArray(new String[0]);
+        this.variables = variables.toArray(new PromptVariable[0]);
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    public static PromptTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<PromptVariable> variables = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+
+        // literals[n] comes before variables[n], and there is always one more literal than variable
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            int close = c == '%' ? source.indexOf('%', i + 1) : -1;
+
+            if (close < 0) {
+                literal.append(c);
+                i++;
+            } else if (close == i + 1) {
+                literal.append('%');
+                i += 2;
+            } else {
+                PromptVariable variable = PromptVariable.forToken(source.substring(i + 1, close));
+
+                if (variable == null) {
+                    // not one of ours, so it's just text; the closing % may open the next variable
+                    literal.append(source, i, close);
+                    i = close;
+                } else {
+                    literals.add(literal.toString());
+                    variables.add(variable);
+                    literal.setLength(0);
+                    i = close + 1;
+                }
+            }
+        }
+
+        literals.add(literal.toString());
+
+        return new PromptTemplate(source, literals, variables);
+    }
+
+    public String render(Connection connection) {
+        String[] values = new String[variables.length];
+        int length = literalLength;
+
+        for (int i = 0; i < variables.length; i++) {
+            values[i] = variables[i].valueOf(connection);
+            length += values[i].length();
+        }
+
+        StringBuilder builder = new StringBuilder(length);
+
+        for (int i = 0; i < variables.length; i++) {
+            builder.append(literals[i]).append(values[i]);
+        }
+
+        return builder.append(literals[variables.length]).toString();
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
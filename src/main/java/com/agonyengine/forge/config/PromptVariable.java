@@ -0,0 +1,43 @@
+package com.agonyengine.forge.config;
+
+import com.agonyengine.forge.model.Connection;
+
+import java.util.function.Function;
+
+/**
+ * The values that can be filled into a prompt, written as %name% in the template.
+ */
+public enum PromptVariable {
+    NAME("name", Connection::getName),
+    ADDRESS("address", Connection::getRemoteAddress);
+
+    private static final String UNKNOWN = "???";
+
+    private String token;
+    private Function<Connection, String> accessor;
+
+    PromptVariable(String token, Function<Connection, String> accessor) {
+        this.token = token;
+        this.accessor = accessor;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String valueOf(Connection connection) {
+        String value = accessor.apply(connection);
+
+        return value == null ? UNKNOWN : value;
+    }
+
+    static PromptVariable forToken(String token) {
+        for (PromptVariable variable : values()) {
+            if (variable.token.equals(token)) {
+                return variable;
+            }
+        }
+
+        return null;
+    }
+}
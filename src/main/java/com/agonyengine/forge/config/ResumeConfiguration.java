@@ -0,0 +1,20 @@
+package com.agonyengine.forge.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ResumeConfiguration {
+    // cleans up after players who didn't come back, which is never in a hurry
+    @Bean
+    public ThreadPoolTaskExecutor resumeTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("resume-");
+
+        return executor;
+    }
+}
@@ -0,0 +1,18 @@
+package com.agonyengine.forge.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "agony.resume")
+public class ResumeProperties {
+    private Long gracePeriod = 60L;
+
+    public Long getGracePeriod() {
+        return gracePeriod;
+    }
+
+    public void setGracePeriod(Long gracePeriod) {
+        this.gracePeriod = gracePeriod;
+    }
+}
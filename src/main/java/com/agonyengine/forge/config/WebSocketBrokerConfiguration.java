@@ -1,7 +1,18 @@
 package com.agonyengine.forge.config;
 
+import com.agonyengine.forge.controller.ClientSendInterceptor;
+import com.agonyengine.forge.controller.ConnectionLimitHandshakeInterceptor;
+import com.agonyengine.forge.controller.OutputEncoder;
 import com.agonyengine.forge.controller.RemoteIpHandshakeInterceptor;
+import com.agonyengine.forge.controller.channel.ChannelMembershipInterceptor;
+import com.agonyengine.forge.controller.ip.ConnectionLimiter;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
+import com.agonyengine.forge.controller.stats.OutboundQueueInterceptor;
+import com.agonyengine.forge.controller.stats.SessionStatsHandlerDecorator;
+import com.agonyengine.forge.controller.stats.SessionStatsRegistry;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.messaging.simp.stomp.StompDecoder;
@@ -13,18 +24,46 @@ import org.springframework.session.Session;
 import org.springframework.session.web.socket.config.annotation.AbstractSessionWebSocketMessageBrokerConfigurer;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
+import java.util.Collections;
 
 @EnableWebSocketMessageBroker
 @Configuration
 public class WebSocketBrokerConfiguration extends AbstractSessionWebSocketMessageBrokerConfigurer<Session> {
+    private static final String APPLICATION_PREFIX = "/app";
+
     private WebSocketBrokerProperties brokerProperties;
+    private RemoteIpProperties remoteIpProperties;
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+    private ConnectionLimiter connectionLimiter;
+    private SessionStatsRegistry sessionStatsRegistry;
+    private OutputPolicyProperties outputPolicyProperties;
+    private Provider<OutboxManager> outboxManager;
+    private OutputEncoder outputEncoder;
 
     @Inject
-    public WebSocketBrokerConfiguration(WebSocketBrokerProperties brokerProperties) {
+    public WebSocketBrokerConfiguration(
+        WebSocketBrokerProperties brokerProperties,
+        RemoteIpProperties remoteIpProperties,
+        OnlineCreatureRegistry onlineCreatureRegistry,
+        ConnectionLimiter connectionLimiter,
+        SessionStatsRegistry sessionStatsRegistry,
+        OutputPolicyProperties outputPolicyProperties,
+        Provider<OutboxManager> outboxManager,
+        OutputEncoder outputEncoder) {
+
         this.brokerProperties = brokerProperties;
+        this.remoteIpProperties = remoteIpProperties;
+        this.onlineCreatureRegistry = onlineCreatureRegistry;
+        this.connectionLimiter = connectionLimiter;
+        this.sessionStatsRegistry = sessionStatsRegistry;
+        this.outputPolicyProperties = outputPolicyProperties;
+        this.outboxManager = outboxManager;
+        this.outputEncoder = outputEncoder;
     }
 
     @Override
@@ -36,15 +75,53 @@ public class WebSocketBrokerConfiguration extends AbstractSessionWebSocketMessag
             .addEndpoint("/mud")
             .setHandshakeHandler(new UniqueHandshakeHandler())
             .withSockJS()
-            .setInterceptors(httpSessionHandshakeInterceptor, new RemoteIpHandshakeInterceptor())
+            .setInterceptors(
+                new RemoteIpHandshakeInterceptor(remoteIpProperties),
+                new ConnectionLimitHandshakeInterceptor(connectionLimiter),
+                httpSessionHandshakeInterceptor)
             .setSupressCors(true);
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        super.configureWebSocketTransport(registration);
+
+        registration
+            .setSendBufferSizeLimit(outputPolicyProperties.getSendBufferLimit())
+            .setSendTimeLimit(outputPolicyProperties.getSendTimeLimit());
+        registration.addDecoratorFactory(handler -> new SessionStatsHandlerDecorator(handler, sessionStatsRegistry));
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        super.configureClientInboundChannel(registration);
+
+        // clients may only SEND to our @MessageMapping methods, never to the broker directly
+        registration.interceptors(new ClientSendInterceptor(Collections.singletonList(APPLICATION_PREFIX + "/")));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // the queue counter has to come last so that it never counts a message another interceptor drops
+        registration.interceptors(
+            new ChannelMembershipInterceptor(onlineCreatureRegistry, outboxManager, outputEncoder),
+            new OutboundQueueInterceptor(sessionStatsRegistry));
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry
+            .setApplicationDestinationPrefixes(APPLICATION_PREFIX, "/user")
+            .setUserDestinationPrefix("/user");
+
+        if (brokerProperties.getMode() == BrokerMode.EMBEDDED) {
+            // a single node has nobody to share users or subscriptions with, so there's nothing to broadcast
+            registry.enableSimpleBroker("/queue", "/topic");
+
+            return;
+        }
+
         StompBrokerRelayRegistration relayRegistration = registry
-            .setApplicationDestinationPrefixes("/app", "/user")
-            .setUserDestinationPrefix("/user")
             .enableStompBrokerRelay("/queue", "/topic")
             .setUserDestinationBroadcast("/topic/user-destination")
             .setUserRegistryBroadcast("/topic/user-registry")
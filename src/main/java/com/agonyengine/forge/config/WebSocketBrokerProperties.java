@@ -6,6 +6,7 @@ import org.springframework.stereotype.Component;
 @Component
 @ConfigurationProperties(prefix = "agony.broker")
 public class WebSocketBrokerProperties {
+    private BrokerMode mode = BrokerMode.RELAY;
     private Boolean ssl;
     private String host;
     private Integer port;
@@ -14,6 +15,14 @@ public class WebSocketBrokerProperties {
     private String clientUsername;
     private String clientPassword;
 
+    public BrokerMode getMode() {
+        return mode;
+    }
+
+    public void setMode(BrokerMode mode) {
+        this.mode = mode;
+    }
+
     public Boolean getSsl() {
         return ssl;
     }
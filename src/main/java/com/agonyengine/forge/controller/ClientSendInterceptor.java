@@ -0,0 +1,51 @@
+package com.agonyengine.forge.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import java.util.List;
+
+/**
+ * Sits on the client inbound channel and drops any SEND that isn't for one of our own
+ * message handlers. Without it a client could send straight to a broker destination,
+ * such as a channel topic or another player's output queue, and the broker would pass
+ * it on to everyone there without it ever being escaped, throttled or checked.
+ */
+public class ClientSendInterceptor implements ChannelInterceptor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientSendInterceptor.class);
+
+    private List<String> allowedPrefixes;
+
+    public ClientSendInterceptor(List<String> allowedPrefixes) {
+        this.allowedPrefixes = allowedPrefixes;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+
+        if (destination != null) {
+            for (String prefix : allowedPrefixes) {
+                if (destination.startsWith(prefix)) {
+                    return message;
+                }
+            }
+        }
+
+        LOGGER.warn("Dropped SEND to {} from session {}", destination, SimpMessageHeaderAccessor.getSessionId(headers));
+
+        return null;
+    }
+}
@@ -0,0 +1,82 @@
+package com.agonyengine.forge.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes lines in the compact wire format. Color markup becomes one character from
+ * U+00A1 to U+00B1. Players can't type those characters because input is HTML
+ * escaped, and any that turn up in our own text are sent as numeric entities, so
+ * the client can always treat them as colors. They go out as two bytes of UTF-8
+ * rather than the seven or more that "[yellow]" takes. Anything else in brackets
+ * is left as text, which is what the client does with it in JSON too.
+ */
+final class CompactCodec {
+    static final String[] COLORS = new String[] {
+        "default",
+        "dblack", "black",
+        "dwhite", "white",
+        "dred", "red",
+        "dyellow", "yellow",
+        "dgreen", "green",
+        "dcyan", "cyan",
+        "dblue", "blue",
+        "dmagenta", "magenta"
+    };
+
+    static final char FIRST_ESCAPE = '\u00A1';
+    static final char LAST_ESCAPE = (char) (FIRST_ESCAPE + COLORS.length - 1);
+
+    private static final int LONGEST_COLOR = 8;
+    private static final Map<String, Character> ESCAPES = new HashMap<>();
+
+    static {
+        for (int i = 0; i < COLORS.length; i++) {
+            ESCAPES.put(COLORS[i], (char) (FIRST_ESCAPE + i));
+        }
+    }
+
+    private CompactCodec() {
+        // utility class
+    }
+
+    /**
+     * Appends a line to the builder as its length in UTF-16 code units, a colon
+     * and then the line, so the client can cut it out with a single substr.
+     *
+     * @param builder the builder to append to
+     * @param line the line to encode
+     */
+    static void appendLine(StringBuilder builder, String line) {
+        int lengthAt = builder.length();
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (c == '[') {
+                int close = line.indexOf(']', i + 1);
+
+                if (close > i + 1 && close - i - 1 <= LONGEST_COLOR) {
+                    Character escape = ESCAPES.get(line.substring(i + 1, close));
+
+                    if (escape != null) {
+                        builder.append(escape.charValue());
+                        i = close;
+                        continue;
+                    }
+                }
+            }
+
+            if (c >= FIRST_ESCAPE && c <= LAST_ESCAPE) {
+                builder.append("&#").append((int) c).append(';');
+            } else {
+                builder.append(c);
+            }
+        }
+
+        // the length isn't known until the line is written, so slip it in front afterwards
+        int length = builder.length() - lengthAt;
+
+        builder.insert(lengthAt, ':').insert(lengthAt, length);
+    }
+}
@@ -0,0 +1,100 @@
+package com.agonyengine.forge.controller;
+
+import com.agonyengine.forge.controller.ip.ConnectionLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+import static com.agonyengine.forge.controller.ControllerConstants.AGONY_CONNECTION_LIMIT_KEY;
+import static com.agonyengine.forge.controller.ControllerConstants.AGONY_REMOTE_IP_KEY;
+
+/**
+ * Turns away a handshake when its address already has too many connections open.
+ * Must run after {@link RemoteIpHandshakeInterceptor} so that the address is known.
+ * A handshake that gets a slot but then fails never gets a session, so nothing would
+ * disconnect and the slot is given back here instead.
+ */
+public class ConnectionLimitHandshakeInterceptor implements HandshakeInterceptor {
+    static final String ATTRIBUTES_ATTR = ConnectionLimitHandshakeInterceptor.class.getName() + ".ATTRIBUTES";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionLimitHandshakeInterceptor.class);
+
+    private ConnectionLimiter connectionLimiter;
+
+    public ConnectionLimitHandshakeInterceptor(ConnectionLimiter connectionLimiter) {
+        this.connectionLimiter = connectionLimiter;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String address = (String) attributes.get(AGONY_REMOTE_IP_KEY);
+
+        if (address == null) {
+            return true;
+        }
+
+        if (!connectionLimiter.acquire(address)) {
+            LOGGER.warn("Too many connections from {}", address);
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+
+            return false;
+        }
+
+        // SessionDisconnectListener gives the slot back, and only once, by removing this
+        attributes.put(AGONY_CONNECTION_LIMIT_KEY, address);
+
+        // afterHandshake isn't given the attributes, so leave them where it can find them
+        if (request instanceof ServletServerHttpRequest) {
+            ((ServletServerHttpRequest) request).getServletRequest().setAttribute(ATTRIBUTES_ATTR, attributes);
+        }
+
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Exception exception) {
+        if (!(request instanceof ServletServerHttpRequest)) {
+            return;
+        }
+
+        Map<String, Object> attributes = (Map<String, Object>) ((ServletServerHttpRequest) request)
+            .getServletRequest()
+            .getAttribute(ATTRIBUTES_ATTR);
+
+        if (attributes == null || (exception == null && isAccepted(request, response))) {
+            return;
+        }
+
+        // same as SessionDisconnectListener, so the slot can only be given back once
+        String address = (String) attributes.remove(AGONY_CONNECTION_LIMIT_KEY);
+
+        if (address != null) {
+            LOGGER.debug("Handshake from {} failed", address, exception);
+            connectionLimiter.release(address);
+        }
+    }
+
+    private static boolean isAccepted(ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(response instanceof ServletServerHttpResponse)) {
+            return true;
+        }
+
+        int status = ((ServletServerHttpResponse) response).getServletResponse().getStatus();
+
+        // a WebSocket upgrade only worked if it switched protocols, but the SockJS fallbacks answer with a plain 200
+        if ("websocket".equalsIgnoreCase(request.getHeaders().getUpgrade())) {
+            return status == HttpStatus.SWITCHING_PROTOCOLS.value();
+        }
+
+        return status < HttpStatus.BAD_REQUEST.value();
+    }
+}
@@ -5,6 +5,9 @@ public final class ControllerConstants {
     public static final String AGONY_STOMP_PRINCIPAL_KEY = "AGONY.STOMP.PRINCIPAL";
     public static final String AGONY_STOMP_SESSION_KEY = "AGONY.STOMP.SESSION";
     public static final String AGONY_REMOTE_IP_KEY = "AGONY.REMOTE.IP";
+    public static final String AGONY_RESUME_TOKEN_KEY = "AGONY.RESUME.TOKEN";
+    public static final String AGONY_CONNECTION_LIMIT_KEY = "AGONY.CONNECTION.LIMIT";
+    public static final String AGONY_INPUT_BUCKET_KEY = "AGONY.INPUT.BUCKET";
 
     private ControllerConstants() {
         // this method intentionally left blank
@@ -0,0 +1,43 @@
+package com.agonyengine.forge.controller;
+
+/**
+ * The lines of an Output, already encoded as the comma separated
+ * elements of a JSON array so that they can be reused in many frames.
+ * The compact encoding is only worked out the first time somebody needs it.
+ */
+public class EncodedOutput {
+    private final String[] source;
+    private final byte[] lines;
+    private final boolean isSecret;
+    private volatile byte[] compactLines;
+
+    EncodedOutput(String[] source, byte[] lines, boolean isSecret) {
+        this.source = source;
+        this.lines = lines;
+        this.isSecret = isSecret;
+    }
+
+    public String[] getSource() {
+        return source;
+    }
+
+    byte[] getLines() {
+        return lines;
+    }
+
+    byte[] getCompactLines() {
+        return compactLines;
+    }
+
+    void setCompactLines(byte[] compactLines) {
+        this.compactLines = compactLines;
+    }
+
+    public boolean isEmpty() {
+        return source.length == 0;
+    }
+
+    public boolean getSecret() {
+        return isSecret;
+    }
+}
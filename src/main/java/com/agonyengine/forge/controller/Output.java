@@ -1,13 +1,28 @@
 package com.agonyengine.forge.controller;
 
+import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 
+/**
+ * Lines of text to send to a player. The lines are kept in a tree of immutable segments,
+ * so appending one Output to another shares the child's lines instead of copying them,
+ * and the child can keep changing without affecting the parent.
+ */
 public class Output {
-    private List<String> lines = new ArrayList<>();
+    // small leaves are merged as they're appended so that line-at-a-time building stays flat
+    static final int MERGE_THRESHOLD = 16;
+
+    // past this depth the tree is flattened into a single leaf
+    static final int MAX_DEPTH = 32;
+
+    private Segment root = Leaf.EMPTY;
     private boolean isSecret = false;
 
     public Output() {
@@ -27,21 +42,26 @@ public class Output {
     }
 
     public Output append(String ... output) {
-        lines.addAll(Arrays.asList(output));
+        root = concat(root, new Leaf(output.clone()));
 
         return this;
     }
 
     public Output append(Collection<String> output) {
-        lines.addAll(output);
+        root = concat(root, new Leaf(output.toArray(new String[0])));
 
         return this;
     }
 
     public Output append(Output ... outputs) {
-        Arrays.stream(outputs).forEach(output -> this.lines.addAll(output.lines));
+        boolean anySecret = false;
 
-        setSecret(Arrays.stream(outputs).anyMatch(Output::getSecret));
+        for (Output output : outputs) {
+            root = concat(root, output.root);
+            anySecret |= output.getSecret();
+        }
+
+        setSecret(anySecret);
 
         return this;
     }
@@ -56,17 +76,27 @@ public class Output {
         return isSecret;
     }
 
+    public int size() {
+        return root.size;
+    }
+
+    /**
+     * A read-only view of the lines as they are right now. Nothing is copied, and
+     * appending to this Output afterwards doesn't change the view.
+     *
+     * @return the lines of this Output
+     */
     public List<String> getOutput() {
-        return toList();
+        return new Lines(root);
     }
 
     public List<String> toList() {
-        return new ArrayList<>(lines);
+        return new ArrayList<>(getOutput());
     }
 
     @Override
     public String toString() {
-        return String.join("\n", lines);
+        return String.join("\n", getOutput());
     }
 
     @Override
@@ -74,11 +104,170 @@ public class Output {
         if (this == o) return true;
         if (!(o instanceof Output)) return false;
         Output output = (Output) o;
-        return lines.equals(output.lines);
+        return getOutput().equals(output.getOutput());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(lines);
+        return Objects.hash(getOutput());
+    }
+
+    int depth() {
+        return root.depth;
+    }
+
+    private static Segment concat(Segment left, Segment right) {
+        if (right.size == 0) {
+            return left;
+        }
+
+        if (left.size == 0) {
+            return right;
+        }
+
+        if (right instanceof Leaf && right.size <= MERGE_THRESHOLD) {
+            if (left instanceof Leaf && left.size <= MERGE_THRESHOLD) {
+                return Leaf.merge((Leaf) left, (Leaf) right);
+            }
+
+            if (left instanceof Concat) {
+                Concat concat = (Concat) left;
+
+                if (concat.right instanceof Leaf && concat.right.size <= MERGE_THRESHOLD) {
+                    return new Concat(concat.left, Leaf.merge((Leaf) concat.right, (Leaf) right));
+                }
+            }
+        }
+
+        Segment result = new Concat(left, right);
+
+        return result.depth > MAX_DEPTH ? Leaf.flatten(result) : result;
+    }
+
+    private abstract static class Segment {
+        final int size;
+        final int depth;
+
+        Segment(int size, int depth) {
+            this.size = size;
+            this.depth = depth;
+        }
+
+        abstract String get(int index);
+    }
+
+    private static final class Leaf extends Segment {
+        static final Leaf EMPTY = new Leaf(new String[0]);
+
+        final String[] lines;
+
+        Leaf(String[] lines) {
+            super(lines.length, 0);
+
+            this.lines = lines;
+        }
+
+        static Leaf merge(Leaf left, Leaf right) {
+            String[] lines = new String[left.size + right.size];
+
+            System.arraycopy(left.lines, 0, lines, 0, left.size);
+            System.arraycopy(right.lines, 0, lines, left.size, right.size);
+
+            return new Leaf(lines);
+        }
+
+        static Leaf flatten(Segment segment) {
+            return new Leaf(new Lines(segment).toArray(new String[0]));
+        }
+
+        @Override
+        String get(int index) {
+            return lines[index];
+        }
+    }
+
+    private static final class Concat extends Segment {
+        final Segment left;
+        final Segment right;
+
+        Concat(Segment left, Segment right) {
+            super(left.size + right.size, Math.max(left.depth, right.depth) + 1);
+
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        String get(int index) {
+            return index < left.size ? left.get(index) : right.get(index - left.size);
+        }
+    }
+
+    private static final class Lines extends AbstractList<String> {
+        private final Segment root;
+
+        Lines(Segment root) {
+            this.root = root;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= root.size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + root.size);
+            }
+
+            return root.get(index);
+        }
+
+        @Override
+        public int size() {
+            return root.size;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new LineIterator(root);
+        }
+    }
+
+    private static final class LineIterator implements Iterator<String> {
+        private final Deque<Segment> pending = new ArrayDeque<>();
+        private String[] lines = Leaf.EMPTY.lines;
+        private int next = 0;
+
+        LineIterator(Segment root) {
+            pending.push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == lines.length) {
+                if (pending.isEmpty()) {
+                    return false;
+                }
+
+                Segment segment = pending.pop();
+
+                // descend to the leftmost leaf, saving the right sides for later
+                while (segment instanceof Concat) {
+                    pending.push(((Concat) segment).right);
+                    segment = ((Concat) segment).left;
+                }
+
+                lines = ((Leaf) segment).lines;
+                next = 0;
+            }
+
+            return true;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return lines[next++];
+        }
     }
 }
@@ -0,0 +1,158 @@
+package com.agonyengine.forge.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Component
+public class OutputEncoder {
+    private static final byte[] PREFIX = "{\"output\":[".getBytes(UTF_8);
+    private static final byte[] SUFFIX_PUBLIC = "],\"secret\":false}".getBytes(UTF_8);
+    private static final byte[] SUFFIX_SECRET = "],\"secret\":true}".getBytes(UTF_8);
+
+    private ObjectMapper objectMapper;
+
+    @Inject
+    public OutputEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public EncodedOutput encode(Output output) {
+        try {
+            String[] source = output.getOutput().toArray(new String[0]);
+            byte[] array = objectMapper.writeValueAsBytes(source);
+
+            // strip the enclosing [ and ] so the elements can be spliced into other arrays
+            return new EncodedOutput(source, Arrays.copyOfRange(array, 1, array.length - 1), output.getSecret());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unable to encode Output", e);
+        }
+    }
+
+    /**
+     * Reads a JSON payload made by {@link #frame(EncodedOutput...)} back into a single part.
+     *
+     * @param frame the JSON payload
+     * @return the lines it holds, encoded again
+     */
+    public EncodedOutput decode(byte[] frame) {
+        try {
+            JsonNode root = objectMapper.readTree(frame);
+            List<String> lines = new ArrayList<>();
+
+            root.path("output").forEach(line -> lines.add(line.asText()));
+
+            return encode(new Output(lines).setSecret(root.path("secret").asBoolean()));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to decode frame", e);
+        }
+    }
+
+    /**
+     * Builds a payload that decodes to the same JSON as an Output
+     * made by appending all of the parts together.
+     *
+     * @param parts the encoded Outputs to join, in order
+     * @return the complete JSON payload
+     */
+    public byte[] frame(EncodedOutput ... parts) {
+        return frame(WireFormat.JSON, parts);
+    }
+
+    /**
+     * Builds a payload in the given format that holds all of the parts, in order.
+     *
+     * @param format the format to write
+     * @param parts the encoded Outputs to join, in order
+     * @return the complete payload
+     */
+    public byte[] frame(WireFormat format, EncodedOutput ... parts) {
+        if (format == WireFormat.COMPACT) {
+            return frameCompact(parts);
+        }
+
+        boolean isSecret = false;
+        int size = PREFIX.length + SUFFIX_PUBLIC.length + parts.length;
+
+        for (EncodedOutput part : parts) {
+            size += part.getLines().length;
+            isSecret |= part.getSecret();
+        }
+
+        byte[] frame = new byte[size];
+        int position = append(frame, 0, PREFIX);
+        boolean isFirst = true;
+
+        for (EncodedOutput part : parts) {
+            if (part.isEmpty()) {
+                continue;
+            }
+
+            if (!isFirst) {
+                frame[position++] = ',';
+            }
+
+            position = append(frame, position, part.getLines());
+            isFirst = false;
+        }
+
+        position = append(frame, position, isSecret ? SUFFIX_SECRET : SUFFIX_PUBLIC);
+
+        return position == frame.length ? frame : Arrays.copyOf(frame, position);
+    }
+
+    private byte[] frameCompact(EncodedOutput ... parts) {
+        boolean isSecret = false;
+        int size = 1;
+
+        for (EncodedOutput part : parts) {
+            size += compactLines(part).length;
+            isSecret |= part.getSecret();
+        }
+
+        byte[] frame = new byte[size];
+        int position = 1;
+
+        frame[0] = (byte) (isSecret ? '1' : '0');
+
+        // every line carries its own length, so the parts can simply be laid end to end
+        for (EncodedOutput part : parts) {
+            position = append(frame, position, part.getCompactLines());
+        }
+
+        return frame;
+    }
+
+    private static byte[] compactLines(EncodedOutput part) {
+        byte[] compact = part.getCompactLines();
+
+        if (compact == null) {
+            StringBuilder builder = new StringBuilder();
+
+            for (String line : part.getSource()) {
+                CompactCodec.appendLine(builder, line);
+            }
+
+            // racing threads would work out the same bytes, so it doesn't matter who wins
+            compact = builder.toString().getBytes(UTF_8);
+            part.setCompactLines(compact);
+        }
+
+        return compact;
+    }
+
+    private static int append(byte[] destination, int position, byte[] source) {
+        System.arraycopy(source, 0, destination, position, source.length);
+
+        return position + source.length;
+    }
+}
@@ -1,52 +1,55 @@
 package com.agonyengine.forge.controller;
 
+import com.agonyengine.forge.config.RemoteIpProperties;
+import com.agonyengine.forge.controller.ip.CidrTrie;
+import com.agonyengine.forge.controller.ip.InetAddressParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.HandshakeInterceptor;
 
 import java.net.InetAddress;
-import java.net.UnknownHostException;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
 
 import static com.agonyengine.forge.controller.ControllerConstants.AGONY_REMOTE_IP_KEY;
 
+/**
+ * Works out the client's real IP address. Forwarding headers are only believed when
+ * they come from a trusted proxy, and are read from right to left so that whatever
+ * the client put in them itself is never reached unless every hop after it is trusted.
+ */
 public class RemoteIpHandshakeInterceptor implements HandshakeInterceptor {
-    static final String X_FORWARDED_FOR_HEADER = "x-forwarded-for"; // TODO externalize configuration, allow a list of headers and "trusted" proxies
+    static final String X_FORWARDED_FOR_HEADER = "x-forwarded-for";
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RemoteIpHandshakeInterceptor.class);
 
+    private List<String> headers;
+    private CidrTrie trustedProxies = new CidrTrie();
+
+    public RemoteIpHandshakeInterceptor(RemoteIpProperties remoteIpProperties) {
+        this.headers = remoteIpProperties.getHeaders();
+
+        remoteIpProperties.getTrustedProxies().forEach(trustedProxies::add);
+    }
+
     @Override
     public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Map<String, Object> attributes) {
-        Optional
-            .ofNullable(request.getHeaders().get(X_FORWARDED_FOR_HEADER))
-            .ifPresent(headers -> headers.forEach(header -> {
-                Arrays.stream(header.split("[,]"))
-                    .map(address -> {
-                        try {
-                            InetAddress inetAddress = InetAddress.getByName(address);
-
-                            if (!inetAddress.isSiteLocalAddress()) {
-                                return inetAddress.getHostAddress();
-                            }
-                        } catch (UnknownHostException e) {
-                            LOGGER.debug("Failed to resolve IP for address: {}", address);
-                        }
-
-                        return null;
-                    })
-                    .filter(Objects::nonNull)
-                    .distinct()
-                    .findFirst()
-                    .ifPresent(address -> attributes.put(AGONY_REMOTE_IP_KEY, address));
-            }));
-
-        attributes.putIfAbsent(AGONY_REMOTE_IP_KEY, request.getRemoteAddress().getAddress().getHostAddress());
+        InetAddress peer = request.getRemoteAddress().getAddress();
+        String client = peer.getHostAddress();
+
+        if (trustedProxies.contains(peer.getAddress())) {
+            List<String> values = findForwardingHeader(request.getHeaders());
+
+            if (values != null) {
+                client = findClient(values, client);
+            }
+        }
+
+        attributes.put(AGONY_REMOTE_IP_KEY, client);
 
         return true;
     }
@@ -55,4 +58,60 @@ public class RemoteIpHandshakeInterceptor implements HandshakeInterceptor {
     public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Exception exception) {
         // nothing to do here
     }
+
+    private List<String> findForwardingHeader(HttpHeaders httpHeaders) {
+        for (String header : headers) {
+            List<String> values = httpHeaders.get(header);
+
+            if (values != null && !values.isEmpty()) {
+                return values;
+            }
+        }
+
+        return null;
+    }
+
+    private String findClient(List<String> values, String peer) {
+        byte[] client = null;
+
+        for (int line = values.size() - 1; line >= 0; line--) {
+            String value = values.get(line);
+            int end = value.length();
+
+            while (end >= 0) {
+                int start = value.lastIndexOf(',', end - 1) + 1;
+
+                if (!isBlank(value, start, end)) {
+                    byte[] address = InetAddressParser.parse(value, start, end);
+
+                    if (address == null) {
+                        // can't tell who sent us this, so the last hop we trust is as far as we can go
+                        LOGGER.debug("Invalid forwarded address: {}", value.substring(start, end));
+                        return client == null ? peer : InetAddressParser.format(client);
+                    }
+
+                    client = address;
+
+                    if (!trustedProxies.contains(address)) {
+                        return InetAddressParser.format(address);
+                    }
+                }
+
+                end = start - 1;
+            }
+        }
+
+        // every hop was a trusted proxy, so the first one is as close to the client as we can get
+        return client == null ? peer : InetAddressParser.format(client);
+    }
+
+    private static boolean isBlank(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
 }
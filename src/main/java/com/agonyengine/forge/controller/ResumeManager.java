@@ -0,0 +1,170 @@
+package com.agonyengine.forge.controller;
+
+import com.agonyengine.forge.config.GameLoopProperties;
+import com.agonyengine.forge.config.ResumeProperties;
+import com.agonyengine.forge.controller.scrollback.ScrollbackManager;
+import com.agonyengine.forge.loop.Timeout;
+import com.agonyengine.forge.loop.TimingWheel;
+import com.agonyengine.forge.model.Connection;
+import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.repository.CreatureRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.agonyengine.forge.controller.ControllerConstants.AGONY_RESUME_TOKEN_KEY;
+
+/**
+ * Holds on to a Creature for a while after its player drops, so that a reconnect
+ * from the same HTTP session can pick it back up without logging in again. The
+ * token that ties the two together lives in the HTTP session and never goes to
+ * the browser. Each token is good for one resume, and a new one is issued with it.
+ */
+@Component
+public class ResumeManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResumeManager.class);
+
+    private Map<UUID, String> tokensByConnectionId = new ConcurrentHashMap<>();
+    private Map<String, Suspended> suspended = new ConcurrentHashMap<>();
+    private CreatureRepository creatureRepository;
+    private SessionRepository sessionRepository;
+    private TimingWheel timingWheel;
+    private Executor executor;
+    private ScrollbackManager scrollbackManager;
+    private long gracePulses;
+
+    @Inject
+    public ResumeManager(
+        CreatureRepository creatureRepository,
+        SessionRepository sessionRepository,
+        TimingWheel timingWheel,
+        @Named("resumeTaskExecutor") Executor executor,
+        ScrollbackManager scrollbackManager,
+        ResumeProperties resumeProperties,
+        GameLoopProperties gameLoopProperties) {
+
+        this.creatureRepository = creatureRepository;
+        this.sessionRepository = sessionRepository;
+        this.timingWheel = timingWheel;
+        this.executor = executor;
+        this.scrollbackManager = scrollbackManager;
+        this.gracePulses = TimeUnit.SECONDS.toMillis(resumeProperties.getGracePeriod()) / gameLoopProperties.getPulse();
+    }
+
+    public String issue(Connection connection) {
+        String token = UUID.randomUUID().toString();
+
+        tokensByConnectionId.put(connection.getId(), token);
+
+        return token;
+    }
+
+    /**
+     * Issues a new token for a Connection that has just resumed, and stores it in the
+     * Connection's HTTP session in place of the one that was used.
+     *
+     * @param connection the resumed Connection, with its new HTTP session ID
+     * @return the new token
+     */
+    @SuppressWarnings("unchecked")
+    public String rotate(Connection connection) {
+        String token = issue(connection);
+        Session session = connection.getHttpSessionId() == null ? null : sessionRepository.findById(connection.getHttpSessionId());
+
+        if (session != null) {
+            session.setAttribute(AGONY_RESUME_TOKEN_KEY, token);
+            sessionRepository.save(session);
+        }
+
+        return token;
+    }
+
+    /**
+     * Starts the grace period for a Creature whose player just dropped.
+     *
+     * @param creature the Creature
+     * @return false if the Creature has no resume token, in which case it should be cleaned up right away
+     */
+    public boolean suspend(Creature creature) {
+        UUID connectionId = creature.getConnection().getId();
+        String token = connectionId == null ? null : tokensByConnectionId.get(connectionId);
+
+        if (token == null) {
+            return false;
+        }
+
+        // the grace period is many pulses long, so the callback can't run before the put
+        Timeout timeout = timingWheel.schedule(() -> expire(token), gracePulses);
+
+        suspended.put(token, new Suspended(creature, timeout));
+
+        return true;
+    }
+
+    public Optional<Creature> resume(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+
+        Suspended entry = suspended.remove(token);
+
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        entry.timeout.cancel();
+
+        // the token is spent, so nothing can resume with it again even if a new one never gets issued
+        tokensByConnectionId.remove(entry.creature.getConnection().getId(), token);
+
+        return Optional.of(entry.creature);
+    }
+
+    public int size() {
+        return suspended.size();
+    }
+
+    public Stream<Creature> stream() {
+        return suspended.values().stream().map(entry -> entry.creature);
+    }
+
+    private void expire(String token) {
+        Suspended entry = suspended.remove(token);
+
+        if (entry == null) {
+            return;
+        }
+
+        UUID connectionId = entry.creature.getConnection().getId();
+
+        tokensByConnectionId.remove(connectionId);
+        scrollbackManager.discard(connectionId);
+
+        // deleting touches the database, so keep it off the game loop thread
+        executor.execute(() -> creatureRepository.delete(entry.creature));
+
+        LOGGER.info("Grace period ended for {}", entry.creature.getName());
+    }
+
+    private static class Suspended {
+        private final Creature creature;
+        private final Timeout timeout;
+
+        Suspended(Creature creature, Timeout timeout) {
+            this.creature = creature;
+            this.timeout = timeout;
+        }
+    }
+}
@@ -1,6 +1,14 @@
 package com.agonyengine.forge.controller;
 
+import com.agonyengine.forge.config.LoginConfiguration;
+import com.agonyengine.forge.controller.ip.ConnectionLimiter;
+import com.agonyengine.forge.controller.mailbox.MailboxExecutor;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
+import com.agonyengine.forge.controller.scrollback.ScrollbackManager;
+import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.repository.ConnectionCache;
 import com.agonyengine.forge.repository.CreatureRepository;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationListener;
@@ -10,6 +18,8 @@ import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
 import javax.inject.Inject;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 import static com.agonyengine.forge.controller.ControllerConstants.*;
 
@@ -18,10 +28,36 @@ public class SessionDisconnectListener implements ApplicationListener<SessionDis
     private static final Logger LOGGER = LoggerFactory.getLogger(SessionDisconnectListener.class);
 
     private CreatureRepository creatureRepository;
+    private ConnectionCache connectionCache;
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+    private OutboxManager outboxManager;
+    private MailboxExecutor mailboxExecutor;
+    private ResumeManager resumeManager;
+    private ConnectionLimiter connectionLimiter;
+    private ScrollbackManager scrollbackManager;
+    private LoginConfiguration loginConfiguration;
 
     @Inject
-    public SessionDisconnectListener(CreatureRepository creatureRepository) {
+    public SessionDisconnectListener(
+        CreatureRepository creatureRepository,
+        ConnectionCache connectionCache,
+        OnlineCreatureRegistry onlineCreatureRegistry,
+        OutboxManager outboxManager,
+        MailboxExecutor mailboxExecutor,
+        ResumeManager resumeManager,
+        ConnectionLimiter connectionLimiter,
+        ScrollbackManager scrollbackManager,
+        LoginConfiguration loginConfiguration) {
+
         this.creatureRepository = creatureRepository;
+        this.connectionCache = connectionCache;
+        this.onlineCreatureRegistry = onlineCreatureRegistry;
+        this.outboxManager = outboxManager;
+        this.mailboxExecutor = mailboxExecutor;
+        this.resumeManager = resumeManager;
+        this.connectionLimiter = connectionLimiter;
+        this.scrollbackManager = scrollbackManager;
+        this.loginConfiguration = loginConfiguration;
     }
 
     @Override
@@ -30,9 +66,35 @@ public class SessionDisconnectListener implements ApplicationListener<SessionDis
         Map<String, Object> attributes = headerAccessor.getSessionAttributes();
 
         if (attributes != null) {
+            // this event can arrive more than once for the same session
+            String limitedAddress = (String) attributes.remove(AGONY_CONNECTION_LIMIT_KEY);
+
+            if (limitedAddress != null) {
+                connectionLimiter.release(limitedAddress);
+            }
+
+            String principal = (String) attributes.get(AGONY_STOMP_PRINCIPAL_KEY);
+            UUID connectionId = (UUID) attributes.get(AGONY_CONNECTION_ID_KEY);
+            Optional<Creature> online = onlineCreatureRegistry.unregister(principal);
+
+            outboxManager.close(principal);
+            mailboxExecutor.close(connectionId);
+
+            // write any pending changes before the Creature's delete cascades to the Connection
+            connectionCache.evict(connectionId);
+            loginConfiguration.invalidatePrompt(connectionId);
+
+            if (online.isPresent() && resumeManager.suspend(online.get())) {
+                LOGGER.info("Lost link to {} from {}", online.get().getName(), attributes.get(AGONY_REMOTE_IP_KEY));
+
+                return;
+            }
+
+            scrollbackManager.discard(connectionId);
+
             creatureRepository
                 .findByConnectionSessionUsernameAndConnectionSessionId(
-                    (String) attributes.get(AGONY_STOMP_PRINCIPAL_KEY),
+                    principal,
                     (String) attributes.get(AGONY_STOMP_SESSION_KEY))
                 .ifPresent(creature -> creatureRepository.delete(creature));
 
@@ -1,10 +1,22 @@
 package com.agonyengine.forge.controller;
 
-import com.agonyengine.forge.controller.greeting.GreetingLoader;
+import com.agonyengine.forge.config.InputProperties;
+import com.agonyengine.forge.config.LoginConfiguration;
+import com.agonyengine.forge.controller.greeting.GreetingCache;
 import com.agonyengine.forge.controller.interpret.Interpreter;
+import com.agonyengine.forge.controller.mailbox.MailboxExecutor;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
+import com.agonyengine.forge.controller.scrollback.ScrollbackManager;
+import com.agonyengine.forge.controller.throttle.TokenBucket;
 import com.agonyengine.forge.model.Connection;
+import com.agonyengine.forge.model.Creature;
 import com.agonyengine.forge.model.PrimaryConnectionState;
-import com.agonyengine.forge.repository.ConnectionRepository;
+import com.agonyengine.forge.repository.ConnectionCache;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.Message;
@@ -15,12 +27,12 @@ import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
 import javax.inject.Inject;
-import javax.inject.Named;
 import javax.transaction.Transactional;
 import java.security.Principal;
-import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static com.agonyengine.forge.controller.ControllerConstants.*;
 import static org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor.HTTP_SESSION_ID_ATTR_NAME;
@@ -29,65 +41,211 @@ import static org.springframework.web.socket.server.support.HttpSessionHandshake
 public class WebSocketController {
     private static final Logger LOGGER = LoggerFactory.getLogger(WebSocketController.class);
 
-    private List<String> greeting;
-    private ConnectionRepository connectionRepository;
+    private GreetingCache greetingCache;
+    private ConnectionCache connectionCache;
     private Interpreter interpreter;
+    private OutboxManager outboxManager;
+    private OutputEncoder outputEncoder;
+    private MailboxExecutor mailboxExecutor;
+    private ResumeManager resumeManager;
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+    private InputProperties inputProperties;
+    private ScrollbackManager scrollbackManager;
+    private LoginConfiguration loginConfiguration;
+    private Timer subscribeTimer;
+    private Timer inputTimer;
+    private Timer commandTimer;
+    private Counter throttledCounter;
 
     @Inject
     public WebSocketController(
-        @Named("compositeGreetingLoader") GreetingLoader greetingLoader,
-        ConnectionRepository connectionRepository,
-        Interpreter interpreter) {
-
-        greeting = greetingLoader.load();
-        this.connectionRepository = connectionRepository;
+        GreetingCache greetingCache,
+        ConnectionCache connectionCache,
+        Interpreter interpreter,
+        OutboxManager outboxManager,
+        OutputEncoder outputEncoder,
+        MailboxExecutor mailboxExecutor,
+        ResumeManager resumeManager,
+        OnlineCreatureRegistry onlineCreatureRegistry,
+        InputProperties inputProperties,
+        ScrollbackManager scrollbackManager,
+        LoginConfiguration loginConfiguration,
+        MeterRegistry meterRegistry) {
+
+        this.greetingCache = greetingCache;
+        this.connectionCache = connectionCache;
         this.interpreter = interpreter;
+        this.outboxManager = outboxManager;
+        this.outputEncoder = outputEncoder;
+        this.mailboxExecutor = mailboxExecutor;
+        this.resumeManager = resumeManager;
+        this.onlineCreatureRegistry = onlineCreatureRegistry;
+        this.inputProperties = inputProperties;
+        this.scrollbackManager = scrollbackManager;
+        this.loginConfiguration = loginConfiguration;
+
+        subscribeTimer = Timer.builder("agony.subscribe")
+            .description("Time taken to set up a new or resumed connection")
+            .register(meterRegistry);
+
+        inputTimer = Timer.builder("agony.input")
+            .description("Time taken to accept a line of input and hand it to the mailbox")
+            .register(meterRegistry);
+
+        commandTimer = Timer.builder("agony.input.command")
+            .description("Time from a line of input arriving until its output has been sent")
+            .register(meterRegistry);
+
+        throttledCounter = Counter.builder("agony.input.throttled")
+            .description("Lines of input dropped for arriving too fast")
+            .register(meterRegistry);
+
+        Gauge.builder("agony.creatures.online", onlineCreatureRegistry, OnlineCreatureRegistry::size)
+            .description("Creatures currently in the game")
+            .register(meterRegistry);
+
+        Gauge.builder("agony.connections.open", outboxManager, OutboxManager::size)
+            .description("STOMP sessions currently subscribed to their output")
+            .register(meterRegistry);
     }
 
+    /**
+     * Sets up a new connection, or picks up a dropped one, and replies with its first
+     * frame. The reply is already encoded as JSON so that the greeting, which is the same
+     * for everybody, never has to be copied or serialized again.
+     *
+     * @param principal the STOMP user
+     * @param message the SUBSCRIBE message
+     * @return the JSON payload to send back
+     */
     @Transactional
     @SubscribeMapping("/queue/output")
-    public Output onSubscribe(Principal principal, Message <byte[]> message) {
+    public byte[] onSubscribe(Principal principal, Message <byte[]> message) {
+        long start = System.nanoTime();
+
+        try {
+            return subscribe(principal, message);
+        } finally {
+            subscribeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @MessageMapping("/input")
+    @SendToUser(value = "/queue/output", broadcast = false)
+    public Output onInput(Input input, Message<byte[]> message) {
+        long start = System.nanoTime();
+
+        try {
+            return input(input, message, start);
+        } finally {
+            inputTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private byte[] subscribe(Principal principal, Message <byte[]> message) {
         SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.wrap(message);
         Map<String, Object> attributes = headerAccessor.getSessionAttributes();
-        Connection connection = new Connection();
 
         if (attributes != null) {
+            // the HTTP session carries a resume token if this browser dropped out of the game a moment ago
+            Optional<Creature> resumed = resumeManager.resume((String) attributes.get(AGONY_RESUME_TOKEN_KEY));
+            Connection connection = resumed.map(Creature::getConnection).orElseGet(Connection::new);
+
             connection.setSessionUsername(principal.getName());
             connection.setSessionId(headerAccessor.getSessionId());
             connection.setHttpSessionId((String) attributes.get(HTTP_SESSION_ID_ATTR_NAME));
             connection.setRemoteAddress((String) attributes.get(AGONY_REMOTE_IP_KEY));
-            connection.setPrimaryState(PrimaryConnectionState.LOGIN);
+            loginConfiguration.invalidatePrompt(connection.getId());
+
+            if (!resumed.isPresent()) {
+                connection.setPrimaryState(PrimaryConnectionState.LOGIN);
+            }
 
-            Connection saved = connectionRepository.save(connection);
+            Connection saved = connectionCache.save(connection);
+
+            mailboxExecutor.open(saved.getId());
+            scrollbackManager.open(saved.getId());
 
             attributes.put(AGONY_CONNECTION_ID_KEY, saved.getId());
+            attributes.put(AGONY_STOMP_PRINCIPAL_KEY, saved.getSessionUsername());
+            attributes.put(AGONY_STOMP_SESSION_KEY, saved.getSessionId());
+            attributes.put(AGONY_INPUT_BUCKET_KEY, new TokenBucket(
+                inputProperties.getBurst(),
+                inputProperties.getRefillPerSecond(),
+                System.nanoTime()));
+
+            outboxManager.open(saved, WireFormat.fromHeader(headerAccessor.getFirstNativeHeader(WireFormat.HEADER)));
+
+            if (resumed.isPresent()) {
+                attributes.put(AGONY_RESUME_TOKEN_KEY, resumeManager.rotate(saved));
+                onlineCreatureRegistry.register(resumed.get());
+
+                LOGGER.info("Resumed connection for {} from {}", saved.getName(), attributes.get(AGONY_REMOTE_IP_KEY));
+
+                // the client tells us the last line it saw, so it only gets what it missed
+                return outputEncoder.frame(outputEncoder.encode(scrollbackManager
+                    .replay(saved.getId(), parseSequence(headerAccessor.getFirstNativeHeader(ScrollbackManager.SEQUENCE_HEADER)))
+                    .append("[yellow]Reconnected. Welcome back, " + saved.getName() + "!")
+                    .append(interpreter.prompt(saved))));
+            }
 
             LOGGER.info("New connection from {}", attributes.get(AGONY_REMOTE_IP_KEY));
 
-            return new Output(greeting).append(interpreter.prompt(connection));
+            return outputEncoder.frame(greetingCache.get(), outputEncoder.encode(interpreter.prompt(connection)));
         }
 
         LOGGER.error("Unable to get session attributes!");
-        return new Output("[red]Something went wrong! The error has been logged.");
+        return outputEncoder.frame(outputEncoder.encode(new Output("[red]Something went wrong! The error has been logged.")));
     }
 
-    @Transactional
-    @MessageMapping("/input")
-    @SendToUser(value = "/queue/output", broadcast = false)
-    public Output onInput(Input input, Message<byte[]> message) {
+    private Output input(Input input, Message<byte[]> message, long received) {
         SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.wrap(message);
         Map<String, Object> attributes = headerAccessor.getSessionAttributes();
 
         if (attributes != null) {
             UUID connectionId = (UUID) attributes.get(AGONY_CONNECTION_ID_KEY);
-            Connection connection = connectionRepository
-                .findById(connectionId)
-                .orElseThrow(() -> new NullPointerException("Unable to fetch Connection by ID: " + connectionId));
+            TokenBucket bucket = (TokenBucket) attributes.get(AGONY_INPUT_BUCKET_KEY);
+
+            // drop floods before they reach the interpreter, and only say so once per flood
+            if (bucket != null && !bucket.tryConsume(received)) {
+                throttledCounter.increment();
+
+                return bucket.warn() ? new Output("[red]You're typing too fast! Some of your commands were ignored.") : null;
+            }
+
+            // commands for a connection run one at a time, in order, on the mailbox pool
+            boolean isOpen = mailboxExecutor.submitIfOpen(connectionId, () -> {
+                Connection connection = connectionCache
+                    .findById(connectionId)
+                    .orElseThrow(() -> new NullPointerException("Unable to fetch Connection by ID: " + connectionId));
 
-            return interpreter.interpret(input, connection);
+                outboxManager.flush(connection, interpreter.interpret(input, connection));
+
+                // includes the wait in the mailbox, so a busy connection or a starved pool shows up here
+                commandTimer.record(System.nanoTime() - received, TimeUnit.NANOSECONDS);
+            });
+
+            if (!isOpen) {
+                LOGGER.debug("Ignored input for closed connection {}", connectionId);
+            }
+
+            // the output goes out through the outbox, so there is nothing to reply with
+            return null;
         }
 
         LOGGER.error("Unable to get session attributes!");
         return new Output("[red]Something went wrong! The error has been logged.");
     }
+
+    private static long parseSequence(String header) {
+        if (header == null) {
+            return 0;
+        }
+
+        try {
+            return Long.parseLong(header);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
 }
@@ -0,0 +1,38 @@
+package com.agonyengine.forge.controller;
+
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * How Output frames are written for a connection. The client picks one with the
+ * {@link #HEADER} header when it subscribes to its output queue, and every frame
+ * says which one it uses in its content-type.
+ */
+public enum WireFormat {
+    /**
+     * {"output":["line", ...],"secret":false} with color markup like [green] left in the text.
+     */
+    JSON(MimeTypeUtils.APPLICATION_JSON),
+
+    /**
+     * A 1 or 0 for the secret flag, then each line as its length, a colon and the
+     * line itself, with color markup replaced by single character escapes.
+     */
+    COMPACT(new MimeType("text", "x-agony-compact"));
+
+    public static final String HEADER = "agony-format";
+
+    private MimeType mimeType;
+
+    WireFormat(MimeType mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public MimeType getMimeType() {
+        return mimeType;
+    }
+
+    public static WireFormat fromHeader(String value) {
+        return "compact".equalsIgnoreCase(value) ? COMPACT : JSON;
+    }
+}
@@ -0,0 +1,41 @@
+package com.agonyengine.forge.controller.channel;
+
+import java.util.Objects;
+
+/**
+ * A named broadcast channel. Messages published to a channel go to a single broker
+ * topic and the broker fans them out to everyone who has subscribed to it, where
+ * {@link ChannelMembershipInterceptor} moves each copy into that member's outbox.
+ */
+public class Channel {
+    public static final String DESTINATION_PREFIX = "/topic/channel.";
+
+    private final String name;
+    private final String destination;
+
+    public Channel(String name) {
+        this.name = name;
+        this.destination = DESTINATION_PREFIX + name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Channel)) return false;
+        Channel channel = (Channel) o;
+        return Objects.equals(getName(), channel.getName());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getName());
+    }
+}
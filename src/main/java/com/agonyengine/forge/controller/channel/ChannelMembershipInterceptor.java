@@ -0,0 +1,87 @@
+package com.agonyengine.forge.controller.channel;
+
+import com.agonyengine.forge.controller.EncodedOutput;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
+import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import javax.inject.Provider;
+import java.util.Optional;
+
+/**
+ * Sits on the client outbound channel and takes channel messages off it. Anyone can
+ * subscribe to a channel topic, but only players who have logged in should see it, and
+ * never the player who sent it. For everyone else the message goes into their outbox
+ * instead of straight to their session, so it goes out with the next flush along with
+ * everything else and is held back, cut down and remembered for a resume the same way.
+ */
+public class ChannelMembershipInterceptor implements ChannelInterceptor {
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+    private Provider<OutboxManager> outboxManager;
+    private OutputEncoder outputEncoder;
+
+    // the simple broker hands every subscriber the same payload, so it only needs decoding once
+    private volatile Decoded lastDecoded;
+
+    public ChannelMembershipInterceptor(
+        OnlineCreatureRegistry onlineCreatureRegistry,
+        Provider<OutboxManager> outboxManager,
+        OutputEncoder outputEncoder) {
+
+        this.onlineCreatureRegistry = onlineCreatureRegistry;
+        this.outboxManager = outboxManager;
+        this.outputEncoder = outputEncoder;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+
+        if (destination == null || !destination.startsWith(Channel.DESTINATION_PREFIX)) {
+            return message;
+        }
+
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+
+        if (sessionId == null
+            || sessionId.equals(SimpMessageHeaderAccessor.getFirstNativeHeader(ChannelPublisher.SENDER_HEADER, headers))
+            || !(message.getPayload() instanceof byte[])) {
+
+            return null;
+        }
+
+        Optional<Creature> recipient = onlineCreatureRegistry.findBySessionId(sessionId);
+
+        recipient.ifPresent(creature -> outboxManager.get().append(creature.getConnection(), decode((byte[]) message.getPayload())));
+
+        return null;
+    }
+
+    private EncodedOutput decode(byte[] payload) {
+        Decoded decoded = lastDecoded;
+
+        if (decoded == null || decoded.payload != payload) {
+            decoded = new Decoded(payload, outputEncoder.decode(payload));
+            lastDecoded = decoded;
+        }
+
+        return decoded.output;
+    }
+
+    private static final class Decoded {
+        private final byte[] payload;
+        private final EncodedOutput output;
+
+        Decoded(byte[] payload, EncodedOutput output) {
+            this.payload = payload;
+            this.output = output;
+        }
+    }
+}
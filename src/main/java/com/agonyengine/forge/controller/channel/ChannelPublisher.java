@@ -0,0 +1,86 @@
+package com.agonyengine.forge.controller.channel;
+
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.ResumeManager;
+import com.agonyengine.forge.controller.scrollback.ScrollbackManager;
+import com.agonyengine.forge.model.Connection;
+import com.agonyengine.forge.model.Creature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class ChannelPublisher {
+    public static final String SENDER_HEADER = "agonySender";
+
+    private SimpMessagingTemplate simpMessagingTemplate;
+    private OutputEncoder outputEncoder;
+    private ResumeManager resumeManager;
+    private ScrollbackManager scrollbackManager;
+    private Timer publishTimer;
+
+    @Inject
+    public ChannelPublisher(
+        SimpMessagingTemplate simpMessagingTemplate,
+        OutputEncoder outputEncoder,
+        ResumeManager resumeManager,
+        ScrollbackManager scrollbackManager,
+        MeterRegistry meterRegistry) {
+
+        this.simpMessagingTemplate = simpMessagingTemplate;
+        this.outputEncoder = outputEncoder;
+        this.resumeManager = resumeManager;
+        this.scrollbackManager = scrollbackManager;
+
+        publishTimer = Timer.builder("agony.channel.publish")
+            .description("Time taken to encode a channel message and hand it to the broker")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Sends one message to the channel's topic. The sender's STOMP session ID goes
+     * along in a header so that {@link ChannelMembershipInterceptor} can keep the
+     * message from being echoed back to them. Prompts are not included because they
+     * are different for everyone; each member's prompt is added when their outbox is
+     * flushed. Players who have dropped but can still resume have no session for the
+     * broker to deliver to, so the message goes straight into their scrollback.
+     *
+     * @param channel the channel to publish to
+     * @param sender the Creature that sent the message
+     * @param message the message to send
+     */
+    public void publish(Channel channel, Creature sender, Output message) {
+        long start = System.nanoTime();
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
+        Connection connection = sender.getConnection();
+
+        headerAccessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+
+        if (connection != null && connection.getSessionId() != null) {
+            headerAccessor.setNativeHeader(SENDER_HEADER, connection.getSessionId());
+        }
+
+        headerAccessor.setLeaveMutable(true);
+
+        simpMessagingTemplate.send(
+            channel.getDestination(),
+            MessageBuilder.createMessage(
+                outputEncoder.frame(outputEncoder.encode(message)),
+                headerAccessor.getMessageHeaders()));
+
+        if (scrollbackManager.isEnabled() && !message.getSecret()) {
+            resumeManager.stream()
+                .forEach(creature -> scrollbackManager.record(creature.getConnection().getId(), message.getOutput()));
+        }
+
+        publishTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,28 @@
+package com.agonyengine.forge.controller.command;
+
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.model.Creature;
+
+/**
+ * Something a player can type while in the game. Implementations are Spring beans
+ * and are picked up by {@link CommandRegistry} at startup.
+ */
+public interface Command {
+    /**
+     * @return the full name of the command, which players may abbreviate
+     */
+    String getName();
+
+    /**
+     * Decides which command an ambiguous abbreviation means. When several commands
+     * share a prefix, the one with the highest priority wins, and ties go to the
+     * name that sorts first.
+     *
+     * @return the priority of this command
+     */
+    default int getPriority() {
+        return 0;
+    }
+
+    Output execute(Creature actor, CommandLine line);
+}
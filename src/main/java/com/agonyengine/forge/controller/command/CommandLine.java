@@ -0,0 +1,72 @@
+package com.agonyengine.forge.controller.command;
+
+/**
+ * A line of input split into a verb and an argument. Only the offsets are worked
+ * out up front; the strings are cut out when somebody asks for them.
+ */
+public class CommandLine {
+    private final String text;
+    private final int verbStart;
+    private final int verbEnd;
+    private final int argumentStart;
+    private final int argumentEnd;
+
+    public CommandLine(String text) {
+        this.text = text == null ? "" : text;
+
+        int end = this.text.length();
+        int i = 0;
+
+        while (i < end && Character.isWhitespace(this.text.charAt(i))) {
+            i++;
+        }
+
+        verbStart = i;
+
+        while (i < end && !Character.isWhitespace(this.text.charAt(i))) {
+            i++;
+        }
+
+        verbEnd = i;
+
+        while (i < end && Character.isWhitespace(this.text.charAt(i))) {
+            i++;
+        }
+
+        while (end > i && Character.isWhitespace(this.text.charAt(end - 1))) {
+            end--;
+        }
+
+        argumentStart = i;
+        argumentEnd = end;
+    }
+
+    public boolean isEmpty() {
+        return verbStart == verbEnd;
+    }
+
+    public int getVerbLength() {
+        return verbEnd - verbStart;
+    }
+
+    public char verbCharAt(int index) {
+        return text.charAt(verbStart + index);
+    }
+
+    public String getVerb() {
+        return text.substring(verbStart, verbEnd);
+    }
+
+    public boolean hasArgument() {
+        return argumentStart < argumentEnd;
+    }
+
+    public String getArgument() {
+        return text.substring(argumentStart, argumentEnd);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
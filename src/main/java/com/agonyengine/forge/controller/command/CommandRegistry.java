@@ -0,0 +1,43 @@
+package com.agonyengine.forge.controller.command;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * All of the commands players can type in the game, gathered from the Spring
+ * context once at startup.
+ */
+@Component
+public class CommandRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommandRegistry.class);
+
+    private List<Command> commands;
+    private CommandTrie trie;
+
+    @Inject
+    public CommandRegistry(List<Command> commands) {
+        List<Command> sorted = new ArrayList<>(commands);
+
+        sorted.sort(CommandTrie.PRECEDENCE);
+
+        this.commands = Collections.unmodifiableList(sorted);
+        this.trie = new CommandTrie(sorted);
+
+        LOGGER.info("Registered {} commands", sorted.size());
+    }
+
+    public Optional<Command> find(CommandLine line) {
+        return Optional.ofNullable(trie.find(line));
+    }
+
+    public List<Command> getCommands() {
+        return commands;
+    }
+}
@@ -0,0 +1,114 @@
+package com.agonyengine.forge.controller.command;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Maps every prefix of every command name to the command it should run. Each node
+ * remembers the best command beneath it, so resolving an abbreviation is a single
+ * walk down the trie, one node per character, with no backtracking.
+ */
+class CommandTrie {
+    static final Comparator<Command> PRECEDENCE = Comparator
+        .comparingInt(Command::getPriority)
+        .reversed()
+        .thenComparing(Command::getName);
+
+    private Node root = new Node();
+
+    CommandTrie(Iterable<Command> commands) {
+        for (Command command : commands) {
+            add(command);
+        }
+    }
+
+    Command find(CommandLine line) {
+        int length = line.getVerbLength();
+
+        if (length == 0) {
+            return null;
+        }
+
+        Node node = root;
+
+        for (int i = 0; i < length && node != null; i++) {
+            node = node.child(fold(line.verbCharAt(i)));
+        }
+
+        if (node == null) {
+            return null;
+        }
+
+        // typing a whole name always means that command, even if it's a prefix of a better one
+        return node.exact != null ? node.exact : node.best;
+    }
+
+    private void add(Command command) {
+        String name = command.getName();
+        Node node = root;
+
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Command name must not be empty: " + command.getClass().getName());
+        }
+
+        for (int i = 0; i < name.length(); i++) {
+            node = node.childOrCreate(fold(name.charAt(i)));
+
+            if (node.best == null || PRECEDENCE.compare(command, node.best) < 0) {
+                node.best = command;
+            }
+        }
+
+        if (node.exact != null) {
+            throw new IllegalStateException("Two commands are named " + name + ": "
+                + node.exact.getClass().getName() + " and " + command.getClass().getName());
+        }
+
+        node.exact = command;
+    }
+
+    // names and input have to be folded exactly the same way, one char for one char, or they won't meet in the trie
+    private static char fold(char c) {
+        return Character.toLowerCase(c);
+    }
+
+    private static class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private Command exact;
+        private Command best;
+
+        Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+
+            return index < 0 ? null : children[index];
+        }
+
+        Node childOrCreate(char key) {
+            int index = Arrays.binarySearch(keys, key);
+
+            if (index >= 0) {
+                return children[index];
+            }
+
+            // only done while building, so the arrays can be exactly as big as they need to be
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            Node child = new Node();
+
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+
+            newKeys[insert] = key;
+            newChildren[insert] = child;
+
+            keys = newKeys;
+            children = newChildren;
+
+            return child;
+        }
+    }
+}
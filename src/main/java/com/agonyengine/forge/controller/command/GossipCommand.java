@@ -0,0 +1,39 @@
+package com.agonyengine.forge.controller.command;
+
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.channel.Channel;
+import com.agonyengine.forge.controller.channel.ChannelPublisher;
+import com.agonyengine.forge.model.Creature;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+
+@Component
+public class GossipCommand implements Command {
+    static final Channel GOSSIP = new Channel("gossip");
+
+    private ChannelPublisher channelPublisher;
+
+    @Inject
+    public GossipCommand(ChannelPublisher channelPublisher) {
+        this.channelPublisher = channelPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return "gossip";
+    }
+
+    @Override
+    public Output execute(Creature actor, CommandLine line) {
+        if (!line.hasArgument()) {
+            return new Output("[default]What would you like to gossip?");
+        }
+
+        String message = line.getArgument();
+
+        channelPublisher.publish(GOSSIP, actor, new Output("[green]" + actor.getName() + " gossips '" + message + "[green]'"));
+
+        return new Output("[green]You gossip '" + message + "[green]'");
+    }
+}
@@ -0,0 +1,37 @@
+package com.agonyengine.forge.controller.command;
+
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.Comparator;
+
+@Component
+public class WhoCommand implements Command {
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+
+    @Inject
+    public WhoCommand(OnlineCreatureRegistry onlineCreatureRegistry) {
+        this.onlineCreatureRegistry = onlineCreatureRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return "who";
+    }
+
+    @Override
+    public Output execute(Creature actor, CommandLine line) {
+        Output output = new Output("[default]Players online:");
+
+        onlineCreatureRegistry
+            .stream()
+            .map(Creature::getName)
+            .sorted(Comparator.nullsLast(Comparator.naturalOrder()))
+            .forEach(name -> output.append("[default]  " + name));
+
+        return output;
+    }
+}
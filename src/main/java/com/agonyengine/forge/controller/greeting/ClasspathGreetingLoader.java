@@ -5,8 +5,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Component
@@ -17,9 +19,13 @@ public class ClasspathGreetingLoader extends GreetingLoader {
     @Override
     public List<String> load() {
         InputStream is = GreetingLoader.class.getResourceAsStream(GREETING_FILENAME);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-        LOGGER.info("Loaded embedded greeting: {}", GREETING_FILENAME);
 
-        return parse(reader);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
+            LOGGER.info("Loaded embedded greeting: {}", GREETING_FILENAME);
+
+            return parse(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read embedded greeting: " + GREETING_FILENAME, e);
+        }
     }
 }
@@ -9,6 +9,8 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 
@@ -27,19 +29,29 @@ public class FileGreetingLoader extends GreetingLoader {
         this.testFilename = filename;
     }
 
+    public Path getPath() {
+        return getFile().toPath();
+    }
+
     @Override
     public List<String> load() {
-        File external = new File(testFilename != null ? testFilename : GREETING_EXTERNAL);
+        File external = getFile();
 
-        try {
-            BufferedReader reader = IOUtils.buffer(new FileReader(external));
+        // this gets called again whenever the file changes, so the reader has to be closed
+        try (BufferedReader reader = IOUtils.buffer(new FileReader(external))) {
             LOGGER.info("Loaded external greeting: {}", external.getAbsolutePath());
 
             return parse(reader);
         } catch (FileNotFoundException e) {
             LOGGER.warn("Unable to read external greeting: {}", GREETING_EXTERNAL);
+        } catch (IOException e) {
+            LOGGER.warn("Error reading external greeting: {}", external.getAbsolutePath(), e);
         }
 
         return Collections.emptyList();
     }
+
+    private File getFile() {
+        return new File(testFilename != null ? testFilename : GREETING_EXTERNAL);
+    }
 }
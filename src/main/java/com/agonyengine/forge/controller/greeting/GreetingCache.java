@@ -0,0 +1,137 @@
+package com.agonyengine.forge.controller.greeting;
+
+import com.agonyengine.forge.controller.EncodedOutput;
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Holds the greeting already encoded, so that every new connection shares the same
+ * bytes. The external greeting file is watched, and when it changes the greeting is
+ * loaded and encoded again and swapped in all at once. If the greeting can't be
+ * loaded at startup there is nothing to fall back on, so startup fails.
+ */
+@Component
+public class GreetingCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GreetingCache.class);
+
+    private GreetingLoader greetingLoader;
+    private OutputEncoder outputEncoder;
+    private Path external;
+    private volatile EncodedOutput greeting;
+    private WatchService watchService;
+
+    @Inject
+    public GreetingCache(
+        @Named("compositeGreetingLoader") GreetingLoader greetingLoader,
+        FileGreetingLoader fileGreetingLoader,
+        OutputEncoder outputEncoder) {
+
+        this.greetingLoader = greetingLoader;
+        this.outputEncoder = outputEncoder;
+        this.external = fileGreetingLoader.getPath().toAbsolutePath().normalize();
+        this.greeting = load();
+    }
+
+    public EncodedOutput get() {
+        return greeting;
+    }
+
+    public void reload() {
+        try {
+            greeting = load();
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to reload greeting, keeping the old one", e);
+        }
+    }
+
+    private EncodedOutput load() {
+        return outputEncoder.encode(new Output(greetingLoader.load()));
+    }
+
+    @PostConstruct
+    public void start() {
+        Path directory = external.getParent();
+
+        if (directory == null || !Files.isDirectory(directory)) {
+            LOGGER.info("Not watching for greeting changes because {} does not exist", directory);
+            return;
+        }
+
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to watch {} for greeting changes", directory, e);
+            return;
+        }
+
+        Thread thread = new Thread(this::watch, "greeting-watcher");
+
+        thread.setDaemon(true);
+        thread.start();
+
+        LOGGER.info("Watching {} for greeting changes", external);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOGGER.warn("Unable to close greeting watcher", e);
+            }
+        }
+    }
+
+    private void watch() {
+        while (true) {
+            WatchKey key;
+
+            try {
+                key = watchService.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+
+            boolean isChanged = false;
+
+            // editors often save by writing a new file and renaming it, so creates and deletes count too
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW || external.getFileName().equals(event.context())) {
+                    isChanged = true;
+                }
+            }
+
+            if (isChanged) {
+                LOGGER.info("Greeting file changed, reloading");
+                reload();
+            }
+
+            if (!key.reset()) {
+                LOGGER.warn("Stopped watching for greeting changes");
+                return;
+            }
+        }
+    }
+}
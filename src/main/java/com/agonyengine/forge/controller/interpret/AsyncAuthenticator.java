@@ -0,0 +1,94 @@
+package com.agonyengine.forge.controller.interpret;
+
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.mailbox.MailboxExecutor;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
+import com.agonyengine.forge.model.Connection;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Runs slow authentication work, like password hashing, on its own bounded pool so
+ * that it can't hold up the threads that run everyone else's commands. When the work
+ * is done, the rest of the login runs on the connection's mailbox and its output is
+ * sent through the connection's outbox.
+ */
+@Component
+public class AsyncAuthenticator {
+    private Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private Executor authTaskExecutor;
+    private MailboxExecutor mailboxExecutor;
+    private OutboxManager outboxManager;
+
+    @Inject
+    public AsyncAuthenticator(
+        @Named("authTaskExecutor") Executor authTaskExecutor,
+        MailboxExecutor mailboxExecutor,
+        OutboxManager outboxManager) {
+
+        this.authTaskExecutor = authTaskExecutor;
+        this.mailboxExecutor = mailboxExecutor;
+        this.outboxManager = outboxManager;
+    }
+
+    public boolean isPending(Connection connection) {
+        return pending.contains(connection.getId());
+    }
+
+    /**
+     * Runs some work on the auth pool and then hands the result, or the exception it
+     * threw, to a continuation on the connection's mailbox.
+     *
+     * @param connection the connection that is logging in
+     * @param work the slow part
+     * @param continuation gets the result or the exception, and returns the output to send
+     * @param <T> the type of the result
+     * @throws RejectedExecutionException if the auth pool's queue is full
+     */
+    public <T> void submit(Connection connection, Supplier<T> work, BiFunction<T, RuntimeException, Output> continuation) {
+        UUID connectionId = connection.getId();
+
+        pending.add(connectionId);
+
+        try {
+            authTaskExecutor.execute(() -> {
+                T result = null;
+                RuntimeException exception = null;
+
+                try {
+                    result = work.get();
+                } catch (RuntimeException e) {
+                    exception = e;
+                }
+
+                T finalResult = result;
+                RuntimeException finalException = exception;
+
+                boolean isOpen = mailboxExecutor.submitIfOpen(connectionId, () -> {
+                    try {
+                        outboxManager.flush(connection, continuation.apply(finalResult, finalException));
+                    } finally {
+                        pending.remove(connectionId);
+                    }
+                });
+
+                // the connection went away while we were working, so there's nobody to tell
+                if (!isOpen) {
+                    pending.remove(connectionId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(connectionId);
+            throw e;
+        }
+    }
+}
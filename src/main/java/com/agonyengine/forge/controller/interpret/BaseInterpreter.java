@@ -1,18 +1,26 @@
 package com.agonyengine.forge.controller.interpret;
 
+import com.agonyengine.forge.controller.EncodedOutput;
 import com.agonyengine.forge.controller.Input;
 import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
+import com.agonyengine.forge.loop.PulseListener;
 import com.agonyengine.forge.model.Connection;
 import com.agonyengine.forge.model.Creature;
-import com.agonyengine.forge.repository.CreatureRepository;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
-public abstract class BaseInterpreter implements Interpreter {
-    private CreatureRepository creatureRepository;
-    private SimpMessagingTemplate simpMessagingTemplate;
+public abstract class BaseInterpreter implements Interpreter, PulseListener {
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+    private OutboxManager outboxManager;
+    private OutputEncoder outputEncoder;
+    private Timer flushTimer;
 
     @Override
     public abstract Output interpret(Input input, Connection connection);
@@ -20,9 +28,19 @@ public abstract class BaseInterpreter implements Interpreter {
     @Override
     public abstract Output prompt(Connection connection);
 
-    public BaseInterpreter(CreatureRepository creatureRepository, SimpMessagingTemplate simpMessagingTemplate) {
-        this.creatureRepository = creatureRepository;
-        this.simpMessagingTemplate = simpMessagingTemplate;
+    public BaseInterpreter(
+        OnlineCreatureRegistry onlineCreatureRegistry,
+        OutboxManager outboxManager,
+        OutputEncoder outputEncoder,
+        MeterRegistry meterRegistry) {
+
+        this.onlineCreatureRegistry = onlineCreatureRegistry;
+        this.outboxManager = outboxManager;
+        this.outputEncoder = outputEncoder;
+
+        flushTimer = Timer.builder("agony.outbox.flush")
+            .description("Time taken to send every waiting outbox on a pulse")
+            .register(meterRegistry);
     }
 
     public void echo(Creature target, Output message) {
@@ -30,23 +48,29 @@ public abstract class BaseInterpreter implements Interpreter {
             return;
         }
 
-        message.append(prompt(target.getConnection()));
-
-        simpMessagingTemplate.convertAndSendToUser(
-            target.getConnection().getSessionUsername(),
-            "/queue/output",
-            message);
+        outboxManager.append(target.getConnection(), outputEncoder.encode(message));
     }
 
     public void echoToWorld(Output message, Creature ... exclude) {
         List<Creature> excludeList = Arrays.asList(exclude);
+        EncodedOutput encodedMessage = outputEncoder.encode(message);
+        Iterator<Creature> targets = onlineCreatureRegistry.stream().iterator();
+
+        while (targets.hasNext()) {
+            Creature target = targets.next();
+
+            if (!excludeList.contains(target)) {
+                outboxManager.append(target.getConnection(), encodedMessage);
+            }
+        }
+    }
+
+    @Override
+    public void onPulse(long pulse) {
+        flushOutboxes();
+    }
 
-        creatureRepository.findByConnectionIsNotNull()
-            .filter(target -> target.getConnection().getSessionUsername() != null)
-            .filter(target -> !excludeList.contains(target))
-            .forEach(target -> simpMessagingTemplate.convertAndSendToUser(
-                target.getConnection().getSessionUsername(),
-                "/queue/output",
-                new Output(message, prompt(target.getConnection()))));
+    public void flushOutboxes() {
+        flushTimer.record(() -> outboxManager.flushAll(this::prompt));
     }
 }
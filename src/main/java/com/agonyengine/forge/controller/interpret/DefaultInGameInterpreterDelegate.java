@@ -3,35 +3,50 @@ package com.agonyengine.forge.controller.interpret;
 import com.agonyengine.forge.config.LoginConfiguration;
 import com.agonyengine.forge.controller.Input;
 import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.command.Command;
+import com.agonyengine.forge.controller.command.CommandLine;
+import com.agonyengine.forge.controller.command.CommandRegistry;
 import com.agonyengine.forge.model.Connection;
 import com.agonyengine.forge.model.Creature;
-import com.agonyengine.forge.repository.CreatureRepository;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+
+import java.util.Optional;
 
 public class DefaultInGameInterpreterDelegate extends BaseInterpreterDelegate implements InGameInterpreterDelegate {
-    private CreatureRepository creatureRepository;
+    private OnlineCreatureRegistry onlineCreatureRegistry;
     private LoginConfiguration loginConfiguration; // TODO need to break this configuration apart
+    private CommandRegistry commandRegistry;
 
     public DefaultInGameInterpreterDelegate(
-        CreatureRepository creatureRepository,
-        LoginConfiguration loginConfiguration) {
+        OnlineCreatureRegistry onlineCreatureRegistry,
+        LoginConfiguration loginConfiguration,
+        CommandRegistry commandRegistry) {
 
-        this.creatureRepository = creatureRepository;
+        this.onlineCreatureRegistry = onlineCreatureRegistry;
         this.loginConfiguration = loginConfiguration;
+        this.commandRegistry = commandRegistry;
     }
 
     @Override
     public Output interpret(Interpreter primary, Input input, Connection connection) {
-        Output output = new Output();
-        Creature creature = creatureRepository
-            .findByConnection(connection)
+        Creature creature = onlineCreatureRegistry
+            .findBySessionUsername(connection.getSessionUsername())
             .orElseThrow(() -> new NullPointerException("Unable to find Creature for Connection " + connection.getId()));
+        CommandLine line = new CommandLine(input.toString());
 
-        output
-            .append("[green]You gossip '" + input.toString() + "[green]'")
-            .append(primary.prompt(connection));
-        primary.echoToWorld(new Output("[green]" + connection.getName() + " gossips '" + input.toString() + "[green]'"), creature);
+        if (line.isEmpty()) {
+            return primary.prompt(connection);
+        }
+
+        Optional<Command> command = commandRegistry.find(line);
 
-        return output;
+        if (!command.isPresent()) {
+            return new Output("[default]Huh?").append(primary.prompt(connection));
+        }
+
+        return command.get()
+            .execute(creature, line)
+            .append(primary.prompt(connection));
     }
 
     @Override
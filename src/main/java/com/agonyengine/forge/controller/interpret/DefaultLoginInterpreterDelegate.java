@@ -3,11 +3,15 @@ package com.agonyengine.forge.controller.interpret;
 import com.agonyengine.forge.config.LoginConfiguration;
 import com.agonyengine.forge.controller.Input;
 import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.ResumeManager;
 import com.agonyengine.forge.model.Connection;
 import com.agonyengine.forge.model.DefaultLoginConnectionState;
 import com.agonyengine.forge.model.Creature;
-import com.agonyengine.forge.repository.ConnectionRepository;
+import com.agonyengine.forge.repository.ConnectionCache;
 import com.agonyengine.forge.repository.CreatureRepository;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -23,10 +27,18 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.UserDetailsManager;
 import org.springframework.session.Session;
 import org.springframework.session.SessionRepository;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.transaction.Transactional;
 import java.util.Collections;
-
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static com.agonyengine.forge.controller.ControllerConstants.AGONY_RESUME_TOKEN_KEY;
 import static com.agonyengine.forge.model.DefaultLoginConnectionState.*;
 import static com.agonyengine.forge.model.PrimaryConnectionState.IN_GAME;
 import static org.springframework.security.web.context.HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY;
@@ -39,31 +51,75 @@ public class DefaultLoginInterpreterDelegate extends BaseInterpreterDelegate imp
     private AuthenticationManager authenticationManager;
     private PasswordEncoder passwordEncoder;
     private SessionRepository sessionRepository;
-    private ConnectionRepository connectionRepository;
+    private ConnectionCache connectionCache;
     private CreatureRepository creatureRepository;
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+    private AsyncAuthenticator asyncAuthenticator;
+    private TransactionTemplate transactionTemplate;
+    private ResumeManager resumeManager;
+    private MeterRegistry meterRegistry;
+    private Map<DefaultLoginConnectionState, Timer> stateTimers = new EnumMap<>(DefaultLoginConnectionState.class);
+    private Map<DefaultLoginConnectionState, Timer> authenticateTimers = new EnumMap<>(DefaultLoginConnectionState.class);
 
     public DefaultLoginInterpreterDelegate(
         LoginConfiguration loginConfiguration,
         UserDetailsManager userDetailsManager,
         AuthenticationManager authenticationManager,
         SessionRepository sessionRepository,
-        ConnectionRepository connectionRepository,
-        CreatureRepository creatureRepository) {
+        ConnectionCache connectionCache,
+        CreatureRepository creatureRepository,
+        OnlineCreatureRegistry onlineCreatureRegistry,
+        AsyncAuthenticator asyncAuthenticator,
+        TransactionTemplate transactionTemplate,
+        ResumeManager resumeManager,
+        MeterRegistry meterRegistry) {
 
         this.loginConfiguration = loginConfiguration;
         this.userDetailsManager = userDetailsManager;
         this.authenticationManager = authenticationManager;
         this.passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
         this.sessionRepository = sessionRepository;
-        this.connectionRepository = connectionRepository;
+        this.connectionCache = connectionCache;
         this.creatureRepository = creatureRepository;
+        this.onlineCreatureRegistry = onlineCreatureRegistry;
+        this.asyncAuthenticator = asyncAuthenticator;
+        this.transactionTemplate = transactionTemplate;
+        this.resumeManager = resumeManager;
+        this.meterRegistry = meterRegistry;
+
+        for (DefaultLoginConnectionState state : DefaultLoginConnectionState.values()) {
+            stateTimers.put(state, Timer.builder("agony.login.state")
+                .description("Time taken to handle one line of input at the login screen")
+                .tag("state", state.name())
+                .register(meterRegistry));
+
+            authenticateTimers.put(state, Timer.builder("agony.login.authenticate")
+                .description("Time spent hashing and checking passwords on the auth pool")
+                .tag("state", state.name())
+                .register(meterRegistry));
+        }
     }
 
     @Transactional
     @Override
     public Output interpret(Interpreter primary, Input input, Connection connection) {
-        Output output = new Output();
         DefaultLoginConnectionState secondaryState = DefaultLoginConnectionState.valueOf(connection.getSecondaryState());
+        long start = System.nanoTime();
+
+        try {
+            return interpret(primary, input, connection, secondaryState);
+        } finally {
+            stateTimers.get(secondaryState).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Output interpret(Interpreter primary, Input input, Connection connection, DefaultLoginConnectionState secondaryState) {
+        Output output = new Output();
+
+        // a password is still being checked, so ignore anything typed until the answer comes back
+        if (asyncAuthenticator.isPending(connection)) {
+            return output;
+        }
 
         switch (secondaryState) {
             case DEFAULT:
@@ -75,33 +131,25 @@ public class DefaultLoginInterpreterDelegate extends BaseInterpreterDelegate imp
                 break;
             case LOGIN_ASK_NAME:
                 try {
-                    connection.setName(validateName(input.toString()));
+                    setName(connection, validateName(input.toString()));
                     connection.setSecondaryState(LOGIN_ASK_PASSWORD.name());
                 } catch (InvalidInputException e) {
                     output.append("[red]" + e.getMessage());
                 }
                 break;
             case LOGIN_ASK_PASSWORD:
-                try {
-                    logUserIn(connection.getName(), input.toString(), connection);
-                    buildCreature(connection.getName(), connection);
-
-                    output.append("[yellow]Welcome back, " + connection.getName() + "!");
-
-                    LOGGER.info("Successful login for {} from {}", connection.getName(), connection.getRemoteAddress());
-                } catch (BadCredentialsException e) {
-                    output.append("[red]Sorry! Please try again!");
-                    LOGGER.warn("Bad password attempt for {} from {}", connection.getName(), connection.getRemoteAddress());
-                    connection.setSecondaryState(DEFAULT.name());
-                }
-                break;
+                return authenticateAsync(
+                    primary,
+                    connection,
+                    () -> authenticate(connection.getName(), input.toString()),
+                    (authentication, e) -> finishLogin(primary, connection, authentication, e));
             case CREATE_CHOOSE_NAME:
                 try {
-                    connection.setName(validateName(input.toString()));
+                    setName(connection, validateName(input.toString()));
 
                     if (userDetailsManager.userExists(connection.getName())) {
                         output.append("[red]That name is already in use. Please try another!");
-                        connection.setName(null);
+                        setName(connection, null);
                     } else {
                         connection.setSecondaryState(CREATE_CONFIRM_NAME.name());
                     }
@@ -118,41 +166,41 @@ public class DefaultLoginInterpreterDelegate extends BaseInterpreterDelegate imp
                 break;
             case CREATE_CHOOSE_PASSWORD:
                 try {
-                    User user = new User(
-                        connection.getName(),
-                        passwordEncoder.encode(validatePassword(input.toString())),
-                        true,
-                        true,
-                        true,
-                        true,
-                        Collections.singletonList(new SimpleGrantedAuthority("PLAYER")));
-
-                    userDetailsManager.createUser(user);
-
-                    logUserIn(connection.getName(), validatePassword(input.toString()), connection);
-                    connection.setSecondaryState(CREATE_CONFIRM_PASSWORD.name());
+                    String password = validatePassword(input.toString());
+
+                    return authenticateAsync(
+                        primary,
+                        connection,
+                        () -> {
+                            User user = new User(
+                                connection.getName(),
+                                passwordEncoder.encode(password),
+                                true,
+                                true,
+                                true,
+                                true,
+                                Collections.singletonList(new SimpleGrantedAuthority("PLAYER")));
+
+                            userDetailsManager.createUser(user);
+
+                            return authenticate(connection.getName(), password);
+                        },
+                        (authentication, e) -> finishCreatePassword(primary, connection, authentication, e));
                 } catch (InvalidInputException e) {
                     output.append("[red]" + e.getMessage());
-                } catch (BadCredentialsException e) {
-                    output.append("[red]Oops! Something bad happened. The error has been logged.");
-                    LOGGER.error("Unable to log in newly created player!", e);
                 }
-
                 break;
             case CREATE_CONFIRM_PASSWORD:
                 try {
-                    logUserIn(connection.getName(), validatePassword(input.toString()), connection);
-                    buildCreature(connection.getName(), connection);
+                    String password = validatePassword(input.toString());
 
-                    output.append("[yellow]Welcome, " + connection.getName() + "!");
-
-                    LOGGER.info("New player {} from {}", connection.getName(), connection.getRemoteAddress());
+                    return authenticateAsync(
+                        primary,
+                        connection,
+                        () -> authenticate(connection.getName(), password),
+                        (authentication, e) -> finishConfirmPassword(primary, connection, authentication, e));
                 } catch (InvalidInputException e) {
                     output.append("[red]" + e.getMessage());
-                } catch (BadCredentialsException e) {
-                    output.append("[red]Passwords do not match. Please try again!");
-                    userDetailsManager.deleteUser(connection.getName());
-                    connection.setSecondaryState(CREATE_CHOOSE_PASSWORD.name());
                 }
                 break;
             default:
@@ -160,7 +208,10 @@ public class DefaultLoginInterpreterDelegate extends BaseInterpreterDelegate imp
                 LOGGER.error("Reached default state in interpret()!");
         }
 
-        return output.append(primary.prompt(connectionRepository.save(connection)));
+        // the password states move on from their continuations instead, once the auth pool is done
+        countTransition(secondaryState, connection);
+
+        return output.append(primary.prompt(connectionCache.save(connection)));
     }
 
     @Transactional
@@ -186,7 +237,13 @@ public class DefaultLoginInterpreterDelegate extends BaseInterpreterDelegate imp
         }
     }
 
-    private String validateName(String in) throws InvalidInputException {
+    // the name shows up in prompts, so the one cached for this connection is out of date now
+    private void setName(Connection connection, String name) {
+        connection.setName(name);
+        loginConfiguration.invalidatePrompt(connection.getId());
+    }
+
+    static String validateName(String in) throws InvalidInputException {
         if (in.matches(".*\\s.*")) {
             throw new InvalidInputException("Names may not contain whitespace.");
         }
@@ -214,7 +271,7 @@ public class DefaultLoginInterpreterDelegate extends BaseInterpreterDelegate imp
         return in;
     }
 
-    private String validatePassword(String in) throws InvalidInputException {
+    static String validatePassword(String in) throws InvalidInputException {
         if (in.length() < 8) {
             throw new InvalidInputException("Passwords must be at least 8 characters.");
         }
@@ -222,28 +279,151 @@ public class DefaultLoginInterpreterDelegate extends BaseInterpreterDelegate imp
         return in;
     }
 
+    /**
+     * Hands the slow part of a login to the auth pool. Nothing is sent until it's done,
+     * and then the continuation runs on the connection's mailbox inside a transaction
+     * and its output goes out through the outbox.
+     */
+    private Output authenticateAsync(
+        Interpreter primary,
+        Connection connection,
+        Supplier<Authentication> work,
+        BiFunction<Authentication, RuntimeException, Output> continuation) {
+
+        DefaultLoginConnectionState secondaryState = DefaultLoginConnectionState.valueOf(connection.getSecondaryState());
+        Timer authenticateTimer = authenticateTimers.get(secondaryState);
+        Supplier<Authentication> timedWork = () -> authenticateTimer.record(work);
+
+        try {
+            asyncAuthenticator.submit(
+                connection,
+                timedWork,
+                (authentication, e) -> {
+                    try {
+                        return transactionTemplate.execute(status -> continuation.apply(authentication, e));
+                    } finally {
+                        countTransition(secondaryState, connection);
+                    }
+                });
+
+            return new Output();
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Authentication pool is full, turning away {} from {}", connection.getName(), connection.getRemoteAddress());
+
+            return new Output("[red]The server is very busy right now. Please try again in a moment.")
+                .append(primary.prompt(connection));
+        }
+    }
+
+    private Output finishLogin(Interpreter primary, Connection connection, Authentication authentication, RuntimeException exception) {
+        Output output = new Output();
+        Connection current = connection;
+
+        if (exception == null) {
+            current = buildCreature(connection.getName(), connection);
+            storeSession(connection, authentication, resumeManager.issue(current));
+
+            output.append("[yellow]Welcome back, " + connection.getName() + "!");
+
+            LOGGER.info("Successful login for {} from {}", connection.getName(), connection.getRemoteAddress());
+        } else if (exception instanceof BadCredentialsException) {
+            output.append("[red]Sorry! Please try again!");
+            LOGGER.warn("Bad password attempt for {} from {}", connection.getName(), connection.getRemoteAddress());
+            connection.setSecondaryState(DEFAULT.name());
+        } else {
+            throw exception;
+        }
+
+        return output.append(primary.prompt(connectionCache.save(current)));
+    }
+
+    private Output finishCreatePassword(Interpreter primary, Connection connection, Authentication authentication, RuntimeException exception) {
+        Output output = new Output();
+
+        if (exception == null) {
+            storeSession(connection, authentication, null);
+            connection.setSecondaryState(CREATE_CONFIRM_PASSWORD.name());
+        } else if (exception instanceof BadCredentialsException) {
+            output.append("[red]Oops! Something bad happened. The error has been logged.");
+            LOGGER.error("Unable to log in newly created player!", exception);
+        } else {
+            throw exception;
+        }
+
+        return output.append(primary.prompt(connectionCache.save(connection)));
+    }
+
+    private Output finishConfirmPassword(Interpreter primary, Connection connection, Authentication authentication, RuntimeException exception) {
+        Output output = new Output();
+        Connection current = connection;
+
+        if (exception == null) {
+            current = buildCreature(connection.getName(), connection);
+            storeSession(connection, authentication, resumeManager.issue(current));
+
+            output.append("[yellow]Welcome, " + connection.getName() + "!");
+
+            LOGGER.info("New player {} from {}", connection.getName(), connection.getRemoteAddress());
+        } else if (exception instanceof BadCredentialsException) {
+            output.append("[red]Passwords do not match. Please try again!");
+            userDetailsManager.deleteUser(connection.getName());
+            connection.setSecondaryState(CREATE_CHOOSE_PASSWORD.name());
+        } else {
+            throw exception;
+        }
+
+        return output.append(primary.prompt(connectionCache.save(current)));
+    }
+
+    /**
+     * Counts the move from one login state to the next. Finishing the login leaves the
+     * secondary state empty, so that move is counted as going to the primary state.
+     */
+    private void countTransition(DefaultLoginConnectionState from, Connection connection) {
+        String to = connection.getSecondaryState() == null
+            ? String.valueOf(connection.getPrimaryState())
+            : connection.getSecondaryState();
+
+        if (!from.name().equals(to)) {
+            meterRegistry.counter("agony.login.transition", "from", from.name(), "to", to).increment();
+        }
+    }
+
+    private Authentication authenticate(String name, String password) {
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(name, password));
+    }
+
     @SuppressWarnings("unchecked")
-    private void logUserIn(String name, String password, Connection connection) {
-        UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(name, password);
-        Authentication authentication = authenticationManager.authenticate(token);
-        SecurityContext securityContext = SecurityContextHolder.getContext();
+    private void storeSession(Connection connection, Authentication authentication, String resumeToken) {
+        // a fresh context, because the thread's own context belongs to whichever connection used the thread last
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
         Session session = sessionRepository.findById(connection.getHttpSessionId());
 
         securityContext.setAuthentication(authentication);
         session.setAttribute(SPRING_SECURITY_CONTEXT_KEY, securityContext);
 
+        if (resumeToken != null) {
+            session.setAttribute(AGONY_RESUME_TOKEN_KEY, resumeToken);
+        }
+
         sessionRepository.save(session);
     }
 
-    private void buildCreature(String name, Connection connection) {
+    private Connection buildCreature(String name, Connection connection) {
         Creature creature = new Creature();
 
+        connection.setPrimaryState(IN_GAME);
+        connection.setSecondaryState(null);
+
+        // the cached Connection is detached, so it has to be written and attached before the Creature can cascade to it
+        Connection attached = connectionCache.saveAndFlush(connection);
+
         creature.setName(name);
-        creature.setConnection(connection);
+        creature.setConnection(attached);
 
         creatureRepository.save(creature);
+        onlineCreatureRegistry.register(creature);
 
-        connection.setPrimaryState(IN_GAME);
-        connection.setSecondaryState(null);
+        return attached;
     }
 }
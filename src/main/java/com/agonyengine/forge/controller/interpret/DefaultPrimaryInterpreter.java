@@ -2,15 +2,21 @@ package com.agonyengine.forge.controller.interpret;
 
 import com.agonyengine.forge.controller.Input;
 import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
 import com.agonyengine.forge.model.Connection;
 import com.agonyengine.forge.model.PrimaryConnectionState;
-import com.agonyengine.forge.repository.CreatureRepository;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class DefaultPrimaryInterpreter extends BaseInterpreter {
@@ -18,24 +24,44 @@ public class DefaultPrimaryInterpreter extends BaseInterpreter {
 
     private LoginInterpreterDelegate loginInterpreter;
     private InGameInterpreterDelegate inGameInterpreter;
+    private Map<PrimaryConnectionState, Timer> interpretTimers = new EnumMap<>(PrimaryConnectionState.class);
 
     @Inject
     public DefaultPrimaryInterpreter(
-        CreatureRepository creatureRepository,
-        SimpMessagingTemplate simpMessagingTemplate,
+        OnlineCreatureRegistry onlineCreatureRegistry,
+        OutboxManager outboxManager,
+        OutputEncoder outputEncoder,
         LoginInterpreterDelegate loginInterpreterDelegate,
-        InGameInterpreterDelegate inGameInterpreterDelegate) {
+        InGameInterpreterDelegate inGameInterpreterDelegate,
+        MeterRegistry meterRegistry) {
 
-        super(creatureRepository, simpMessagingTemplate);
+        super(onlineCreatureRegistry, outboxManager, outputEncoder, meterRegistry);
 
         this.loginInterpreter = loginInterpreterDelegate;
         this.inGameInterpreter = inGameInterpreterDelegate;
+
+        for (PrimaryConnectionState state : PrimaryConnectionState.values()) {
+            interpretTimers.put(state, Timer.builder("agony.interpret")
+                .description("Time taken to interpret one line of input")
+                .tag("state", state.name())
+                .register(meterRegistry));
+        }
     }
 
     @Override
     public Output interpret(Input input, Connection connection) {
         PrimaryConnectionState primaryState = connection.getPrimaryState();
+        long start = System.nanoTime();
+
+        try {
+            return interpret(primaryState, input, connection);
+        } finally {
+            // tagged with the state the input arrived in, even if it moved the connection on
+            interpretTimers.get(primaryState).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
+    private Output interpret(PrimaryConnectionState primaryState, Input input, Connection connection) {
         switch (primaryState) {
             case LOGIN: return loginInterpreter.interpret(this, input, connection);
             case IN_GAME: return inGameInterpreter.interpret(this, input, connection);
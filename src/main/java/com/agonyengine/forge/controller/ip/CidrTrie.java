@@ -0,0 +1,91 @@
+package com.agonyengine.forge.controller.ip;
+
+/**
+ * A binary trie of CIDR blocks. Looking up an address walks at most one node
+ * per bit, no matter how many blocks have been added.
+ */
+public class CidrTrie {
+    private Node ipv4 = new Node();
+    private Node ipv6 = new Node();
+
+    /**
+     * Adds a block such as "10.0.0.0/8" or "fc00::/7". A bare address is treated
+     * as a block containing only that address.
+     *
+     * @param cidr the block to add
+     */
+    public void add(String cidr) {
+        int slash = cidr.indexOf('/');
+        byte[] address = InetAddressParser.parse(cidr, 0, slash < 0 ? cidr.length() : slash);
+
+        if (address == null) {
+            throw new IllegalArgumentException("Invalid CIDR block: " + cidr);
+        }
+
+        int prefixLength = address.length * 8;
+
+        if (slash >= 0) {
+            try {
+                prefixLength = Integer.parseInt(cidr.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid CIDR block: " + cidr, e);
+            }
+
+            if (prefixLength < 0 || prefixLength > address.length * 8) {
+                throw new IllegalArgumentException("Invalid CIDR block: " + cidr);
+            }
+        }
+
+        Node node = root(address);
+
+        for (int bit = 0; bit < prefixLength && !node.terminal; bit++) {
+            int branch = bitAt(address, bit);
+
+            if (node.children[branch] == null) {
+                node.children[branch] = new Node();
+            }
+
+            node = node.children[branch];
+        }
+
+        // anything below here is covered by this block now
+        node.terminal = true;
+        node.children[0] = null;
+        node.children[1] = null;
+    }
+
+    public boolean contains(byte[] address) {
+        if (address == null || (address.length != 4 && address.length != 16)) {
+            return false;
+        }
+
+        Node node = root(address);
+
+        for (int bit = 0; node != null; bit++) {
+            if (node.terminal) {
+                return true;
+            }
+
+            if (bit == address.length * 8) {
+                return false;
+            }
+
+            node = node.children[bitAt(address, bit)];
+        }
+
+        return false;
+    }
+
+    private Node root(byte[] address) {
+        return address.length == 4 ? ipv4 : ipv6;
+    }
+
+    private static int bitAt(byte[] address, int bit) {
+        return (address[bit >> 3] >> (7 - (bit & 7))) & 1;
+    }
+
+    private static class Node {
+        private Node[] children = new Node[2];
+        private boolean terminal;
+    }
+}
@@ -0,0 +1,132 @@
+package com.agonyengine.forge.controller.ip;
+
+import com.agonyengine.forge.config.ConnectionLimitProperties;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts open connections per IP address and per subnet so that one host, or one
+ * network, can't tie up all of our sessions. A limit of zero or less turns that
+ * check off.
+ */
+@Component
+public class ConnectionLimiter {
+    // a counter that hit zero and is on its way out of the map
+    private static final int RETIRED = -1;
+
+    private Map<String, AtomicInteger> perAddress = new ConcurrentHashMap<>();
+    private Map<String, AtomicInteger> perSubnet = new ConcurrentHashMap<>();
+    private int addressLimit;
+    private int subnetLimit;
+    private int ipv4SubnetPrefix;
+    private int ipv6SubnetPrefix;
+
+    @Inject
+    public ConnectionLimiter(ConnectionLimitProperties connectionLimitProperties) {
+        this.addressLimit = connectionLimitProperties.getPerAddress();
+        this.subnetLimit = connectionLimitProperties.getPerSubnet();
+        this.ipv4SubnetPrefix = connectionLimitProperties.getIpv4SubnetPrefix();
+        this.ipv6SubnetPrefix = connectionLimitProperties.getIpv6SubnetPrefix();
+    }
+
+    /**
+     * Counts a new connection, unless the address or its subnet is already full.
+     *
+     * @param address the remote IP address
+     * @return true if the connection was counted and must be released later
+     */
+    public boolean acquire(String address) {
+        if (!increment(perAddress, address, addressLimit)) {
+            return false;
+        }
+
+        String subnet = subnetOf(address);
+
+        if (subnet != null && !increment(perSubnet, subnet, subnetLimit)) {
+            decrement(perAddress, address);
+
+            return false;
+        }
+
+        return true;
+    }
+
+    public void release(String address) {
+        String subnet = subnetOf(address);
+
+        decrement(perAddress, address);
+
+        if (subnet != null) {
+            decrement(perSubnet, subnet);
+        }
+    }
+
+    public int countAddress(String address) {
+        return Math.max(0, perAddress.getOrDefault(address, new AtomicInteger()).get());
+    }
+
+    public int countSubnet(String address) {
+        String subnet = subnetOf(address);
+
+        return subnet == null ? 0 : Math.max(0, perSubnet.getOrDefault(subnet, new AtomicInteger()).get());
+    }
+
+    public int size() {
+        return perAddress.size();
+    }
+
+    String subnetOf(String address) {
+        int scope = address.indexOf('%');
+        byte[] bytes = InetAddressParser.parse(address, 0, scope < 0 ? address.length() : scope);
+
+        if (bytes == null) {
+            return null;
+        }
+
+        int prefix = Math.min(bytes.length * 8, bytes.length == 4 ? ipv4SubnetPrefix : ipv6SubnetPrefix);
+
+        for (int bit = prefix; bit < bytes.length * 8; bit++) {
+            bytes[bit >> 3] &= ~(1 << (7 - (bit & 7)));
+        }
+
+        return InetAddressParser.format(bytes) + "/" + prefix;
+    }
+
+    private static boolean increment(Map<String, AtomicInteger> counters, String key, int limit) {
+        while (true) {
+            AtomicInteger counter = counters.computeIfAbsent(key, k -> new AtomicInteger());
+            int count = counter.get();
+
+            if (count == RETIRED) {
+                // help the releasing thread finish, then start over with a fresh counter
+                counters.remove(key, counter);
+                continue;
+            }
+
+            if (limit > 0 && count >= limit) {
+                return false;
+            }
+
+            if (counter.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static void decrement(Map<String, AtomicInteger> counters, String key) {
+        AtomicInteger counter = counters.get(key);
+
+        if (counter == null) {
+            return;
+        }
+
+        // only retire the counter if nobody took it back above zero in the meantime
+        if (counter.decrementAndGet() == 0 && counter.compareAndSet(0, RETIRED)) {
+            counters.remove(key, counter);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.agonyengine.forge.controller.ip;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Parses IPv4 and IPv6 literals into their raw bytes. Unlike {@link InetAddress#getByName(String)}
+ * anything that isn't a literal is simply rejected, so a hostname can never trigger a DNS lookup.
+ */
+public final class InetAddressParser {
+    private InetAddressParser() {
+        // utility class
+    }
+
+    public static byte[] parse(String text) {
+        return text == null ? null : parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses the address between start and end, ignoring surrounding whitespace and
+     * the brackets around an IPv6 literal. IPv4-mapped IPv6 addresses come back as
+     * plain IPv4 so that they match IPv4 ranges.
+     *
+     * @param text the text containing the address
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @return 4 or 16 bytes, or null if the text isn't an IP literal
+     */
+    public static byte[] parse(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+
+        if (end - start >= 2 && text.charAt(start) == '[' && text.charAt(end - 1) == ']') {
+            start++;
+            end--;
+        }
+
+        if (start == end) {
+            return null;
+        }
+
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == ':') {
+                return unmap(parseIpv6(text, start, end));
+            }
+        }
+
+        return parseIpv4(text, start, end);
+    }
+
+    public static String format(byte[] address) {
+        try {
+            // only checks the length, never does a lookup
+            return InetAddress.getByAddress(address).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid address length: " + address.length, e);
+        }
+    }
+
+    private static byte[] parseIpv4(CharSequence text, int start, int end) {
+        byte[] bytes = new byte[4];
+        int octets = 0;
+        int i = start;
+
+        while (octets < 4) {
+            int octetStart = i;
+            int value = 0;
+
+            while (i < end && i - octetStart < 3 && isDigit(text.charAt(i))) {
+                value = value * 10 + (text.charAt(i) - '0');
+                i++;
+            }
+
+            if (i == octetStart || value > 255) {
+                return null;
+            }
+
+            bytes[octets++] = (byte) value;
+
+            if (octets < 4) {
+                if (i == end || text.charAt(i) != '.') {
+                    return null;
+                }
+
+                i++;
+            }
+        }
+
+        return i == end ? bytes : null;
+    }
+
+    private static byte[] parseIpv6(CharSequence text, int start, int end) {
+        byte[] bytes = new byte[16];
+        int groups = 0;
+        int compressAt = -1;
+        int i = start;
+
+        if (text.charAt(i) == ':') {
+            if (i + 1 == end || text.charAt(i + 1) != ':') {
+                return null;
+            }
+
+            compressAt = 0;
+            i += 2;
+        }
+
+        while (i < end) {
+            if (groups == 8) {
+                return null;
+            }
+
+            int groupStart = i;
+            int value = 0;
+
+            while (i < end && i - groupStart < 4 && hexValue(text.charAt(i)) >= 0) {
+                value = (value << 4) | hexValue(text.charAt(i));
+                i++;
+            }
+
+            if (i < end && text.charAt(i) == '.') {
+                // an IPv4 address in the last 32 bits, as in ::ffff:1.2.3.4
+                byte[] ipv4 = groups > 6 ? null : parseIpv4(text, groupStart, end);
+
+                if (ipv4 == null) {
+                    return null;
+                }
+
+                System.arraycopy(ipv4, 0, bytes, groups * 2, 4);
+                groups += 2;
+                break;
+            }
+
+            if (i == groupStart) {
+                return null;
+            }
+
+            bytes[groups * 2] = (byte) (value >> 8);
+            bytes[groups * 2 + 1] = (byte) value;
+            groups++;
+
+            if (i == end) {
+                break;
+            }
+
+            if (text.charAt(i++) != ':' || i == end) {
+                return null;
+            }
+
+            if (text.charAt(i) == ':') {
+                if (compressAt >= 0) {
+                    return null;
+                }
+
+                compressAt = groups;
+                i++;
+            }
+        }
+
+        if (compressAt < 0) {
+            return groups == 8 ? bytes : null;
+        }
+
+        if (groups == 8) {
+            return null;
+        }
+
+        // slide everything after the :: to the end and zero the gap
+        int tail = (groups - compressAt) * 2;
+
+        System.arraycopy(bytes, compressAt * 2, bytes, 16 - tail, tail);
+
+        for (int j = compressAt * 2; j < 16 - tail; j++) {
+            bytes[j] = 0;
+        }
+
+        return bytes;
+    }
+
+    private static byte[] unmap(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+
+        for (int i = 0; i < 10; i++) {
+            if (bytes[i] != 0) {
+                return bytes;
+            }
+        }
+
+        if (bytes[10] != (byte) 0xff || bytes[11] != (byte) 0xff) {
+            return bytes;
+        }
+
+        return new byte[] { bytes[12], bytes[13], bytes[14], bytes[15] };
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+
+        return -1;
+    }
+}
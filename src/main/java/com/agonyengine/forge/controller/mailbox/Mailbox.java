@@ -0,0 +1,66 @@
+package com.agonyengine.forge.controller.mailbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the tasks submitted to it one at a time and in order, borrowing a thread
+ * from the shared executor only while it has work to do.
+ */
+class Mailbox implements Runnable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Mailbox.class);
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Executor executor;
+    private final int throughput;
+
+    Mailbox(Executor executor, int throughput) {
+        this.executor = executor;
+        this.throughput = throughput;
+    }
+
+    void submit(Runnable task) {
+        queue.add(task);
+        schedule();
+    }
+
+    @Override
+    public void run() {
+        try {
+            Runnable task;
+
+            // give the thread back after a few tasks so that one busy connection can't starve the others
+            for (int i = 0; i < throughput && (task = queue.poll()) != null; i++) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Uncaught exception in mailbox task", e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.agonyengine.forge.controller.mailbox;
+
+import com.agonyengine.forge.config.MailboxProperties;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Gives each connection its own mailbox so that its commands run one after another
+ * in the order they arrived, while commands from different connections run in
+ * parallel on a shared pool.
+ */
+@Component
+public class MailboxExecutor {
+    private Map<UUID, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private Executor executor;
+    private int throughput;
+
+    @Inject
+    public MailboxExecutor(@Named("mailboxTaskExecutor") Executor executor, MailboxProperties mailboxProperties) {
+        this.executor = executor;
+        this.throughput = mailboxProperties.getThroughput();
+    }
+
+    /**
+     * Gives a connection a mailbox. This is the only place mailboxes are made, so that
+     * work turning up after a connection has closed can't bring its mailbox back.
+     *
+     * @param connectionId the ID of the connection
+     */
+    public void open(UUID connectionId) {
+        mailboxes.computeIfAbsent(connectionId, id -> new Mailbox(executor, throughput));
+    }
+
+    /**
+     * Submits a task if the connection has an open mailbox. Anything can arrive after the
+     * connection has gone away, so a task for a closed connection is simply dropped.
+     *
+     * @param connectionId the ID of the connection
+     * @param task the task to run
+     * @return true if the task was submitted
+     */
+    public boolean submitIfOpen(UUID connectionId, Runnable task) {
+        Mailbox mailbox = mailboxes.get(connectionId);
+
+        if (mailbox == null) {
+            return false;
+        }
+
+        mailbox.submit(task);
+
+        return true;
+    }
+
+    /**
+     * Forgets about a connection's mailbox. Anything already in it still runs.
+     *
+     * @param connectionId the ID of the connection
+     */
+    public void close(UUID connectionId) {
+        if (connectionId != null) {
+            mailboxes.remove(connectionId);
+        }
+    }
+
+    public int size() {
+        return mailboxes.size();
+    }
+}
@@ -0,0 +1,44 @@
+package com.agonyengine.forge.controller.outbox;
+
+import com.agonyengine.forge.controller.EncodedOutput;
+
+/**
+ * Output held back from a connection that is behind. Critical output is the
+ * connection's own command output and prompts, which are never dropped.
+ * Repeats of the same broadcast are folded into one entry with a count.
+ */
+class HeldOutput {
+    private final EncodedOutput output;
+    private final boolean critical;
+    private int repeats;
+    private EncodedOutput repeatNotice;
+
+    HeldOutput(EncodedOutput output, boolean critical) {
+        this.output = output;
+        this.critical = critical;
+    }
+
+    EncodedOutput getOutput() {
+        return output;
+    }
+
+    boolean isCritical() {
+        return critical;
+    }
+
+    int getRepeats() {
+        return repeats;
+    }
+
+    void setRepeats(int repeats) {
+        this.repeats = repeats;
+    }
+
+    EncodedOutput getRepeatNotice() {
+        return repeatNotice;
+    }
+
+    void setRepeatNotice(EncodedOutput repeatNotice) {
+        this.repeatNotice = repeatNotice;
+    }
+}
@@ -0,0 +1,140 @@
+package com.agonyengine.forge.controller.outbox;
+
+import com.agonyengine.forge.controller.EncodedOutput;
+import com.agonyengine.forge.controller.WireFormat;
+import com.agonyengine.forge.model.Connection;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Holds output for one connection until the next time it is flushed.
+ * Appending is thread safe. Draining and sending should be done while
+ * holding the Outbox's monitor so that frames go out in order.
+ *
+ * While the connection is too far behind to send to, output is moved
+ * into a held list instead, where the {@link SlowConsumerPolicy} keeps
+ * it down to size. The held list is only touched under the monitor.
+ */
+public class Outbox {
+    private final String sessionUsername;
+    private final WireFormat format;
+    private final Queue<EncodedOutput> pending = new ConcurrentLinkedQueue<>();
+    private final Deque<HeldOutput> held = new ArrayDeque<>();
+    private volatile int heldLines;
+    private int droppedLines;
+    private boolean disconnecting;
+    private volatile Connection connection;
+
+    Outbox(Connection connection, WireFormat format) {
+        this.sessionUsername = connection.getSessionUsername();
+        this.format = format;
+        this.connection = connection;
+    }
+
+    public String getSessionUsername() {
+        return sessionUsername;
+    }
+
+    public WireFormat getFormat() {
+        return format;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    void setConnection(Connection connection) {
+        this.connection = connection;
+    }
+
+    void append(EncodedOutput output) {
+        pending.add(output);
+    }
+
+    boolean hasPending() {
+        return !pending.isEmpty() || heldLines > 0;
+    }
+
+    /**
+     * Moves everything waiting to be sent into the held list.
+     */
+    void hold() {
+        EncodedOutput output;
+
+        while ((output = pending.poll()) != null) {
+            hold(output, false);
+        }
+    }
+
+    /**
+     * Adds to the held list.
+     *
+     * @param output the output to hold
+     * @param critical true if the output must not be dropped
+     */
+    void hold(EncodedOutput output, boolean critical) {
+        if (!output.isEmpty()) {
+            held.add(new HeldOutput(output, critical || output.getSecret()));
+            heldLines += output.getSource().length;
+        }
+    }
+
+    Deque<HeldOutput> getHeld() {
+        return held;
+    }
+
+    int getHeldLines() {
+        return heldLines;
+    }
+
+    void setHeldLines(int heldLines) {
+        this.heldLines = heldLines;
+    }
+
+    int takeDroppedLines() {
+        int dropped = droppedLines;
+
+        droppedLines = 0;
+
+        return dropped;
+    }
+
+    void addDroppedLines(int lines) {
+        droppedLines += lines;
+    }
+
+    boolean isDisconnecting() {
+        return disconnecting;
+    }
+
+    void setDisconnecting(boolean disconnecting) {
+        this.disconnecting = disconnecting;
+    }
+
+    List<EncodedOutput> drain() {
+        List<EncodedOutput> drained = new ArrayList<>();
+        EncodedOutput output;
+
+        for (HeldOutput heldOutput : held) {
+            drained.add(heldOutput.getOutput());
+
+            if (heldOutput.getRepeatNotice() != null) {
+                drained.add(heldOutput.getRepeatNotice());
+            }
+        }
+
+        held.clear();
+        heldLines = 0;
+
+        while ((output = pending.poll()) != null) {
+            drained.add(output);
+        }
+
+        return drained;
+    }
+}
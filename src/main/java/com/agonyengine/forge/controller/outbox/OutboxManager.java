@@ -0,0 +1,186 @@
+package com.agonyengine.forge.controller.outbox;
+
+import com.agonyengine.forge.controller.EncodedOutput;
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.WireFormat;
+import com.agonyengine.forge.controller.scrollback.ScrollbackManager;
+import com.agonyengine.forge.model.Connection;
+import com.agonyengine.forge.model.PrimaryConnectionState;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Collects the output for each connection so that it can be sent as a single
+ * frame with a single prompt at the end, instead of one frame per message.
+ */
+@Component
+public class OutboxManager {
+    private Map<String, Outbox> outboxes = new ConcurrentHashMap<>();
+    private SimpMessagingTemplate simpMessagingTemplate;
+    private OutputEncoder outputEncoder;
+    private ScrollbackManager scrollbackManager;
+    private SlowConsumerPolicy slowConsumerPolicy;
+
+    @Inject
+    public OutboxManager(
+        SimpMessagingTemplate simpMessagingTemplate,
+        OutputEncoder outputEncoder,
+        ScrollbackManager scrollbackManager,
+        SlowConsumerPolicy slowConsumerPolicy) {
+
+        this.simpMessagingTemplate = simpMessagingTemplate;
+        this.outputEncoder = outputEncoder;
+        this.scrollbackManager = scrollbackManager;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
+    public void open(Connection connection) {
+        open(connection, WireFormat.JSON);
+    }
+
+    public void open(Connection connection, WireFormat format) {
+        outboxes.put(connection.getSessionUsername(), new Outbox(connection, format));
+    }
+
+    public void close(String sessionUsername) {
+        if (sessionUsername != null) {
+            outboxes.remove(sessionUsername);
+        }
+    }
+
+    public int size() {
+        return outboxes.size();
+    }
+
+    public void append(Connection connection, EncodedOutput output) {
+        Outbox outbox = outboxes.get(connection.getSessionUsername());
+
+        if (outbox != null) {
+            outbox.append(output);
+        }
+    }
+
+    /**
+     * Sends everything waiting in the connection's outbox along with the output
+     * from the command it just ran. The command's output is expected to end with
+     * a prompt, so no other prompt is added. If there is nothing at all to send,
+     * nothing is sent. If the connection is too far behind, everything is held
+     * back for it until it catches up.
+     *
+     * @param connection the connection that ran the command
+     * @param output the output from the command
+     */
+    public void flush(Connection connection, Output output) {
+        Outbox outbox = outboxes.get(connection.getSessionUsername());
+        EncodedOutput encoded = outputEncoder.encode(output);
+
+        if (outbox == null) {
+            if (!encoded.isEmpty()) {
+                send(connection.getSessionUsername(), WireFormat.JSON, outputEncoder.frame(encoded), -1);
+            }
+
+            return;
+        }
+
+        synchronized (outbox) {
+            outbox.setConnection(connection);
+
+            if (outbox.isDisconnecting() || slowConsumerPolicy.isBehind(connection, System.nanoTime())) {
+                outbox.hold();
+                outbox.hold(encoded, true);
+                slowConsumerPolicy.hold(outbox);
+                return;
+            }
+
+            List<EncodedOutput> parts = slowConsumerPolicy.release(outbox);
+
+            if (parts.isEmpty() && encoded.isEmpty()) {
+                return;
+            }
+
+            parts.add(encoded);
+
+            send(outbox, parts);
+        }
+    }
+
+    /**
+     * Sends everything waiting in every outbox, adding a prompt to the end of each frame.
+     * Connections that are too far behind are skipped, and their output held back.
+     *
+     * @param prompt supplies the prompt for a connection
+     */
+    public void flushAll(Function<Connection, Output> prompt) {
+        outboxes.values()
+            .stream()
+            .filter(Outbox::hasPending)
+            .forEach(outbox -> {
+                synchronized (outbox) {
+                    if (outbox.isDisconnecting() || slowConsumerPolicy.isBehind(outbox.getConnection(), System.nanoTime())) {
+                        slowConsumerPolicy.hold(outbox);
+                        return;
+                    }
+
+                    List<EncodedOutput> parts = slowConsumerPolicy.release(outbox);
+
+                    if (parts.isEmpty()) {
+                        return;
+                    }
+
+                    parts.add(outputEncoder.encode(prompt.apply(outbox.getConnection())));
+
+                    send(outbox, parts);
+                }
+            });
+    }
+
+    private void send(Outbox outbox, List<EncodedOutput> parts) {
+        send(
+            outbox.getSessionUsername(),
+            outbox.getFormat(),
+            outputEncoder.frame(outbox.getFormat(), parts.toArray(new EncodedOutput[0])),
+            record(outbox.getConnection(), parts));
+    }
+
+    private long record(Connection connection, List<EncodedOutput> parts) {
+        // nobody can resume from the login screen, so there's no point remembering it
+        if (connection.getPrimaryState() != PrimaryConnectionState.IN_GAME) {
+            return -1;
+        }
+
+        List<String> lines = new ArrayList<>();
+
+        parts.stream()
+            .filter(part -> !part.getSecret())
+            .forEach(part -> lines.addAll(Arrays.asList(part.getSource())));
+
+        return lines.isEmpty() ? -1 : scrollbackManager.record(connection.getId(), lines);
+    }
+
+    private void send(String sessionUsername, WireFormat format, byte[] payload, long sequence) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
+
+        headerAccessor.setContentType(format.getMimeType());
+
+        if (sequence >= 0) {
+            headerAccessor.setNativeHeader(ScrollbackManager.SEQUENCE_HEADER, Long.toString(sequence));
+        }
+
+        headerAccessor.setLeaveMutable(true);
+
+        simpMessagingTemplate.send(
+            simpMessagingTemplate.getUserDestinationPrefix() + sessionUsername + "/queue/output",
+            MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders()));
+    }
+}
@@ -0,0 +1,14 @@
+package com.agonyengine.forge.controller.outbox;
+
+/**
+ * What to do with output for a connection that can't keep up with it.
+ */
+public enum OutputPolicy {
+    DROP_OLDEST,
+    COLLAPSE_REPEATS,
+    DISCONNECT;
+
+    public String getTag() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
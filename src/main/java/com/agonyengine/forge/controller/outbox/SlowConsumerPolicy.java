@@ -0,0 +1,236 @@
+package com.agonyengine.forge.controller.outbox;
+
+import com.agonyengine.forge.config.OutputPolicyProperties;
+import com.agonyengine.forge.controller.EncodedOutput;
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.stats.SessionStats;
+import com.agonyengine.forge.controller.stats.SessionStatsRegistry;
+import com.agonyengine.forge.model.Connection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when a connection has fallen too far behind to send to, and keeps the output
+ * held back for it from growing without limit. Whatever the policy, a connection whose
+ * own command output alone goes over the backlog limit is disconnected, so no single
+ * client can make the server hold on to an unbounded amount of output.
+ */
+@Component
+public class SlowConsumerPolicy {
+    static final CloseStatus TOO_SLOW = CloseStatus.SESSION_NOT_RELIABLE
+        .withReason("Your connection fell too far behind. Reconnect to pick up where you left off.");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlowConsumerPolicy.class);
+
+    private SessionStatsRegistry sessionStatsRegistry;
+    private Executor closeExecutor;
+    private OutputEncoder outputEncoder;
+    private OutputPolicy policy;
+    private int backlogLimit;
+    private long stallThresholdNanos;
+    private int queueThreshold;
+    private Map<OutputPolicy, Counter> firedCounters = new EnumMap<>(OutputPolicy.class);
+    private Counter droppedCounter;
+
+    @Inject
+    public SlowConsumerPolicy(
+        SessionStatsRegistry sessionStatsRegistry,
+        @Named("slowConsumerTaskExecutor") Executor closeExecutor,
+        OutputEncoder outputEncoder,
+        OutputPolicyProperties outputPolicyProperties,
+        MeterRegistry meterRegistry) {
+
+        this.sessionStatsRegistry = sessionStatsRegistry;
+        this.closeExecutor = closeExecutor;
+        this.outputEncoder = outputEncoder;
+        this.policy = outputPolicyProperties.getPolicy();
+        this.backlogLimit = outputPolicyProperties.getBacklogLimit();
+        this.stallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(outputPolicyProperties.getStallThreshold());
+        this.queueThreshold = outputPolicyProperties.getQueueThreshold();
+
+        for (OutputPolicy outputPolicy : OutputPolicy.values()) {
+            firedCounters.put(outputPolicy, Counter.builder("agony.output.policy")
+                .description("Times output for a connection that was behind had to be cut down")
+                .tag("policy", outputPolicy.getTag())
+                .register(meterRegistry));
+        }
+
+        droppedCounter = Counter.builder("agony.output.dropped")
+            .description("Lines of output dropped for connections that were behind")
+            .baseUnit("lines")
+            .register(meterRegistry);
+    }
+
+    /**
+     * A connection is behind if a write to it has been stuck for a while, or if a lot of
+     * messages are already waiting to be written to it.
+     *
+     * @param connection the connection
+     * @param now the current time from {@link System#nanoTime()}
+     * @return true if nothing more should be sent to it for now
+     */
+    public boolean isBehind(Connection connection, long now) {
+        Optional<SessionStats> stats = sessionStatsRegistry.find(connection.getSessionId());
+
+        return stats.isPresent()
+            && (stats.get().getStalledNanos(now) >= stallThresholdNanos || stats.get().getQueued() >= queueThreshold);
+    }
+
+    /**
+     * Holds back everything waiting in the outbox and cuts it down to size. Must be
+     * called while holding the outbox's monitor.
+     *
+     * @param outbox the outbox of a connection that is behind
+     */
+    void hold(Outbox outbox) {
+        outbox.hold();
+
+        if (outbox.isDisconnecting()) {
+            // it's on its way out, so there's no point keeping anything
+            outbox.drain();
+            return;
+        }
+
+        if (policy == OutputPolicy.COLLAPSE_REPEATS && collapseRepeats(outbox)) {
+            firedCounters.get(OutputPolicy.COLLAPSE_REPEATS).increment();
+        }
+
+        if (outbox.getHeldLines() <= backlogLimit) {
+            return;
+        }
+
+        if (policy != OutputPolicy.DISCONNECT && dropOldest(outbox)) {
+            firedCounters.get(OutputPolicy.DROP_OLDEST).increment();
+        }
+
+        if (outbox.getHeldLines() > backlogLimit) {
+            disconnect(outbox);
+        }
+    }
+
+    /**
+     * Takes everything held for a connection that has caught up, along with a note of
+     * anything that had to be dropped. Must be called while holding the outbox's monitor.
+     *
+     * @param outbox the outbox
+     * @return the output to send, oldest first
+     */
+    List<EncodedOutput> release(Outbox outbox) {
+        int dropped = outbox.takeDroppedLines();
+        List<EncodedOutput> parts = outbox.drain();
+
+        if (dropped > 0) {
+            parts.add(0, outputEncoder.encode(new Output(
+                "[yellow]" + dropped + (dropped == 1 ? " line of output was" : " lines of output were")
+                    + " skipped while your connection caught up.")));
+        }
+
+        return parts;
+    }
+
+    private boolean collapseRepeats(Outbox outbox) {
+        HeldOutput previous = null;
+        boolean collapsed = false;
+
+        for (Iterator<HeldOutput> iterator = outbox.getHeld().iterator(); iterator.hasNext();) {
+            HeldOutput current = iterator.next();
+
+            if (previous != null
+                && !previous.isCritical()
+                && !current.isCritical()
+                && current.getRepeats() == 0
+                && Arrays.equals(previous.getOutput().getSource(), current.getOutput().getSource())) {
+
+                previous.setRepeats(previous.getRepeats() + 1);
+                previous.setRepeatNotice(outputEncoder.encode(new Output(
+                    "[dwhite](repeated " + previous.getRepeats() + " more " + (previous.getRepeats() == 1 ? "time" : "times") + ")")));
+                iterator.remove();
+                collapsed = true;
+            } else {
+                previous = current;
+            }
+        }
+
+        if (collapsed) {
+            recount(outbox);
+        }
+
+        return collapsed;
+    }
+
+    private boolean dropOldest(Outbox outbox) {
+        int dropped = 0;
+
+        for (Iterator<HeldOutput> iterator = outbox.getHeld().iterator(); iterator.hasNext() && outbox.getHeldLines() > backlogLimit;) {
+            HeldOutput current = iterator.next();
+
+            if (!current.isCritical()) {
+                int lines = linesOf(current);
+
+                iterator.remove();
+                outbox.setHeldLines(outbox.getHeldLines() - lines);
+                dropped += lines;
+            }
+        }
+
+        outbox.addDroppedLines(dropped);
+        droppedCounter.increment(dropped);
+
+        return dropped > 0;
+    }
+
+    private void disconnect(Outbox outbox) {
+        Connection connection = outbox.getConnection();
+        Optional<SessionStats> stats = sessionStatsRegistry.find(connection.getSessionId());
+
+        outbox.setDisconnecting(true);
+        outbox.drain();
+        outbox.takeDroppedLines();
+        firedCounters.get(OutputPolicy.DISCONNECT).increment();
+
+        LOGGER.warn("Disconnecting {} from {} for falling too far behind", connection.getName(), connection.getRemoteAddress());
+
+        stats.ifPresent(this::close);
+    }
+
+    // closing can block behind the stuck write, so it happens on its own threads instead of holding up the caller
+    private void close(SessionStats sessionStats) {
+        try {
+            closeExecutor.execute(() -> {
+                try {
+                    sessionStats.close(TOO_SLOW);
+                } catch (IOException e) {
+                    LOGGER.debug("Unable to close session {}", sessionStats.getSessionId(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Too many slow sessions already closing, leaving {} to the send time limit", sessionStats.getSessionId());
+        }
+    }
+
+    private static void recount(Outbox outbox) {
+        outbox.setHeldLines(outbox.getHeld().stream().mapToInt(SlowConsumerPolicy::linesOf).sum());
+    }
+
+    private static int linesOf(HeldOutput heldOutput) {
+        return heldOutput.getOutput().getSource().length + (heldOutput.getRepeatNotice() == null ? 0 : 1);
+    }
+}
@@ -0,0 +1,136 @@
+package com.agonyengine.forge.controller.scrollback;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A fixed number of bytes holding the most recent lines sent to one connection.
+ * Each line is stored as its UTF-8 length followed by its bytes, wrapping around
+ * the end of the buffer, and the oldest lines are dropped to make room for new ones.
+ * Every line gets a sequence number so that a client can ask for only what it missed.
+ */
+public class ScrollbackBuffer {
+    private static final int HEADER_SIZE = Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private int head = 0;
+    private int used = 0;
+    private long firstSequence = 0;
+    private long nextSequence = 0;
+
+    public ScrollbackBuffer(int capacity, boolean direct) {
+        buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    public synchronized long append(String line) {
+        byte[] bytes = line.getBytes(UTF_8);
+        int size = HEADER_SIZE + bytes.length;
+
+        if (size > buffer.capacity()) {
+            // it can never fit, so forget everything rather than leave a hole in the middle
+            head = 0;
+            used = 0;
+            firstSequence = ++nextSequence;
+
+            return nextSequence;
+        }
+
+        while (buffer.capacity() - used < size) {
+            evict();
+        }
+
+        int tail = (head + used) % buffer.capacity();
+
+        tail = write(tail, ByteBuffer.allocate(HEADER_SIZE).putInt(0, bytes.length).array());
+        write(tail, bytes);
+
+        used += size;
+
+        return ++nextSequence;
+    }
+
+    /**
+     * Copies out the lines that came after the given sequence number. If some of
+     * those lines have already been dropped, everything still held is returned.
+     *
+     * @param sequence the sequence number the client has already seen up to
+     * @return the lines, oldest first
+     */
+    public synchronized List<String> since(long sequence) {
+        List<String> lines = new ArrayList<>();
+        int position = head;
+
+        for (long current = firstSequence; current < nextSequence; current++) {
+            byte[] header = new byte[HEADER_SIZE];
+
+            position = read(position, header);
+
+            byte[] bytes = new byte[ByteBuffer.wrap(header).getInt()];
+
+            position = read(position, bytes);
+
+            if (current >= sequence || sequence > nextSequence) {
+                lines.add(new String(bytes, UTF_8));
+            }
+        }
+
+        return lines;
+    }
+
+    public synchronized long getSequence() {
+        return nextSequence;
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    synchronized int getUsed() {
+        return used;
+    }
+
+    private void evict() {
+        byte[] header = new byte[HEADER_SIZE];
+
+        read(head, header);
+
+        int size = HEADER_SIZE + ByteBuffer.wrap(header).getInt();
+
+        head = (head + size) % buffer.capacity();
+        used -= size;
+        firstSequence++;
+    }
+
+    private int write(int position, byte[] bytes) {
+        int first = Math.min(bytes.length, buffer.capacity() - position);
+        ByteBuffer view = buffer.duplicate();
+
+        view.position(position);
+        view.put(bytes, 0, first);
+
+        if (first < bytes.length) {
+            view.position(0);
+            view.put(bytes, first, bytes.length - first);
+        }
+
+        return (position + bytes.length) % buffer.capacity();
+    }
+
+    private int read(int position, byte[] bytes) {
+        int first = Math.min(bytes.length, buffer.capacity() - position);
+        ByteBuffer view = buffer.duplicate();
+
+        view.position(position);
+        view.get(bytes, 0, first);
+
+        if (first < bytes.length) {
+            view.position(0);
+            view.get(bytes, first, bytes.length - first);
+        }
+
+        return (position + bytes.length) % buffer.capacity();
+    }
+}
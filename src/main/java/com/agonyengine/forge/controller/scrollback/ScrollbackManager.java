@@ -0,0 +1,91 @@
+package com.agonyengine.forge.controller.scrollback;
+
+import com.agonyengine.forge.config.ScrollbackProperties;
+import com.agonyengine.forge.controller.Output;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the recent output for each connection, so that a player who drops and
+ * resumes can be shown what they missed. Each buffer is a fixed number of bytes, so
+ * memory use is simply the capacity times the number of players. A capacity of zero
+ * or less turns scrollback off.
+ */
+@Component
+public class ScrollbackManager {
+    public static final String SEQUENCE_HEADER = "agony-seq";
+
+    private Map<UUID, ScrollbackBuffer> buffers = new ConcurrentHashMap<>();
+    private int capacity;
+    private boolean direct;
+
+    @Inject
+    public ScrollbackManager(ScrollbackProperties scrollbackProperties) {
+        this.capacity = scrollbackProperties.getCapacity();
+        this.direct = scrollbackProperties.getDirect();
+    }
+
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * Gives a connection a buffer, or keeps the one it had if it's resuming. This is the
+     * only place buffers are made, so output that turns up after a connection is gone
+     * can't bring its buffer back.
+     *
+     * @param connectionId the connection's ID
+     */
+    public void open(UUID connectionId) {
+        if (isEnabled() && connectionId != null) {
+            buffers.computeIfAbsent(connectionId, id -> new ScrollbackBuffer(capacity, direct));
+        }
+    }
+
+    /**
+     * Stores lines that were just sent to a connection, if it has a buffer.
+     *
+     * @param connectionId the connection's ID
+     * @param lines the lines, in the order they were sent
+     * @return the sequence number to give the client, or -1 if nothing was stored
+     */
+    public long record(UUID connectionId, Iterable<String> lines) {
+        ScrollbackBuffer buffer = connectionId == null ? null : buffers.get(connectionId);
+
+        if (buffer == null) {
+            return -1;
+        }
+
+        long sequence = buffer.getSequence();
+
+        for (String line : lines) {
+            sequence = buffer.append(line);
+        }
+
+        return sequence;
+    }
+
+    public Output replay(UUID connectionId, long sequence) {
+        ScrollbackBuffer buffer = connectionId == null ? null : buffers.get(connectionId);
+
+        if (buffer == null) {
+            return new Output();
+        }
+
+        return new Output(buffer.since(sequence));
+    }
+
+    public void discard(UUID connectionId) {
+        if (connectionId != null) {
+            buffers.remove(connectionId);
+        }
+    }
+
+    public int size() {
+        return buffers.size();
+    }
+}
@@ -0,0 +1,75 @@
+package com.agonyengine.forge.controller.stats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Follows the broker going up and down. The relay only says so when the state
+ * actually changes, so every event after the first "available" is a reconnect.
+ */
+@Component
+public class BrokerRelayMonitor implements ApplicationListener<BrokerAvailabilityEvent> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BrokerRelayMonitor.class);
+
+    private AtomicInteger connects = new AtomicInteger();
+    private AtomicInteger disconnects = new AtomicInteger();
+    private volatile boolean available;
+    private volatile long changedAt = System.currentTimeMillis();
+    private volatile Object broker;
+
+    @Override
+    public void onApplicationEvent(BrokerAvailabilityEvent event) {
+        broker = event.getSource();
+        available = event.isBrokerAvailable();
+        changedAt = event.getTimestamp();
+
+        if (event.isBrokerAvailable()) {
+            if (connects.getAndIncrement() > 0) {
+                LOGGER.info("Reconnected to the message broker");
+            }
+        } else {
+            disconnects.incrementAndGet();
+
+            LOGGER.warn("Lost connection to the message broker");
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * @return the time of the last change, from {@link System#currentTimeMillis()}
+     */
+    public long getChangedAt() {
+        return changedAt;
+    }
+
+    public int getReconnects() {
+        return Math.max(0, connects.get() - 1);
+    }
+
+    public int getDisconnects() {
+        return disconnects.get();
+    }
+
+    /**
+     * The number of TCP connections the relay has open to the broker, which is one for
+     * the relay itself plus one per STOMP session.
+     *
+     * @return the number of connections, or -1 if there is no relay
+     */
+    public int getRelayConnections() {
+        Object current = broker;
+
+        return current instanceof StompBrokerRelayMessageHandler
+            ? ((StompBrokerRelayMessageHandler) current).getConnectionCount()
+            : -1;
+    }
+}
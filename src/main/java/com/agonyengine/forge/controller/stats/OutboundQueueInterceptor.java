@@ -0,0 +1,43 @@
+package com.agonyengine.forge.controller.stats;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+/**
+ * Sits last on the client outbound channel and counts the messages each session has
+ * waiting on the outbound executor. A message is counted when it is queued and let go
+ * once the executor has handed it to the session, or if it never got queued at all.
+ */
+public class OutboundQueueInterceptor implements ExecutorChannelInterceptor {
+    private SessionStatsRegistry sessionStatsRegistry;
+
+    public OutboundQueueInterceptor(SessionStatsRegistry sessionStatsRegistry) {
+        this.sessionStatsRegistry = sessionStatsRegistry;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        sessionStatsRegistry.find(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())).ifPresent(SessionStats::queue);
+
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (!sent) {
+            dequeue(message);
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        dequeue(message);
+    }
+
+    private void dequeue(Message<?> message) {
+        sessionStatsRegistry.find(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())).ifPresent(SessionStats::dequeue);
+    }
+}
@@ -0,0 +1,128 @@
+package com.agonyengine.forge.controller.stats;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivery figures for one WebSocket session. Sends to a session never overlap, so
+ * the send figures only ever have one writer at a time and are volatile just so
+ * that a report can read them from another thread.
+ */
+public class SessionStats {
+    private final String sessionId;
+    private final WebSocketSession session;
+    private final AtomicInteger queued = new AtomicInteger();
+    private volatile boolean sending;
+    private volatile long sendStartedAt;
+    private volatile long messagesSent;
+    private volatile long bytesSent;
+    private volatile long sendNanos;
+    private volatile long maxSendNanos;
+
+    public SessionStats(String sessionId) {
+        this(sessionId, null);
+    }
+
+    public SessionStats(String sessionId, WebSocketSession session) {
+        this.sessionId = sessionId;
+        this.session = session;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Counts a message waiting on the outbound executor for this session.
+     */
+    public void queue() {
+        queued.incrementAndGet();
+    }
+
+    public void dequeue() {
+        queued.decrementAndGet();
+    }
+
+    public int getQueued() {
+        return Math.max(0, queued.get());
+    }
+
+    /**
+     * Marks the start of a write to the socket.
+     *
+     * @param now the current time from {@link System#nanoTime()}
+     */
+    public void beginSend(long now) {
+        sendStartedAt = now;
+        sending = true;
+    }
+
+    public void endSend(long now, int bytes) {
+        long elapsed = now - sendStartedAt;
+
+        sending = false;
+        messagesSent++;
+        bytesSent += bytes;
+        sendNanos += elapsed;
+
+        if (elapsed > maxSendNanos) {
+            maxSendNanos = elapsed;
+        }
+    }
+
+    /**
+     * How long the write that is going on right now has been blocked for.
+     *
+     * @param now the current time from {@link System#nanoTime()}
+     * @return nanoseconds, or zero if nothing is being written
+     */
+    public long getStalledNanos(long now) {
+        long startedAt = sendStartedAt;
+
+        return sending ? Math.max(0, now - startedAt) : 0;
+    }
+
+    /**
+     * The longest this session has held up a sender, counting a write that hasn't finished yet.
+     *
+     * @param now the current time from {@link System#nanoTime()}
+     * @return nanoseconds
+     */
+    public long getWorstSendNanos(long now) {
+        return Math.max(maxSendNanos, getStalledNanos(now));
+    }
+
+    public long getMessagesSent() {
+        return messagesSent;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getMaxSendNanos() {
+        return maxSendNanos;
+    }
+
+    /**
+     * Closes the socket underneath the session. This can block behind a write that is
+     * stuck, so it's best not done on a thread anything else is waiting for.
+     *
+     * @param closeStatus the code and reason to send to the client
+     * @throws IOException if the socket couldn't be closed
+     */
+    public void close(CloseStatus closeStatus) throws IOException {
+        if (session != null) {
+            session.close(closeStatus);
+        }
+    }
+
+    public long getAverageSendNanos() {
+        long sent = messagesSent;
+
+        return sent == 0 ? 0 : sendNanos / sent;
+    }
+}
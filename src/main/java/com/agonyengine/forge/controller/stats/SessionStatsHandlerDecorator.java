@@ -0,0 +1,62 @@
+package com.agonyengine.forge.controller.stats;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+
+/**
+ * Hands each new session down the chain wrapped in something that times its writes.
+ * The STOMP handler buffers on top of whatever session it is given, so the times are
+ * for the socket itself and a slow client shows up as a long write.
+ */
+public class SessionStatsHandlerDecorator extends WebSocketHandlerDecorator {
+    private SessionStatsRegistry sessionStatsRegistry;
+
+    public SessionStatsHandlerDecorator(WebSocketHandler delegate, SessionStatsRegistry sessionStatsRegistry) {
+        super(delegate);
+
+        this.sessionStatsRegistry = sessionStatsRegistry;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        SessionStats stats = sessionStatsRegistry.open(session);
+
+        super.afterConnectionEstablished(new TimedSession(session, stats));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        try {
+            super.afterConnectionClosed(session, closeStatus);
+        } finally {
+            sessionStatsRegistry.close(session.getId());
+        }
+    }
+
+    static class TimedSession extends WebSocketSessionDecorator {
+        private SessionStats stats;
+
+        TimedSession(WebSocketSession session, SessionStats stats) {
+            super(session);
+
+            this.stats = stats;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            stats.beginSend(System.nanoTime());
+
+            try {
+                super.sendMessage(message);
+            } finally {
+                stats.endSend(System.nanoTime(), message.getPayloadLength());
+            }
+        }
+    }
+}
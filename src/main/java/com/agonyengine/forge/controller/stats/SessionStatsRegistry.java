@@ -0,0 +1,81 @@
+package com.agonyengine.forge.controller.stats;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link SessionStats} for every open WebSocket session, keyed by session ID.
+ */
+@Component
+public class SessionStatsRegistry {
+    private Map<String, SessionStats> sessions = new ConcurrentHashMap<>();
+
+    public SessionStats open(String sessionId) {
+        return sessions.computeIfAbsent(sessionId, SessionStats::new);
+    }
+
+    public SessionStats open(WebSocketSession session) {
+        return sessions.computeIfAbsent(session.getId(), id -> new SessionStats(id, session));
+    }
+
+    public void close(String sessionId) {
+        if (sessionId != null) {
+            sessions.remove(sessionId);
+        }
+    }
+
+    public Optional<SessionStats> find(String sessionId) {
+        return sessionId == null ? Optional.empty() : Optional.ofNullable(sessions.get(sessionId));
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public int getQueued() {
+        return sessions.values().stream().mapToInt(SessionStats::getQueued).sum();
+    }
+
+    public int getStalled(long now) {
+        return (int) sessions.values().stream().filter(stats -> stats.getStalledNanos(now) > 0).count();
+    }
+
+    /**
+     * Finds the sessions that have been slowest to take their output, worst first.
+     * Only the top few are ever held, so this stays cheap with lots of sessions open.
+     *
+     * @param limit how many sessions to return
+     * @param now the current time from {@link System#nanoTime()}
+     * @return up to limit sessions
+     */
+    public List<SessionStats> slowest(int limit, long now) {
+        if (limit < 1) {
+            return new ArrayList<>();
+        }
+
+        Comparator<SessionStats> byWorstSend = Comparator.comparingLong(stats -> stats.getWorstSendNanos(now));
+        PriorityQueue<SessionStats> top = new PriorityQueue<>(limit + 1, byWorstSend);
+
+        sessions.values().forEach(stats -> {
+            top.add(stats);
+
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+
+        List<SessionStats> result = new ArrayList<>(top);
+
+        result.sort(byWorstSend.reversed());
+
+        return result;
+    }
+}
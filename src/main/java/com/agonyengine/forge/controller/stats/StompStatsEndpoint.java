@@ -0,0 +1,137 @@
+package com.agonyengine.forge.controller.stats;
+
+import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Reports on the STOMP plumbing at /actuator/stomp: how busy the channel executors are,
+ * whether the broker is up, and which sessions are slowest to take their output. Nothing
+ * here is more than a scan of the open sessions, so it's fine to poll every few seconds.
+ */
+@Component
+@Endpoint(id = "stomp")
+public class StompStatsEndpoint {
+    static final int DEFAULT_LIMIT = 10;
+
+    private ThreadPoolTaskExecutor clientInboundChannelExecutor;
+    private ThreadPoolTaskExecutor clientOutboundChannelExecutor;
+    private ThreadPoolTaskExecutor brokerChannelExecutor;
+    private SessionStatsRegistry sessionStatsRegistry;
+    private BrokerRelayMonitor brokerRelayMonitor;
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+
+    @Inject
+    public StompStatsEndpoint(
+        @Named("clientInboundChannelExecutor") ThreadPoolTaskExecutor clientInboundChannelExecutor,
+        @Named("clientOutboundChannelExecutor") ThreadPoolTaskExecutor clientOutboundChannelExecutor,
+        @Named("brokerChannelExecutor") ThreadPoolTaskExecutor brokerChannelExecutor,
+        SessionStatsRegistry sessionStatsRegistry,
+        BrokerRelayMonitor brokerRelayMonitor,
+        OnlineCreatureRegistry onlineCreatureRegistry) {
+
+        this.clientInboundChannelExecutor = clientInboundChannelExecutor;
+        this.clientOutboundChannelExecutor = clientOutboundChannelExecutor;
+        this.brokerChannelExecutor = brokerChannelExecutor;
+        this.sessionStatsRegistry = sessionStatsRegistry;
+        this.brokerRelayMonitor = brokerRelayMonitor;
+        this.onlineCreatureRegistry = onlineCreatureRegistry;
+    }
+
+    /**
+     * Builds the report.
+     *
+     * @param limit how many of the slowest sessions to list
+     * @return the report, ready to be written out as JSON
+     */
+    @ReadOperation
+    public Map<String, Object> stats(@Nullable Integer limit) {
+        long now = System.nanoTime();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Object> executors = new LinkedHashMap<>();
+
+        executors.put("clientInbound", describeExecutor(clientInboundChannelExecutor));
+        executors.put("clientOutbound", describeExecutor(clientOutboundChannelExecutor));
+        executors.put("broker", describeExecutor(brokerChannelExecutor));
+
+        stats.put("executors", executors);
+        stats.put("broker", describeBroker());
+        stats.put("sessions", describeSessions(now));
+        stats.put("slowest", sessionStatsRegistry.slowest(limit == null ? DEFAULT_LIMIT : limit, now)
+            .stream()
+            .map(session -> describeSession(session, now))
+            .collect(Collectors.toList()));
+
+        return stats;
+    }
+
+    private static Map<String, Object> describeExecutor(ThreadPoolTaskExecutor executor) {
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        int active = pool.getActiveCount();
+        int poolSize = pool.getPoolSize();
+
+        stats.put("active", active);
+        stats.put("poolSize", poolSize);
+        stats.put("corePoolSize", pool.getCorePoolSize());
+        stats.put("maxPoolSize", pool.getMaximumPoolSize());
+        stats.put("largestPoolSize", pool.getLargestPoolSize());
+
+        // with an unbounded queue the pool never grows past its core size, so that is the real limit
+        stats.put("saturation", (double) active / Math.max(1, Math.max(pool.getCorePoolSize(), poolSize)));
+        stats.put("queued", pool.getQueue().size());
+        stats.put("queueRemaining", pool.getQueue().remainingCapacity());
+        stats.put("completed", pool.getCompletedTaskCount());
+
+        return stats;
+    }
+
+    private Map<String, Object> describeBroker() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        stats.put("available", brokerRelayMonitor.isAvailable());
+        stats.put("changedAt", brokerRelayMonitor.getChangedAt());
+        stats.put("reconnects", brokerRelayMonitor.getReconnects());
+        stats.put("disconnects", brokerRelayMonitor.getDisconnects());
+        stats.put("relayConnections", brokerRelayMonitor.getRelayConnections());
+
+        return stats;
+    }
+
+    private Map<String, Object> describeSessions(long now) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        stats.put("open", sessionStatsRegistry.size());
+        stats.put("queued", sessionStatsRegistry.getQueued());
+        stats.put("stalled", sessionStatsRegistry.getStalled(now));
+
+        return stats;
+    }
+
+    private Map<String, Object> describeSession(SessionStats session, long now) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        stats.put("session", session.getSessionId());
+        stats.put("name", onlineCreatureRegistry.findBySessionId(session.getSessionId()).map(Creature::getName).orElse(null));
+        stats.put("queued", session.getQueued());
+        stats.put("stalledMillis", TimeUnit.NANOSECONDS.toMillis(session.getStalledNanos(now)));
+        stats.put("maxSendMillis", TimeUnit.NANOSECONDS.toMillis(session.getMaxSendNanos()));
+        stats.put("averageSendMicros", TimeUnit.NANOSECONDS.toMicros(session.getAverageSendNanos()));
+        stats.put("messagesSent", session.getMessagesSent());
+        stats.put("bytesSent", session.getBytesSent());
+
+        return stats;
+    }
+}
@@ -0,0 +1,61 @@
+package com.agonyengine.forge.controller.throttle;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket that holds up to burst tokens and gains refillPerSecond of them
+ * every second. Rather than counting tokens it tracks the time at which the bucket
+ * will be full again, so a check is a couple of subtractions on primitives and
+ * never allocates.
+ */
+public class TokenBucket {
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private long fullAt;
+    private boolean throttled;
+
+    public TokenBucket(int burst, int refillPerSecond, long now) {
+        if (burst < 1 || refillPerSecond < 1) {
+            throw new IllegalArgumentException("Burst and refill must both be at least 1");
+        }
+
+        this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / refillPerSecond;
+        this.capacityNanos = nanosPerToken * burst;
+        this.fullAt = now;
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @param now the current time from {@link System#nanoTime()}
+     * @return true if a token was taken
+     */
+    public synchronized boolean tryConsume(long now) {
+        long next = (now - fullAt > 0 ? now : fullAt) + nanosPerToken;
+
+        if (next - now > capacityNanos) {
+            return false;
+        }
+
+        fullAt = next;
+        throttled = false;
+
+        return true;
+    }
+
+    /**
+     * Reports whether this is the first rejection since the last token was taken,
+     * so that a flood gets one warning rather than one per message.
+     *
+     * @return true the first time it's called after tryConsume starts failing
+     */
+    public synchronized boolean warn() {
+        if (throttled) {
+            return false;
+        }
+
+        throttled = true;
+
+        return true;
+    }
+}
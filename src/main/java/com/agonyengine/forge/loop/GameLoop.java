@@ -0,0 +1,108 @@
+package com.agonyengine.forge.loop;
+
+import com.agonyengine.forge.config.GameLoopProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs every {@link PulseListener} once per pulse on a single dedicated thread, so
+ * that everything driven by the loop sees the same steady cadence.
+ */
+@Component
+public class GameLoop {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameLoop.class);
+
+    private List<PulseListener> listeners;
+    private long pulseNanos;
+    private Timer tickTimer;
+    private Counter overrunCounter;
+    private AtomicLong lagNanos = new AtomicLong();
+    private ScheduledExecutorService executor;
+    private long startNanos;
+    private long pulse = 0;
+
+    @Inject
+    public GameLoop(List<PulseListener> listeners, GameLoopProperties gameLoopProperties, MeterRegistry meterRegistry) {
+        this.listeners = listeners;
+        this.pulseNanos = TimeUnit.MILLISECONDS.toNanos(gameLoopProperties.getPulse());
+
+        tickTimer = Timer.builder("agony.loop.tick")
+            .description("Time spent running the pulse listeners for one tick")
+            .register(meterRegistry);
+
+        overrunCounter = Counter.builder("agony.loop.overrun")
+            .description("Ticks that took longer than one pulse")
+            .register(meterRegistry);
+
+        TimeGauge.builder("agony.loop.lag", lagNanos, TimeUnit.NANOSECONDS, AtomicLong::get)
+            .description("How late the most recent tick started")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-loop");
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        startNanos = System.nanoTime();
+        executor.scheduleAtFixedRate(this::tick, pulseNanos, pulseNanos, TimeUnit.NANOSECONDS);
+
+        LOGGER.info("Game loop started with {} listeners and a {}ms pulse", listeners.size(), TimeUnit.NANOSECONDS.toMillis(pulseNanos));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public void tick() {
+        long begin = System.nanoTime();
+
+        pulse++;
+        lagNanos.set(Math.max(0, begin - (startNanos + pulse * pulseNanos)));
+
+        for (PulseListener listener : listeners) {
+            // one broken listener must not stop the loop, because the executor quietly gives up on a task
+            // once anything escapes it, Errors included
+            try {
+                listener.onPulse(pulse);
+            } catch (Throwable t) {
+                LOGGER.error("Pulse listener {} threw {}", listener.getClass().getSimpleName(), t.getClass().getSimpleName(), t);
+            }
+        }
+
+        long duration = System.nanoTime() - begin;
+
+        tickTimer.record(duration, TimeUnit.NANOSECONDS);
+
+        if (duration > pulseNanos) {
+            overrunCounter.increment();
+            LOGGER.warn("Pulse {} overran by {}ms", pulse, TimeUnit.NANOSECONDS.toMillis(duration - pulseNanos));
+        }
+    }
+
+    public long getPulse() {
+        return pulse;
+    }
+}
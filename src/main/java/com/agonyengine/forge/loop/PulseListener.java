@@ -0,0 +1,9 @@
+package com.agonyengine.forge.loop;
+
+/**
+ * Anything that needs to do some work on every tick of the {@link GameLoop}.
+ * Listeners run in the order given by Spring's {@code @Order} annotation.
+ */
+public interface PulseListener {
+    void onPulse(long pulse);
+}
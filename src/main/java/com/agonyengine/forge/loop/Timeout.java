@@ -0,0 +1,79 @@
+package com.agonyengine.forge.loop;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A callback waiting in the {@link TimingWheel}. Each one is a node in the doubly
+ * linked list of the slot it is waiting in, so it can be unlinked without a search.
+ */
+public class Timeout {
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    private final TimingWheel wheel;
+    private final Runnable task;
+    private final long delay;
+    private final long period;
+
+    private volatile int state = PENDING;
+
+    // everything below here belongs to the game loop thread
+    long deadline;
+    Timeout prev;
+    Timeout next;
+    TimingWheel.Bucket bucket;
+
+    Timeout(TimingWheel wheel, Runnable task, long delay, long period) {
+        this.wheel = wheel;
+        this.task = task;
+        this.delay = delay;
+        this.period = period;
+    }
+
+    /**
+     * Stops the callback from running. Calling it more than once, or after a one-time
+     * callback has already run, does nothing.
+     *
+     * @return true if this call is what cancelled it
+     */
+    public boolean cancel() {
+        if (STATE.compareAndSet(this, PENDING, CANCELLED)) {
+            wheel.cancelled(this);
+            return true;
+        }
+
+        return false;
+    }
+
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    public boolean isExpired() {
+        return state == EXPIRED;
+    }
+
+    Runnable getTask() {
+        return task;
+    }
+
+    long getDelay() {
+        return delay;
+    }
+
+    long getPeriod() {
+        return period;
+    }
+
+    boolean isRecurring() {
+        return period > 0;
+    }
+
+    boolean expire() {
+        return STATE.compareAndSet(this, PENDING, EXPIRED);
+    }
+}
@@ -0,0 +1,246 @@
+package com.agonyengine.forge.loop;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs callbacks after a delay measured in pulses of the {@link GameLoop}.
+ *
+ * The wheel has four levels of 64 slots. Level 0 holds callbacks due within the
+ * next 64 pulses, one slot per pulse. Each level above holds callbacks 64 times
+ * further out, and a slot is moved down a level ("cascaded") when the wheel gets
+ * to it. Adding and cancelling a callback are constant time, and a callback costs
+ * one small object however many are waiting.
+ *
+ * Callbacks can be scheduled and cancelled from any thread. They are handed to the
+ * game loop thread through queues, and they always run on the game loop thread.
+ */
+@Component
+@Order(0)
+public class TimingWheel implements PulseListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimingWheel.class);
+
+    static final int LEVELS = 4;
+    static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int SLOT_MASK = SLOTS - 1;
+
+    private final Bucket[][] wheels = new Bucket[LEVELS][SLOTS];
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private long currentTick = 0;
+
+    public TimingWheel() {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheels[level][slot] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * Runs a callback once, after a number of pulses.
+     *
+     * @param task the callback
+     * @param delay how many pulses to wait; anything less than 1 means the next pulse
+     * @return a handle for cancelling the callback
+     */
+    public Timeout schedule(Runnable task, long delay) {
+        return add(new Timeout(this, task, delay, 0));
+    }
+
+    /**
+     * Runs a callback over and over, until it's cancelled.
+     *
+     * @param task the callback
+     * @param initialDelay how many pulses to wait before the first run
+     * @param period how many pulses to wait between runs
+     * @return a handle for cancelling the callback
+     */
+    public Timeout scheduleRecurring(Runnable task, long initialDelay, long period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("Period must be at least one pulse");
+        }
+
+        return add(new Timeout(this, task, initialDelay, period));
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void onPulse(long pulse) {
+        advance();
+    }
+
+    void advance() {
+        Timeout timeout;
+
+        while ((timeout = scheduled.poll()) != null) {
+            if (!timeout.isCancelled()) {
+                timeout.deadline = currentTick + Math.max(1, timeout.getDelay());
+                place(timeout);
+            }
+        }
+
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+
+        currentTick++;
+
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = level * SLOT_BITS;
+
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                break;
+            }
+
+            cascade(wheels[level][(int) ((currentTick >>> shift) & SLOT_MASK)]);
+        }
+
+        expire(wheels[0][(int) (currentTick & SLOT_MASK)]);
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    void cancelled(Timeout timeout) {
+        size.decrementAndGet();
+        cancelled.add(timeout);
+    }
+
+    private Timeout add(Timeout timeout) {
+        size.incrementAndGet();
+        scheduled.add(timeout);
+
+        return timeout;
+    }
+
+    private void place(Timeout timeout) {
+        long delta = timeout.deadline - currentTick;
+
+        for (int level = 0; level < LEVELS - 1; level++) {
+            if (delta < (1L << ((level + 1) * SLOT_BITS))) {
+                wheels[level][(int) ((timeout.deadline >>> (level * SLOT_BITS)) & SLOT_MASK)].add(timeout);
+                return;
+            }
+        }
+
+        // anything further out than the top level can reach gets cascaded back into it until it's close enough
+        int shift = (LEVELS - 1) * SLOT_BITS;
+        long deadline = Math.min(timeout.deadline, currentTick + (1L << (shift + SLOT_BITS)) - 1);
+
+        wheels[LEVELS - 1][(int) ((deadline >>> shift) & SLOT_MASK)].add(timeout);
+    }
+
+    private void cascade(Bucket bucket) {
+        Timeout timeout = bucket.clear();
+
+        while (timeout != null) {
+            Timeout next = timeout.next;
+
+            timeout.prev = null;
+            timeout.next = null;
+
+            if (!timeout.isCancelled()) {
+                place(timeout);
+            }
+
+            timeout = next;
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.clear();
+
+        while (timeout != null) {
+            Timeout next = timeout.next;
+
+            timeout.prev = null;
+            timeout.next = null;
+
+            if (timeout.isRecurring()) {
+                if (!timeout.isCancelled()) {
+                    run(timeout);
+                    timeout.deadline = currentTick + timeout.getPeriod();
+                    place(timeout);
+                }
+            } else if (timeout.expire()) {
+                size.decrementAndGet();
+                run(timeout);
+            }
+
+            timeout = next;
+        }
+    }
+
+    private void run(Timeout timeout) {
+        try {
+            timeout.getTask().run();
+        } catch (RuntimeException e) {
+            LOGGER.error("Timer callback threw an exception", e);
+        }
+    }
+
+    static class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        Timeout clear() {
+            Timeout first = head;
+
+            for (Timeout timeout = head; timeout != null; timeout = timeout.next) {
+                timeout.bucket = null;
+            }
+
+            head = null;
+            tail = null;
+
+            return first;
+        }
+    }
+}
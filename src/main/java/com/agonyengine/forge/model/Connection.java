@@ -30,6 +30,26 @@ public class Connection {
 
     private String secondaryState;
 
+    public Connection() {
+        // this method intentionally left blank
+    }
+
+    /**
+     * Copies everything that gets written to the database.
+     *
+     * @param other the Connection to copy
+     */
+    public Connection(Connection other) {
+        this.id = other.id;
+        this.sessionUsername = other.sessionUsername;
+        this.sessionId = other.sessionId;
+        this.httpSessionId = other.httpSessionId;
+        this.remoteAddress = other.remoteAddress;
+        this.name = other.name;
+        this.primaryState = other.primaryState;
+        this.secondaryState = other.secondaryState;
+    }
+
     public UUID getId() {
         return id;
     }
@@ -0,0 +1,151 @@
+package com.agonyengine.forge.repository;
+
+import com.agonyengine.forge.model.Connection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the Connection for each open session in memory so that commands don't have
+ * to read and write it in the database every time. Changes are written behind in
+ * batches by {@link #flush()}, and once more when the session goes away.
+ *
+ * Saving takes a copy of the Connection on the thread that changed it, and only
+ * copies are ever written. That way a write never sees a Connection half way through
+ * being changed by a command, and the cached instance is never handed to Hibernate.
+ */
+@Component
+public class ConnectionCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionCache.class);
+
+    private Map<UUID, Connection> connections = new ConcurrentHashMap<>();
+    private Map<UUID, Connection> snapshots = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private ConnectionRepository connectionRepository;
+
+    @Inject
+    public ConnectionCache(ConnectionRepository connectionRepository) {
+        this.connectionRepository = connectionRepository;
+    }
+
+    public Optional<Connection> findById(UUID id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        Connection connection = connections.get(id);
+
+        if (connection != null) {
+            return Optional.of(connection);
+        }
+
+        return connectionRepository
+            .findById(id)
+            .map(loaded -> {
+                Connection existing = connections.putIfAbsent(id, loaded);
+
+                return existing == null ? loaded : existing;
+            });
+    }
+
+    /**
+     * Saves a Connection. New Connections are written right away so that they get an ID,
+     * but changes to existing ones are copied and the copy is written by the next flush.
+     * Call this from the thread that made the changes, once they are all made.
+     *
+     * @param connection the Connection to save
+     * @return the cached Connection
+     */
+    public Connection save(Connection connection) {
+        if (connection.getId() == null) {
+            Connection saved = connectionRepository.save(connection);
+
+            connections.put(saved.getId(), saved);
+
+            return saved;
+        }
+
+        connections.put(connection.getId(), connection);
+        snapshots.put(connection.getId(), new Connection(connection));
+
+        return connection;
+    }
+
+    /**
+     * Writes a Connection to the database right away, for when something else is about
+     * to be persisted that refers to it. The copy the repository hands back replaces the
+     * one in the cache.
+     *
+     * @param connection the Connection to save
+     * @return the saved Connection, which should be used from now on
+     */
+    public Connection saveAndFlush(Connection connection) {
+        synchronized (writeLock) {
+            if (connection.getId() != null) {
+                snapshots.remove(connection.getId());
+            }
+
+            Connection saved = connectionRepository.save(connection);
+
+            connections.put(saved.getId(), saved);
+
+            return saved;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${agony.connection.flush-interval:1000}")
+    public void flush() {
+        // held while writing so that an older copy can never be written after a newer one
+        synchronized (writeLock) {
+            List<Connection> batch = new ArrayList<>();
+
+            snapshots.forEach((id, snapshot) -> {
+                // a copy saved since we looked stays behind for the next flush
+                if (snapshots.remove(id, snapshot)) {
+                    batch.add(snapshot);
+                }
+            });
+
+            if (!batch.isEmpty()) {
+                connectionRepository.updateAll(batch);
+
+                LOGGER.debug("Wrote {} connections", batch.size());
+            }
+        }
+    }
+
+    /**
+     * Removes a Connection from the cache, writing it first if it has unsaved changes.
+     *
+     * @param id the ID of the Connection
+     */
+    public void evict(UUID id) {
+        if (id == null) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            Connection snapshot = snapshots.remove(id);
+
+            connections.remove(id);
+
+            if (snapshot != null) {
+                connectionRepository.updateAll(Collections.singletonList(snapshot));
+            }
+        }
+    }
+
+    public int size() {
+        return connections.size();
+    }
+}
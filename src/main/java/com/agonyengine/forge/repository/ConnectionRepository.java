@@ -5,5 +5,5 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.UUID;
 
-public interface ConnectionRepository extends JpaRepository<Connection, UUID> {
+public interface ConnectionRepository extends JpaRepository<Connection, UUID>, ConnectionRepositoryCustom {
 }
@@ -0,0 +1,16 @@
+package com.agonyengine.forge.repository;
+
+import com.agonyengine.forge.model.Connection;
+
+import java.util.Collection;
+
+public interface ConnectionRepositoryCustom {
+    /**
+     * Writes Connections that are already in the database without reading them
+     * back first, in as few batches as Hibernate's batch size allows. Each one is
+     * attached to the persistence context, so they must not be used afterwards.
+     *
+     * @param connections the Connections to write
+     */
+    void updateAll(Collection<Connection> connections);
+}
@@ -0,0 +1,23 @@
+package com.agonyengine.forge.repository;
+
+import com.agonyengine.forge.model.Connection;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.util.Collection;
+
+public class ConnectionRepositoryImpl implements ConnectionRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // update() schedules an UPDATE straight away, where merge() would SELECT each row first
+    @Transactional
+    @Override
+    public void updateAll(Collection<Connection> connections) {
+        Session session = entityManager.unwrap(Session.class);
+
+        connections.forEach(session::update);
+    }
+}
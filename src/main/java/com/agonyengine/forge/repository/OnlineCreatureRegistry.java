@@ -0,0 +1,81 @@
+package com.agonyengine.forge.repository;
+
+import com.agonyengine.forge.model.Connection;
+import com.agonyengine.forge.model.Creature;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps track of the Creatures that are currently connected to the game so that
+ * broadcasts can find their recipients without going to the database.
+ */
+@Component
+public class OnlineCreatureRegistry {
+    private Map<UUID, Creature> creaturesById = new ConcurrentHashMap<>();
+    private Map<String, Creature> creaturesBySessionUsername = new ConcurrentHashMap<>();
+    private Map<String, Creature> creaturesBySessionId = new ConcurrentHashMap<>();
+
+    public void register(Creature creature) {
+        Connection connection = creature.getConnection();
+
+        if (connection == null || connection.getSessionUsername() == null) {
+            return;
+        }
+
+        if (creature.getId() != null) {
+            creaturesById.put(creature.getId(), creature);
+        }
+
+        if (connection.getSessionId() != null) {
+            creaturesBySessionId.put(connection.getSessionId(), creature);
+        }
+
+        creaturesBySessionUsername.put(connection.getSessionUsername(), creature);
+    }
+
+    public Optional<Creature> unregister(String sessionUsername) {
+        if (sessionUsername == null) {
+            return Optional.empty();
+        }
+
+        Optional<Creature> removed = Optional.ofNullable(creaturesBySessionUsername.remove(sessionUsername));
+
+        removed.ifPresent(creature -> {
+            if (creature.getId() != null) {
+                creaturesById.remove(creature.getId());
+            }
+
+            if (creature.getConnection().getSessionId() != null) {
+                creaturesBySessionId.remove(creature.getConnection().getSessionId());
+            }
+        });
+
+        return removed;
+    }
+
+    public Optional<Creature> findById(UUID id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(creaturesById.get(id));
+    }
+
+    public Optional<Creature> findBySessionUsername(String sessionUsername) {
+        return sessionUsername == null ? Optional.empty() : Optional.ofNullable(creaturesBySessionUsername.get(sessionUsername));
+    }
+
+    public Optional<Creature> findBySessionId(String sessionId) {
+        return sessionId == null ? Optional.empty() : Optional.ofNullable(creaturesBySessionId.get(sessionId));
+    }
+
+    // weakly consistent, so it's safe to iterate while Creatures log in and out
+    public Stream<Creature> stream() {
+        return creaturesBySessionUsername.values().stream();
+    }
+
+    public int size() {
+        return creaturesBySessionUsername.size();
+    }
+}
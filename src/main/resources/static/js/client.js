@@ -6,6 +6,23 @@ var commandHistory = [];
 var commandHistoryIndex = -1;
 var commandHistoryLength = 50;
 var scrollBackLength = 500;
+var lastPrompt = [];
+var lastSequence = null; // the server's count of lines we've seen, so a reconnect only replays what we missed
+var wireFormat = "json"; // or "compact" to have colors sent as single characters
+var colorEscapeBase = 0xA1;
+var colorClasses = [
+    "default",
+    "dblack", "black",
+    "dwhite", "white",
+    "dred", "red",
+    "dyellow", "yellow",
+    "dgreen", "green",
+    "dcyan", "cyan",
+    "dblue", "blue",
+    "dmagenta", "magenta"
+];
+// only the colors above are markup, same as the compact format; any other [tag] is just text
+var colorTags = new RegExp("\\[(" + colorClasses.join("|") + ")]", "g");
 
 $(document).ready(function () {
     $("form").submit(function (event) {
@@ -67,8 +84,19 @@ function connect() {
 
             reconnectDelay = 2;
 
+            var outputHeaders = { 'agony-format': wireFormat };
+
+            if (lastSequence !== null) {
+                outputHeaders['agony-seq'] = lastSequence;
+            }
+
             stompClient.subscribe('/user/queue/output', function (message) {
-                    var msg = JSON.parse(message.body);
+                    var msg = decodeOutput(message);
+
+                    if (message.headers['agony-seq'] !== undefined) {
+                        lastSequence = message.headers['agony-seq'];
+                    }
+
                     var plainInput = $("#user-input");
                     var passwordInput = $("#user-password");
 
@@ -82,7 +110,20 @@ function connect() {
                         plainInput.focus();
                     }
 
-                    showOutput(msg.output);
+                    if (msg.output.length > 0) {
+                        lastPrompt = msg.output.slice(-1);
+                    }
+
+                    showHtml(msg.output);
+                },
+                outputHeaders);
+
+            // the server takes channel messages off this subscription and sends them
+            // through /user/queue/output with our prompt, so nothing should arrive here
+            stompClient.subscribe('/topic/channel.gossip', function (message) {
+                    var msg = decodeOutput(message);
+
+                    showHtml(msg.output.concat(lastPrompt));
                 },
                 {});
         },
@@ -128,15 +169,45 @@ function sendInput() {
     inputBox.val('');
 }
 
+function decodeOutput(message) {
+    if (String(message.headers['content-type']).indexOf('text/x-agony-compact') === 0) {
+        return decodeCompact(message.body);
+    }
+
+    var msg = JSON.parse(message.body);
+
+    return { secret: msg.secret, output: msg.output.map(replaceColors) };
+}
+
+// a 1 or 0 for the secret flag, then each line as <length>:<line>
+function decodeCompact(body) {
+    var lines = [];
+    var i = 1;
+
+    while (i < body.length) {
+        var colon = body.indexOf(':', i);
+        var length = parseInt(body.substring(i, colon), 10);
+
+        lines.push(replaceColorEscapes(body.substr(colon + 1, length)));
+        i = colon + 1 + length;
+    }
+
+    return { secret: body.charAt(0) === '1', output: lines };
+}
+
 function showOutput(message) {
+    showHtml(message.map(replaceColors));
+}
+
+function showHtml(lines) {
     var outputBox = $("#output-box");
     var outputList = $("#output-list");
 
-    for (var i = 0; i < message.length; i++) {
-        if ("" === message[i]) {
+    for (var i = 0; i < lines.length; i++) {
+        if ("" === lines[i]) {
             outputList.append("<li>&nbsp;</li>");
         } else {
-            outputList.append("<li>" + replaceColors(message[i]) + "</li>");
+            outputList.append("<li>" + lines[i] + "</li>");
         }
     }
 
@@ -150,7 +221,23 @@ function showOutput(message) {
 }
 
 function replaceColors(message) {
-    return String(message).replace(/\[(\w+)]/g, "<span class='$1'>");
+    return String(message).replace(colorTags, "<span class='$1'>");
+}
+
+function replaceColorEscapes(line) {
+    var html = "";
+    var start = 0;
+
+    for (var i = 0; i < line.length; i++) {
+        var color = line.charCodeAt(i) - colorEscapeBase;
+
+        if (color >= 0 && color < colorClasses.length) {
+            html += line.substring(start, i) + "<span class='" + colorClasses[color] + "'>";
+            start = i + 1;
+        }
+    }
+
+    return html + line.substring(start);
 }
 
 function htmlEscape(str) {
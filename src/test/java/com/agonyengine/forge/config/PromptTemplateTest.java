@@ -0,0 +1,117 @@
+package com.agonyengine.forge.config;
+
+import com.agonyengine.forge.model.Connection;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class PromptTemplateTest {
+    private Connection connection = new Connection();
+
+    @Before
+    public void setUp() {
+        connection.setName("Dani");
+        connection.setRemoteAddress("8.8.8.8");
+    }
+
+    @Test
+    public void testLiteral() {
+        assertEquals("[default]Name: ", PromptTemplate.compile("[default]Name: ").render(connection));
+        assertEquals("", PromptTemplate.compile("").render(connection));
+    }
+
+    @Test
+    public void testVariables() {
+        PromptTemplate template = PromptTemplate.compile("[default]%name%@%address%> ");
+
+        assertEquals("[default]Dani@8.8.8.8> ", template.render(connection));
+        assertEquals("[default]%name%@%address%> ", template.toString());
+    }
+
+    @Test
+    public void testRepeatedAndAdjacent() {
+        assertEquals("DaniDani", PromptTemplate.compile("%name%%name%").render(connection));
+    }
+
+    @Test
+    public void testMissingValue() {
+        connection.setName(null);
+
+        assertEquals("Are you sure '???' is the name you want?", PromptTemplate
+            .compile("Are you sure '%name%' is the name you want?")
+            .render(connection));
+    }
+
+    @Test
+    public void testPercentSigns() {
+        assertEquals("100% Dani%", PromptTemplate.compile("100%% %name%%%").render(connection));
+        assertEquals("50% off %bogus% Dani", PromptTemplate.compile("50% off %bogus% %name%").render(connection));
+        assertEquals("trailing %", PromptTemplate.compile("trailing %").render(connection));
+    }
+
+    @Test
+    public void testLoginConfiguration() {
+        LoginConfiguration loginConfiguration = new LoginConfiguration();
+
+        loginConfiguration.setPrompt(Collections.singletonMap("inGame", "[default]%name%> "));
+
+        assertEquals("[default]Dani> ", loginConfiguration.getPrompt("inGame", connection));
+        assertEquals("[red]Oops! This prompt is undefined!", loginConfiguration.getPrompt("bogus", connection));
+    }
+
+    @Test
+    public void testLoginConfigurationCachesPrompt() {
+        LoginConfiguration loginConfiguration = new LoginConfiguration();
+
+        connection.setId(UUID.randomUUID());
+        loginConfiguration.setPrompt(Collections.singletonMap("inGame", "[default]%name%> "));
+
+        String first = loginConfiguration.getPrompt("inGame", connection);
+
+        assertSame(first, loginConfiguration.getPrompt("inGame", connection));
+
+        connection.setName("Scion");
+        loginConfiguration.invalidatePrompt(connection.getId());
+
+        String second = loginConfiguration.getPrompt("inGame", connection);
+
+        assertEquals("[default]Scion> ", second);
+        assertSame(second, loginConfiguration.getPrompt("inGame", connection));
+    }
+
+    @Test
+    public void testLoginConfigurationCacheIsPerTemplate() {
+        LoginConfiguration loginConfiguration = new LoginConfiguration();
+        Map<String, String> prompt = new HashMap<>();
+
+        prompt.put("one", "one %name%");
+        prompt.put("two", "two %name%");
+
+        connection.setId(UUID.randomUUID());
+        loginConfiguration.setPrompt(prompt);
+
+        assertEquals("one Dani", loginConfiguration.getPrompt("one", connection));
+        assertEquals("two Dani", loginConfiguration.getPrompt("two", connection));
+        assertEquals("one Dani", loginConfiguration.getPrompt("one", connection));
+    }
+
+    @Test
+    public void testLoginConfigurationNoId() {
+        LoginConfiguration loginConfiguration = new LoginConfiguration();
+
+        loginConfiguration.setPrompt(Collections.singletonMap("inGame", "[default]%name%> "));
+
+        assertEquals("[default]Dani> ", loginConfiguration.getPrompt("inGame", connection));
+
+        connection.setName("Scion");
+        loginConfiguration.invalidatePrompt(connection.getId());
+
+        assertEquals("[default]Scion> ", loginConfiguration.getPrompt("inGame", connection));
+    }
+}
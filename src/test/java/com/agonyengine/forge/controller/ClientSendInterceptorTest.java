@@ -0,0 +1,88 @@
+package com.agonyengine.forge.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ClientSendInterceptorTest {
+    @Mock
+    private MessageChannel messageChannel;
+
+    private ClientSendInterceptor interceptor;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        interceptor = new ClientSendInterceptor(Collections.singletonList("/app/"));
+    }
+
+    @Test
+    public void testSendToApplication() {
+        Message<byte[]> message = buildMessage(SimpMessageType.MESSAGE, "/app/input");
+
+        assertSame(message, interceptor.preSend(message, messageChannel));
+    }
+
+    @Test
+    public void testSendToChannelTopic() {
+        Message<byte[]> message = buildMessage(SimpMessageType.MESSAGE, "/topic/channel.gossip");
+
+        assertNull(interceptor.preSend(message, messageChannel));
+    }
+
+    @Test
+    public void testSendToQueue() {
+        Message<byte[]> message = buildMessage(SimpMessageType.MESSAGE, "/queue/output-userabcd1234");
+
+        assertNull(interceptor.preSend(message, messageChannel));
+    }
+
+    @Test
+    public void testSendToUserDestination() {
+        Message<byte[]> message = buildMessage(SimpMessageType.MESSAGE, "/user/dani/queue/output");
+
+        assertNull(interceptor.preSend(message, messageChannel));
+    }
+
+    @Test
+    public void testSendLookalikePrefix() {
+        Message<byte[]> message = buildMessage(SimpMessageType.MESSAGE, "/application/../topic/channel.gossip");
+
+        assertNull(interceptor.preSend(message, messageChannel));
+    }
+
+    @Test
+    public void testSendNoDestination() {
+        Message<byte[]> message = buildMessage(SimpMessageType.MESSAGE, null);
+
+        assertNull(interceptor.preSend(message, messageChannel));
+    }
+
+    @Test
+    public void testSubscribe() {
+        Message<byte[]> message = buildMessage(SimpMessageType.SUBSCRIBE, "/topic/channel.gossip");
+
+        assertSame(message, interceptor.preSend(message, messageChannel));
+    }
+
+    private Message<byte[]> buildMessage(SimpMessageType type, String destination) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(type);
+
+        headerAccessor.setDestination(destination);
+        headerAccessor.setSessionId("dani-session-id");
+
+        return MessageBuilder.createMessage("{\"output\":[\"<script>\"]}".getBytes(), headerAccessor.getMessageHeaders());
+    }
+}
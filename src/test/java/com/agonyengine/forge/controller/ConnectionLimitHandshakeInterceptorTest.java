@@ -0,0 +1,179 @@
+package com.agonyengine.forge.controller;
+
+import com.agonyengine.forge.controller.ip.ConnectionLimiter;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.agonyengine.forge.controller.ControllerConstants.AGONY_CONNECTION_LIMIT_KEY;
+import static com.agonyengine.forge.controller.ControllerConstants.AGONY_REMOTE_IP_KEY;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ConnectionLimitHandshakeInterceptorTest {
+    @Mock
+    private ConnectionLimiter connectionLimiter;
+
+    @Mock
+    private ServerHttpRequest request;
+
+    @Mock
+    private ServerHttpResponse response;
+
+    @Mock
+    private WebSocketHandler wsHandler;
+
+    @Mock
+    private ServletServerHttpRequest servletRequest;
+
+    @Mock
+    private HttpServletRequest httpServletRequest;
+
+    @Mock
+    private ServletServerHttpResponse servletResponse;
+
+    @Mock
+    private HttpServletResponse httpServletResponse;
+
+    private HttpHeaders httpHeaders = new HttpHeaders();
+    private Map<String, Object> attributes = new HashMap<>();
+    private ConnectionLimitHandshakeInterceptor interceptor;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        httpHeaders.setUpgrade("websocket");
+        attributes.put(AGONY_REMOTE_IP_KEY, "8.8.8.8");
+
+        when(servletRequest.getServletRequest()).thenReturn(httpServletRequest);
+        when(servletRequest.getHeaders()).thenReturn(httpHeaders);
+        when(httpServletRequest.getAttribute(ConnectionLimitHandshakeInterceptor.ATTRIBUTES_ATTR)).thenReturn(attributes);
+        when(servletResponse.getServletResponse()).thenReturn(httpServletResponse);
+        when(connectionLimiter.acquire("8.8.8.8")).thenReturn(true);
+
+        interceptor = new ConnectionLimitHandshakeInterceptor(connectionLimiter);
+    }
+
+    @Test
+    public void testBeforeHandshake() {
+        Map<String, Object> attributes = new HashMap<>();
+
+        attributes.put(AGONY_REMOTE_IP_KEY, "8.8.8.8");
+
+        when(connectionLimiter.acquire("8.8.8.8")).thenReturn(true);
+
+        assertTrue(interceptor.beforeHandshake(request, response, wsHandler, attributes));
+
+        assertEquals("8.8.8.8", attributes.get(AGONY_CONNECTION_LIMIT_KEY));
+        verifyZeroInteractions(response);
+    }
+
+    @Test
+    public void testBeforeHandshakeTooMany() {
+        Map<String, Object> attributes = new HashMap<>();
+
+        attributes.put(AGONY_REMOTE_IP_KEY, "8.8.8.8");
+
+        when(connectionLimiter.acquire("8.8.8.8")).thenReturn(false);
+
+        assertFalse(interceptor.beforeHandshake(request, response, wsHandler, attributes));
+
+        assertFalse(attributes.containsKey(AGONY_CONNECTION_LIMIT_KEY));
+        verify(response).setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    public void testBeforeHandshakeNoAddress() {
+        Map<String, Object> attributes = new HashMap<>();
+
+        assertTrue(interceptor.beforeHandshake(request, response, wsHandler, attributes));
+
+        verify(connectionLimiter, never()).acquire(any());
+    }
+
+    @Test
+    public void testBeforeHandshakeServlet() {
+        assertTrue(interceptor.beforeHandshake(servletRequest, servletResponse, wsHandler, attributes));
+
+        verify(httpServletRequest).setAttribute(ConnectionLimitHandshakeInterceptor.ATTRIBUTES_ATTR, attributes);
+    }
+
+    @Test
+    public void testAfterHandshake() {
+        interceptor.afterHandshake(request, response, wsHandler, null);
+
+        verifyZeroInteractions(request, response, wsHandler, connectionLimiter);
+    }
+
+    @Test
+    public void testAfterHandshakeUpgraded() {
+        when(httpServletResponse.getStatus()).thenReturn(HttpStatus.SWITCHING_PROTOCOLS.value());
+
+        interceptor.beforeHandshake(servletRequest, servletResponse, wsHandler, attributes);
+        interceptor.afterHandshake(servletRequest, servletResponse, wsHandler, null);
+
+        verify(connectionLimiter, never()).release(any());
+        assertEquals("8.8.8.8", attributes.get(AGONY_CONNECTION_LIMIT_KEY));
+    }
+
+    @Test
+    public void testAfterHandshakeRejected() {
+        when(httpServletResponse.getStatus()).thenReturn(HttpStatus.BAD_REQUEST.value());
+
+        interceptor.beforeHandshake(servletRequest, servletResponse, wsHandler, attributes);
+        interceptor.afterHandshake(servletRequest, servletResponse, wsHandler, null);
+        interceptor.afterHandshake(servletRequest, servletResponse, wsHandler, null);
+
+        verify(connectionLimiter).release("8.8.8.8");
+        assertFalse(attributes.containsKey(AGONY_CONNECTION_LIMIT_KEY));
+    }
+
+    @Test
+    public void testAfterHandshakeNotUpgraded() {
+        when(httpServletResponse.getStatus()).thenReturn(HttpStatus.OK.value());
+
+        interceptor.beforeHandshake(servletRequest, servletResponse, wsHandler, attributes);
+        interceptor.afterHandshake(servletRequest, servletResponse, wsHandler, null);
+
+        verify(connectionLimiter).release("8.8.8.8");
+    }
+
+    @Test
+    public void testAfterHandshakeException() {
+        when(httpServletResponse.getStatus()).thenReturn(HttpStatus.SWITCHING_PROTOCOLS.value());
+
+        interceptor.beforeHandshake(servletRequest, servletResponse, wsHandler, attributes);
+        interceptor.afterHandshake(servletRequest, servletResponse, wsHandler, new IOException("Connection reset"));
+
+        verify(connectionLimiter).release("8.8.8.8");
+        assertFalse(attributes.containsKey(AGONY_CONNECTION_LIMIT_KEY));
+    }
+
+    @Test
+    public void testAfterHandshakeSockJsFallback() {
+        httpHeaders.remove(HttpHeaders.UPGRADE);
+
+        when(httpServletResponse.getStatus()).thenReturn(HttpStatus.OK.value());
+
+        interceptor.beforeHandshake(servletRequest, servletResponse, wsHandler, attributes);
+        interceptor.afterHandshake(servletRequest, servletResponse, wsHandler, null);
+
+        verify(connectionLimiter, never()).release(any());
+    }
+}
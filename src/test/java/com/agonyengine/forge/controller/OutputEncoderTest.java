@@ -0,0 +1,221 @@
+package com.agonyengine.forge.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public class OutputEncoderTest {
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private OutputEncoder encoder;
+
+    @Before
+    public void setUp() {
+        encoder = new OutputEncoder(objectMapper);
+    }
+
+    @Test
+    public void testEncode() {
+        EncodedOutput encoded = encoder.encode(new Output("one", "two"));
+
+        assertEquals("\"one\",\"two\"", new String(encoded.getLines()));
+        assertFalse(encoded.isEmpty());
+        assertFalse(encoded.getSecret());
+    }
+
+    @Test
+    public void testEncodeEmpty() {
+        EncodedOutput encoded = encoder.encode(new Output());
+
+        assertTrue(encoded.isEmpty());
+    }
+
+    @Test
+    public void testEncodeSecret() {
+        EncodedOutput encoded = encoder.encode(new Output("Password: ").setSecret(true));
+
+        assertTrue(encoded.getSecret());
+    }
+
+    @Test
+    public void testFrame() throws Exception {
+        Output message = new Output("[green]Dani gossips 'Hello, \"world\"!'", "");
+        Output prompt = new Output("[default]Scion> ");
+
+        byte[] frame = encoder.frame(encoder.encode(message), encoder.encode(prompt));
+
+        assertEquals(toJson(new Output(message, prompt)), objectMapper.readTree(frame));
+    }
+
+    @Test
+    public void testFrameSecret() throws Exception {
+        Output message = new Output("[red]Sorry! Please try again!");
+        Output prompt = new Output("[default]Password: ").setSecret(true);
+
+        byte[] frame = encoder.frame(encoder.encode(message), encoder.encode(prompt));
+
+        assertEquals(toJson(new Output(message, prompt)), objectMapper.readTree(frame));
+        assertTrue(objectMapper.readTree(frame).get("secret").asBoolean());
+    }
+
+    @Test
+    public void testFrameSkipsEmptyParts() throws Exception {
+        Output prompt = new Output("[default]> ");
+
+        byte[] frame = encoder.frame(encoder.encode(new Output()), encoder.encode(prompt), encoder.encode(new Output()));
+
+        assertEquals(toJson(prompt), objectMapper.readTree(frame));
+    }
+
+    @Test
+    public void testFrameNoParts() throws Exception {
+        assertEquals(toJson(new Output()), objectMapper.readTree(encoder.frame()));
+    }
+
+    @Test
+    public void testFrameReusesParts() throws Exception {
+        EncodedOutput shared = encoder.encode(new Output("Shared"));
+
+        byte[] first = encoder.frame(shared, encoder.encode(new Output("First> ")));
+        byte[] second = encoder.frame(shared, encoder.encode(new Output("Second> ")));
+
+        assertEquals(toJson(new Output("Shared", "First> ")), objectMapper.readTree(first));
+        assertEquals(toJson(new Output("Shared", "Second> ")), objectMapper.readTree(second));
+    }
+
+    @Test
+    public void testFrameJsonFormat() throws Exception {
+        Output message = new Output("[yellow]Hello");
+
+        assertArrayEquals(
+            encoder.frame(encoder.encode(message)),
+            encoder.frame(WireFormat.JSON, encoder.encode(message)));
+    }
+
+    @Test
+    public void testFrameCompact() {
+        Output message = new Output("[green]Dani gossips 'Hi'", "");
+        Output prompt = new Output("[default]Scion> ");
+
+        byte[] frame = encoder.frame(WireFormat.COMPACT, encoder.encode(message), encoder.encode(prompt));
+
+        assertEquals("0" + "18:\u00ABDani gossips 'Hi'" + "0:" + "8:\u00A1Scion> ", new String(frame, UTF_8));
+    }
+
+    @Test
+    public void testFrameCompactSecret() {
+        Output message = new Output("[red]Sorry! Please try again!");
+        Output prompt = new Output("[default]Password: ").setSecret(true);
+
+        byte[] frame = encoder.frame(WireFormat.COMPACT, encoder.encode(message), encoder.encode(prompt));
+
+        assertEquals("1" + "25:\u00A7Sorry! Please try again!" + "11:\u00A1Password: ", new String(frame, UTF_8));
+    }
+
+    @Test
+    public void testFrameCompactLeavesOtherText() {
+        byte[] frame = encoder.frame(WireFormat.COMPACT, encoder.encode(new Output("\u00A9 [i] [bogus] [y/N] [red")));
+
+        assertEquals("0" + "29:&#169; [i] [bogus] [y/N] [red", new String(frame, UTF_8));
+    }
+
+    @Test
+    public void testUnknownTagsMatchAcrossFormats() throws Exception {
+        EncodedOutput encoded = encoder.encode(new Output(
+            "[yellow]Are you sure? [y/N] [bogus]",
+            "[Yellow]not a color[dred] [x1] [] [default_] [red",
+            "[bold][green]Done."));
+
+        List<String> json = new ArrayList<>();
+
+        objectMapper.readTree(encoder.frame(WireFormat.JSON, encoded)).get("output").forEach(line -> json.add(line.asText()));
+
+        assertEquals(json, decodeCompact(encoder.frame(WireFormat.COMPACT, encoded)));
+    }
+
+    @Test
+    public void testFrameCompactNoParts() {
+        assertEquals("0", new String(encoder.frame(WireFormat.COMPACT), UTF_8));
+        assertEquals("0", new String(encoder.frame(WireFormat.COMPACT, encoder.encode(new Output())), UTF_8));
+    }
+
+    @Test
+    public void testFrameCompactReusesParts() {
+        EncodedOutput shared = encoder.encode(new Output("Shared"));
+
+        assertNull(shared.getCompactLines());
+
+        byte[] first = encoder.frame(WireFormat.COMPACT, shared, encoder.encode(new Output("First> ")));
+        byte[] compact = shared.getCompactLines();
+        byte[] second = encoder.frame(WireFormat.COMPACT, shared, encoder.encode(new Output("Second> ")));
+
+        assertSame(compact, shared.getCompactLines());
+        assertEquals("06:Shared7:First> ", new String(first, UTF_8));
+        assertEquals("06:Shared8:Second> ", new String(second, UTF_8));
+    }
+
+    @Test
+    public void testDecode() {
+        byte[] frame = encoder.frame(encoder.encode(new Output("[green]Dani gossips 'Hello, \"world\"!'", "")));
+        EncodedOutput decoded = encoder.decode(frame);
+
+        assertArrayEquals(new String[] {"[green]Dani gossips 'Hello, \"world\"!'", ""}, decoded.getSource());
+        assertArrayEquals(frame, encoder.frame(decoded));
+        assertFalse(decoded.getSecret());
+    }
+
+    @Test
+    public void testDecodeSecret() {
+        EncodedOutput decoded = encoder.decode(encoder.frame(encoder.encode(new Output("Password: ").setSecret(true))));
+
+        assertTrue(decoded.getSecret());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeGarbage() {
+        encoder.decode("not json".getBytes(UTF_8));
+    }
+
+    @Test
+    public void testWireFormatFromHeader() {
+        assertEquals(WireFormat.COMPACT, WireFormat.fromHeader("compact"));
+        assertEquals(WireFormat.JSON, WireFormat.fromHeader("json"));
+        assertEquals(WireFormat.JSON, WireFormat.fromHeader(null));
+    }
+
+    // what client.js does with a compact frame, but writing colors back out as markup instead of HTML
+    private static List<String> decodeCompact(byte[] frame) {
+        String body = new String(frame, UTF_8);
+        List<String> lines = new ArrayList<>();
+        int i = 1;
+
+        while (i < body.length()) {
+            int colon = body.indexOf(':', i);
+            int length = Integer.parseInt(body.substring(i, colon));
+            StringBuilder line = new StringBuilder();
+
+            for (char c : body.substring(colon + 1, colon + 1 + length).toCharArray()) {
+                if (c >= CompactCodec.FIRST_ESCAPE && c <= CompactCodec.LAST_ESCAPE) {
+                    line.append('[').append(CompactCodec.COLORS[c - CompactCodec.FIRST_ESCAPE]).append(']');
+                } else {
+                    line.append(c);
+                }
+            }
+
+            lines.add(line.toString());
+            i = colon + 1 + length;
+        }
+
+        return lines;
+    }
+
+    private JsonNode toJson(Output output) throws Exception {
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(output));
+    }
+}
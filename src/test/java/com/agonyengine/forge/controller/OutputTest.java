@@ -2,12 +2,14 @@ package com.agonyengine.forge.controller;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class OutputTest {
     @Test
@@ -112,4 +114,99 @@ public class OutputTest {
         assertEquals(one, two);
         assertEquals(one.hashCode(), two.hashCode());
     }
+
+    @Test
+    public void testAppendedChildUnaffectedByLaterChanges() {
+        Output child = new Output("One");
+        Output parent = new Output("Zero").append(child);
+
+        child.append("Two");
+
+        assertEquals(Arrays.asList("Zero", "One"), parent.getOutput());
+        assertEquals(Arrays.asList("One", "Two"), child.getOutput());
+    }
+
+    @Test
+    public void testAppendSelf() {
+        Output output = new Output("One", "Two");
+
+        output.append(output);
+
+        assertEquals(Arrays.asList("One", "Two", "One", "Two"), output.getOutput());
+    }
+
+    @Test
+    public void testGetOutputIsSnapshot() {
+        Output output = new Output("One");
+        List<String> view = output.getOutput();
+
+        output.append("Two");
+
+        assertEquals(Collections.singletonList("One"), view);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetOutputIsReadOnly() {
+        new Output("One").getOutput().add("Two");
+    }
+
+    @Test
+    public void testAppendArrayIsCopied() {
+        String[] lines = new String[] { "One", "Two" };
+        Output output = new Output(lines);
+
+        lines[0] = "Changed";
+
+        assertEquals(Arrays.asList("One", "Two"), output.getOutput());
+    }
+
+    @Test
+    public void testManyAppends() {
+        Output output = new Output();
+        Output large = new Output();
+        List<String> expected = new ArrayList<>();
+
+        for (int i = 0; i < 2 * Output.MERGE_THRESHOLD; i++) {
+            large.append("Large " + i);
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            if (i % 100 == 0) {
+                output.append(large);
+                expected.addAll(large.getOutput());
+            } else {
+                output.append("Line " + i);
+                expected.add("Line " + i);
+            }
+
+            assertTrue(output.depth() <= Output.MAX_DEPTH);
+        }
+
+        List<String> lines = output.getOutput();
+
+        assertEquals(expected.size(), output.size());
+        assertEquals(expected, lines);
+        assertEquals(expected.hashCode(), lines.hashCode());
+
+        for (int i = 0; i < expected.size(); i += 97) {
+            assertEquals(expected.get(i), lines.get(i));
+        }
+
+        try {
+            lines.get(expected.size());
+            fail("Expected an IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEqualityAcrossShapes() {
+        Output one = new Output("One", "Two", "Three");
+        Output two = new Output(new Output("One"), new Output(), new Output("Two", "Three"));
+
+        assertEquals(one, two);
+        assertEquals(one.hashCode(), two.hashCode());
+        assertEquals(one.toString(), two.toString());
+    }
 }
@@ -1,5 +1,6 @@
 package com.agonyengine.forge.controller;
 
+import com.agonyengine.forge.config.RemoteIpProperties;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -10,6 +11,7 @@ import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.web.socket.WebSocketHandler;
 
 import java.net.InetSocketAddress;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -40,7 +42,7 @@ public class RemoteIpHandshakeInterceptorTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
-        interceptor = new RemoteIpHandshakeInterceptor();
+        interceptor = new RemoteIpHandshakeInterceptor(new RemoteIpProperties());
     }
 
     @Test
@@ -81,6 +83,91 @@ public class RemoteIpHandshakeInterceptorTest {
         assertEquals("127.0.0.1", attributes.get(AGONY_REMOTE_IP_KEY));
     }
 
+    @Test
+    public void testBeforeHandshakeUntrustedPeer() {
+        Map<String, Object> attributes = new HashMap<>();
+
+        when(request.getHeaders()).thenReturn(httpHeaders);
+        when(request.getRemoteAddress()).thenReturn(new InetSocketAddress("9.9.9.9", 32000));
+        when(httpHeaders.get(X_FORWARDED_FOR_HEADER)).thenReturn(Collections.singletonList("8.8.8.8"));
+
+        assertTrue(interceptor.beforeHandshake(request, response, wsHandler, attributes));
+
+        assertEquals("9.9.9.9", attributes.get(AGONY_REMOTE_IP_KEY));
+    }
+
+    @Test
+    public void testBeforeHandshakeForwardedSpoofed() {
+        Map<String, Object> attributes = new HashMap<>();
+
+        when(request.getHeaders()).thenReturn(httpHeaders);
+        when(request.getRemoteAddress()).thenReturn(new InetSocketAddress("127.0.0.1", 32000));
+        when(httpHeaders.get(X_FORWARDED_FOR_HEADER)).thenReturn(Arrays.asList("1.1.1.1, 8.8.8.8", "10.1.2.3"));
+
+        assertTrue(interceptor.beforeHandshake(request, response, wsHandler, attributes));
+
+        assertEquals("8.8.8.8", attributes.get(AGONY_REMOTE_IP_KEY));
+    }
+
+    @Test
+    public void testBeforeHandshakeForwardedAllTrusted() {
+        Map<String, Object> attributes = new HashMap<>();
+
+        when(request.getHeaders()).thenReturn(httpHeaders);
+        when(request.getRemoteAddress()).thenReturn(new InetSocketAddress("127.0.0.1", 32000));
+        when(httpHeaders.get(X_FORWARDED_FOR_HEADER)).thenReturn(Collections.singletonList("192.168.1.5, ,10.0.0.1"));
+
+        assertTrue(interceptor.beforeHandshake(request, response, wsHandler, attributes));
+
+        assertEquals("192.168.1.5", attributes.get(AGONY_REMOTE_IP_KEY));
+    }
+
+    @Test
+    public void testBeforeHandshakeForwardedIpv6() {
+        Map<String, Object> attributes = new HashMap<>();
+
+        when(request.getHeaders()).thenReturn(httpHeaders);
+        when(request.getRemoteAddress()).thenReturn(new InetSocketAddress("::1", 32000));
+        when(httpHeaders.get(X_FORWARDED_FOR_HEADER)).thenReturn(Collections.singletonList("[2001:DB8::1]"));
+
+        assertTrue(interceptor.beforeHandshake(request, response, wsHandler, attributes));
+
+        assertEquals("2001:db8:0:0:0:0:0:1", attributes.get(AGONY_REMOTE_IP_KEY));
+    }
+
+    @Test
+    public void testBeforeHandshakeInvalidAfterTrusted() {
+        Map<String, Object> attributes = new HashMap<>();
+
+        when(request.getHeaders()).thenReturn(httpHeaders);
+        when(request.getRemoteAddress()).thenReturn(new InetSocketAddress("127.0.0.1", 32000));
+        when(httpHeaders.get(X_FORWARDED_FOR_HEADER)).thenReturn(Collections.singletonList("8.8.8.8, evil.example.com, 10.0.0.7"));
+
+        assertTrue(interceptor.beforeHandshake(request, response, wsHandler, attributes));
+
+        assertEquals("10.0.0.7", attributes.get(AGONY_REMOTE_IP_KEY));
+    }
+
+    @Test
+    public void testBeforeHandshakeConfiguredHeaders() {
+        Map<String, Object> attributes = new HashMap<>();
+        RemoteIpProperties properties = new RemoteIpProperties();
+
+        properties.setHeaders(Arrays.asList("x-real-ip", X_FORWARDED_FOR_HEADER));
+        properties.setTrustedProxies(Collections.singletonList("203.0.113.0/24"));
+
+        interceptor = new RemoteIpHandshakeInterceptor(properties);
+
+        when(request.getHeaders()).thenReturn(httpHeaders);
+        when(request.getRemoteAddress()).thenReturn(new InetSocketAddress("203.0.113.9", 32000));
+        when(httpHeaders.get("x-real-ip")).thenReturn(Collections.singletonList("8.8.4.4"));
+        when(httpHeaders.get(X_FORWARDED_FOR_HEADER)).thenReturn(Collections.singletonList("8.8.8.8"));
+
+        assertTrue(interceptor.beforeHandshake(request, response, wsHandler, attributes));
+
+        assertEquals("8.8.4.4", attributes.get(AGONY_REMOTE_IP_KEY));
+    }
+
     @Test
     public void testAfterHandshake() {
         interceptor.afterHandshake(request, response, wsHandler, null);
@@ -0,0 +1,179 @@
+package com.agonyengine.forge.controller;
+
+import com.agonyengine.forge.config.GameLoopProperties;
+import com.agonyengine.forge.config.ResumeProperties;
+import com.agonyengine.forge.controller.scrollback.ScrollbackManager;
+import com.agonyengine.forge.loop.TimingWheel;
+import com.agonyengine.forge.model.Connection;
+import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.repository.CreatureRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static com.agonyengine.forge.controller.ControllerConstants.AGONY_RESUME_TOKEN_KEY;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ResumeManagerTest {
+    @Mock
+    private CreatureRepository creatureRepository;
+
+    @Mock
+    private SessionRepository<Session> sessionRepository;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Executor executor;
+
+    @Mock
+    private ScrollbackManager scrollbackManager;
+
+    @Captor
+    private ArgumentCaptor<Runnable> taskCaptor;
+
+    private TimingWheel timingWheel = new TimingWheel();
+    private Creature creature = new Creature();
+    private ResumeManager resumeManager;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        ResumeProperties resumeProperties = new ResumeProperties();
+        GameLoopProperties gameLoopProperties = new GameLoopProperties();
+        Connection connection = new Connection();
+
+        resumeProperties.setGracePeriod(1L);
+        gameLoopProperties.setPulse(100L);
+
+        connection.setId(UUID.randomUUID());
+        connection.setHttpSessionId("http-session");
+        creature.setName("Dani");
+        creature.setConnection(connection);
+
+        when(sessionRepository.findById(eq("http-session"))).thenReturn(session);
+
+        resumeManager = new ResumeManager(
+            creatureRepository,
+            sessionRepository,
+            timingWheel,
+            executor,
+            scrollbackManager,
+            resumeProperties,
+            gameLoopProperties);
+    }
+
+    @Test
+    public void testSuspendAndResume() {
+        String token = resumeManager.issue(creature.getConnection());
+
+        assertTrue(resumeManager.suspend(creature));
+        assertEquals(1, resumeManager.size());
+
+        assertEquals(Optional.of(creature), resumeManager.resume(token));
+        assertEquals(0, resumeManager.size());
+        assertFalse(resumeManager.resume(token).isPresent());
+
+        advance(20);
+
+        verifyZeroInteractions(executor, creatureRepository, scrollbackManager);
+    }
+
+    @Test
+    public void testResumeSpendsToken() {
+        String token = resumeManager.issue(creature.getConnection());
+
+        resumeManager.suspend(creature);
+
+        assertTrue(resumeManager.resume(token).isPresent());
+
+        // without a new token, dropping again can't be resumed
+        assertFalse(resumeManager.suspend(creature));
+    }
+
+    @Test
+    public void testRotate() {
+        String token = resumeManager.issue(creature.getConnection());
+
+        resumeManager.suspend(creature);
+        resumeManager.resume(token);
+
+        String rotated = resumeManager.rotate(creature.getConnection());
+
+        assertNotEquals(token, rotated);
+
+        verify(session).setAttribute(eq(AGONY_RESUME_TOKEN_KEY), eq(rotated));
+        verify(sessionRepository).save(eq(session));
+
+        assertTrue(resumeManager.suspend(creature));
+        assertFalse(resumeManager.resume(token).isPresent());
+        assertEquals(Optional.of(creature), resumeManager.resume(rotated));
+    }
+
+    @Test
+    public void testRotateNoSession() {
+        creature.getConnection().setHttpSessionId(null);
+
+        assertNotNull(resumeManager.rotate(creature.getConnection()));
+
+        verifyZeroInteractions(sessionRepository);
+    }
+
+    @Test
+    public void testSuspendNoToken() {
+        assertFalse(resumeManager.suspend(creature));
+        assertEquals(0, resumeManager.size());
+    }
+
+    @Test
+    public void testResumeUnknown() {
+        assertFalse(resumeManager.resume(null).isPresent());
+        assertFalse(resumeManager.resume("bogus").isPresent());
+    }
+
+    @Test
+    public void testExpire() {
+        String token = resumeManager.issue(creature.getConnection());
+
+        resumeManager.suspend(creature);
+
+        advance(9);
+
+        verifyZeroInteractions(executor);
+
+        advance(1);
+
+        assertEquals(0, resumeManager.size());
+        assertFalse(resumeManager.resume(token).isPresent());
+        assertFalse(resumeManager.suspend(creature));
+
+        verify(executor).execute(taskCaptor.capture());
+        verify(scrollbackManager).discard(eq(creature.getConnection().getId()));
+        verify(creatureRepository, never()).delete(any());
+
+        taskCaptor.getValue().run();
+
+        verify(creatureRepository).delete(eq(creature));
+    }
+
+    private void advance(int pulses) {
+        for (int i = 0; i < pulses; i++) {
+            timingWheel.onPulse(i);
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package com.agonyengine.forge.controller;
 
+import com.agonyengine.forge.config.LoginConfiguration;
+import com.agonyengine.forge.controller.ip.ConnectionLimiter;
+import com.agonyengine.forge.controller.mailbox.MailboxExecutor;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
+import com.agonyengine.forge.controller.scrollback.ScrollbackManager;
 import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.repository.ConnectionCache;
 import com.agonyengine.forge.repository.CreatureRepository;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.messaging.Message;
@@ -20,6 +28,7 @@ import java.util.UUID;
 import static com.agonyengine.forge.controller.ControllerConstants.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor.HTTP_SESSION_ID_ATTR_NAME;
 
@@ -27,6 +36,31 @@ public class SessionDisconnectListenerTest {
     @Mock
     private CreatureRepository creatureRepository;
 
+    @Mock
+    private ConnectionCache connectionCache;
+
+    @Mock
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+
+    @Mock
+    private OutboxManager outboxManager;
+
+    @Mock
+    private MailboxExecutor mailboxExecutor;
+
+    @Mock
+    private ResumeManager resumeManager;
+
+    @Mock
+    private ConnectionLimiter connectionLimiter;
+
+    @Mock
+    private ScrollbackManager scrollbackManager;
+
+    @Mock
+    private LoginConfiguration loginConfiguration;
+
+    private UUID connectionId = UUID.randomUUID();
     private SessionDisconnectListener listener;
 
     @Before
@@ -39,7 +73,7 @@ public class SessionDisconnectListenerTest {
             .findByConnectionSessionUsernameAndConnectionSessionId(anyString(), anyString()))
             .thenReturn(Optional.of(creature));
 
-        listener = new SessionDisconnectListener(creatureRepository);
+        listener = new SessionDisconnectListener(creatureRepository, connectionCache, onlineCreatureRegistry, outboxManager, mailboxExecutor, resumeManager, connectionLimiter, scrollbackManager, loginConfiguration);
     }
 
     @Test
@@ -49,6 +83,58 @@ public class SessionDisconnectListenerTest {
 
         listener.onApplicationEvent(event);
 
+        InOrder inOrder = inOrder(connectionCache, creatureRepository);
+
+        inOrder.verify(connectionCache).evict(eq(connectionId));
+        inOrder.verify(creatureRepository).delete(any(Creature.class));
+        verify(onlineCreatureRegistry).unregister(eq("Dani"));
+        verify(outboxManager).close(eq("Dani"));
+        verify(mailboxExecutor).close(eq(connectionId));
+        verify(connectionLimiter).release(eq("12.34.56.78"));
+        verify(scrollbackManager).discard(eq(connectionId));
+        verify(loginConfiguration).invalidatePrompt(eq(connectionId));
+    }
+
+    @Test
+    public void testOnApplicationEventTwice() {
+        Message<byte[]> message = buildMockMessage(true);
+        SessionDisconnectEvent event = new SessionDisconnectEvent("source", message, "ffff", CloseStatus.NORMAL);
+
+        listener.onApplicationEvent(event);
+        listener.onApplicationEvent(event);
+
+        verify(connectionLimiter, times(1)).release(eq("12.34.56.78"));
+    }
+
+    @Test
+    public void testOnApplicationEventSuspended() {
+        Message<byte[]> message = buildMockMessage(true);
+        SessionDisconnectEvent event = new SessionDisconnectEvent("source", message, "ffff", CloseStatus.NORMAL);
+        Creature creature = new Creature();
+
+        when(onlineCreatureRegistry.unregister(eq("Dani"))).thenReturn(Optional.of(creature));
+        when(resumeManager.suspend(eq(creature))).thenReturn(true);
+
+        listener.onApplicationEvent(event);
+
+        verify(resumeManager).suspend(eq(creature));
+        verify(outboxManager).close(eq("Dani"));
+        verify(mailboxExecutor).close(eq(connectionId));
+        verify(connectionCache).evict(eq(connectionId));
+        verifyZeroInteractions(creatureRepository, scrollbackManager);
+    }
+
+    @Test
+    public void testOnApplicationEventNotSuspended() {
+        Message<byte[]> message = buildMockMessage(true);
+        SessionDisconnectEvent event = new SessionDisconnectEvent("source", message, "ffff", CloseStatus.NORMAL);
+        Creature creature = new Creature();
+
+        when(onlineCreatureRegistry.unregister(eq("Dani"))).thenReturn(Optional.of(creature));
+        when(resumeManager.suspend(eq(creature))).thenReturn(false);
+
+        listener.onApplicationEvent(event);
+
         verify(creatureRepository).delete(any(Creature.class));
     }
 
@@ -60,6 +146,7 @@ public class SessionDisconnectListenerTest {
         listener.onApplicationEvent(event);
 
         verify(creatureRepository, never()).delete(any());
+        verifyZeroInteractions(onlineCreatureRegistry, outboxManager, connectionCache, mailboxExecutor, resumeManager, connectionLimiter, scrollbackManager, loginConfiguration);
     }
 
     @Test
@@ -82,10 +169,12 @@ public class SessionDisconnectListenerTest {
         Map<String, Object> sessionAttributes = new HashMap<>();
         Map<String, Object> headers = new HashMap<>();
 
+        sessionAttributes.put(AGONY_CONNECTION_ID_KEY, connectionId);
         sessionAttributes.put(AGONY_STOMP_PRINCIPAL_KEY, "Dani");
         sessionAttributes.put(AGONY_STOMP_SESSION_KEY, "abcdefg");
         sessionAttributes.put(HTTP_SESSION_ID_ATTR_NAME, springSessionId.toString());
         sessionAttributes.put(AGONY_REMOTE_IP_KEY, "12.34.56.78");
+        sessionAttributes.put(AGONY_CONNECTION_LIMIT_KEY, "12.34.56.78");
 
         headers.put(SimpMessageHeaderAccessor.SESSION_ID_HEADER, stompSessionId.toString());
 
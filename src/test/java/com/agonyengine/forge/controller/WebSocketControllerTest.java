@@ -1,9 +1,23 @@
 package com.agonyengine.forge.controller;
 
+import com.agonyengine.forge.config.InputProperties;
+import com.agonyengine.forge.config.LoginConfiguration;
 import com.agonyengine.forge.controller.greeting.ClasspathGreetingLoader;
+import com.agonyengine.forge.controller.greeting.FileGreetingLoader;
+import com.agonyengine.forge.controller.greeting.GreetingCache;
 import com.agonyengine.forge.controller.interpret.Interpreter;
+import com.agonyengine.forge.controller.mailbox.MailboxExecutor;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
+import com.agonyengine.forge.controller.scrollback.ScrollbackManager;
+import com.agonyengine.forge.controller.throttle.TokenBucket;
 import com.agonyengine.forge.model.Connection;
-import com.agonyengine.forge.repository.ConnectionRepository;
+import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.repository.ConnectionCache;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -16,31 +30,59 @@ import org.springframework.messaging.support.GenericMessage;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 
 import java.security.Principal;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
-import static com.agonyengine.forge.controller.ControllerConstants.AGONY_CONNECTION_ID_KEY;
-import static com.agonyengine.forge.controller.ControllerConstants.AGONY_REMOTE_IP_KEY;
+import static com.agonyengine.forge.controller.ControllerConstants.*;
+import static com.agonyengine.forge.model.PrimaryConnectionState.IN_GAME;
 import static com.agonyengine.forge.model.PrimaryConnectionState.LOGIN;
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor.HTTP_SESSION_ID_ATTR_NAME;
 
 public class WebSocketControllerTest {
     @Mock
-    private ConnectionRepository connectionRepository;
+    private ConnectionCache connectionCache;
 
     @Mock
     private Interpreter interpreter;
 
+    @Mock
+    private OutboxManager outboxManager;
+
+    @Mock
+    private MailboxExecutor mailboxExecutor;
+
+    @Mock
+    private ResumeManager resumeManager;
+
+    @Mock
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+
+    @Mock
+    private ScrollbackManager scrollbackManager;
+
+    @Mock
+    private LoginConfiguration loginConfiguration;
+
     @Captor
     private ArgumentCaptor<Connection> connectionCaptor;
 
+    @Captor
+    private ArgumentCaptor<Runnable> taskCaptor;
+
     private Principal principal = new UsernamePasswordAuthenticationToken("user", "pass");
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     private WebSocketController controller;
 
@@ -48,17 +90,25 @@ public class WebSocketControllerTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
-        ClasspathGreetingLoader loader = new ClasspathGreetingLoader();
+        OutputEncoder outputEncoder = new OutputEncoder(objectMapper);
+        GreetingCache greetingCache = new GreetingCache(
+            new ClasspathGreetingLoader(),
+            new FileGreetingLoader(),
+            outputEncoder);
         Connection connection = new Connection();
 
-        when(connectionRepository.save(any(Connection.class))).thenAnswer(invocation -> {
+        when(connectionCache.save(any(Connection.class))).thenAnswer(invocation -> {
             Connection c = invocation.getArgument(0);
 
-            c.setId(UUID.randomUUID());
+            if (c.getId() == null) {
+                c.setId(UUID.randomUUID());
+            }
 
             return c;
         });
-        when(connectionRepository.findById(any(UUID.class))).thenReturn(Optional.of(connection));
+        when(connectionCache.findById(any(UUID.class))).thenReturn(Optional.of(connection));
+        when(resumeManager.resume(any())).thenReturn(Optional.empty());
+        when(scrollbackManager.replay(any(), anyLong())).thenAnswer(invocation -> new Output());
         when(interpreter.prompt(any(Connection.class))).thenReturn(new Output("[default]> "));
         when(interpreter.interpret(any(Input.class), any(Connection.class))).thenAnswer(invocation -> {
             Input input = invocation.getArgument(0);
@@ -66,22 +116,22 @@ public class WebSocketControllerTest {
             return new Output("[cyan]" + input.toString(), "[default]> ");
         });
 
-        controller = new WebSocketController(loader, connectionRepository, interpreter);
+        controller = new WebSocketController(greetingCache, connectionCache, interpreter, outboxManager, outputEncoder, mailboxExecutor, resumeManager, onlineCreatureRegistry, new InputProperties(), scrollbackManager, loginConfiguration, meterRegistry);
     }
 
     @Test
-    public void testOnSubscribe() {
+    public void testOnSubscribe() throws Exception {
         Message<byte[]> message = buildMockMessage(true, false);
 
         Output o1 = new Output(
             "[yellow]Hello&nbsp;world!",
             "[yellow]Hello world!",
             "[default]> ");
-        Output o2 = controller.onSubscribe(principal, message);
+        byte[] o2 = controller.onSubscribe(principal, message);
 
-        verify(connectionRepository).save(connectionCaptor.capture());
+        verify(connectionCache).save(connectionCaptor.capture());
 
-        assertEquals(o1, o2);
+        assertEquals(toJson(o1), objectMapper.readTree(o2));
 
         Connection connection = connectionCaptor.getValue();
 
@@ -90,13 +140,109 @@ public class WebSocketControllerTest {
         assertNotNull(UUID.fromString(connection.getHttpSessionId()));
         assertEquals("1.2.3.4", connection.getRemoteAddress());
         assertEquals(LOGIN, connection.getPrimaryState());
+
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.wrap(message).getSessionAttributes();
+
+        assertNotNull(attributes);
+        assertEquals(connection.getId(), attributes.get(AGONY_CONNECTION_ID_KEY));
+        assertEquals(principal.getName(), attributes.get(AGONY_STOMP_PRINCIPAL_KEY));
+        assertEquals(connection.getSessionId(), attributes.get(AGONY_STOMP_SESSION_KEY));
+        assertTrue(attributes.get(AGONY_INPUT_BUCKET_KEY) instanceof TokenBucket);
+
+        verify(outboxManager).open(eq(connection), eq(WireFormat.JSON));
+        verify(mailboxExecutor).open(connection.getId());
+        verify(scrollbackManager).open(connection.getId());
+        verify(onlineCreatureRegistry, never()).register(any());
+
+        assertEquals(1L, meterRegistry.get("agony.subscribe").timer().count());
+    }
+
+    @Test
+    public void testOnSubscribeCompact() {
+        Message<byte[]> message = buildMockMessage(true, false, WireFormat.HEADER, "compact");
+
+        controller.onSubscribe(principal, message);
+
+        verify(outboxManager).open(any(Connection.class), eq(WireFormat.COMPACT));
+    }
+
+    @Test
+    public void testOnSubscribeResume() throws Exception {
+        Message<byte[]> message = buildMockMessage(true, false);
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.wrap(message).getSessionAttributes();
+        Creature creature = new Creature();
+        Connection existing = new Connection();
+
+        existing.setId(UUID.randomUUID());
+        existing.setName("Dani");
+        existing.setSessionUsername("old-user");
+        existing.setSessionId("old-session");
+        existing.setPrimaryState(IN_GAME);
+        creature.setConnection(existing);
+
+        assertNotNull(attributes);
+
+        attributes.put(AGONY_RESUME_TOKEN_KEY, "resume-token");
+
+        when(resumeManager.resume(eq("resume-token"))).thenReturn(Optional.of(creature));
+        when(resumeManager.rotate(eq(existing))).thenReturn("rotated-token");
+
+        byte[] result = controller.onSubscribe(principal, message);
+
+        verify(connectionCache).save(connectionCaptor.capture());
+
+        assertEquals(toJson(new Output("[yellow]Reconnected. Welcome back, Dani!", "[default]> ")), objectMapper.readTree(result));
+
+        Connection connection = connectionCaptor.getValue();
+
+        assertSame(existing, connection);
+        assertEquals(principal.getName(), connection.getSessionUsername());
+        assertNotEquals("old-session", connection.getSessionId());
+        assertEquals("1.2.3.4", connection.getRemoteAddress());
+        assertEquals(IN_GAME, connection.getPrimaryState());
+        assertEquals(existing.getId(), attributes.get(AGONY_CONNECTION_ID_KEY));
+        assertEquals("rotated-token", attributes.get(AGONY_RESUME_TOKEN_KEY));
+
+        verify(resumeManager).rotate(eq(existing));
+        verify(loginConfiguration).invalidatePrompt(eq(existing.getId()));
+        verify(outboxManager).open(eq(existing), eq(WireFormat.JSON));
+        verify(onlineCreatureRegistry).register(eq(creature));
+        verify(scrollbackManager).replay(eq(existing.getId()), eq(0L));
     }
 
     @Test
-    public void testOnSubscribeNoAttributes() {
+    public void testOnSubscribeResumeReplay() throws Exception {
+        Message<byte[]> message = buildMockMessage(true, false, ScrollbackManager.SEQUENCE_HEADER, "42");
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.wrap(message).getSessionAttributes();
+        Creature creature = new Creature();
+        Connection existing = new Connection();
+
+        existing.setId(UUID.randomUUID());
+        existing.setName("Dani");
+        existing.setPrimaryState(IN_GAME);
+        creature.setConnection(existing);
+
+        assertNotNull(attributes);
+
+        attributes.put(AGONY_RESUME_TOKEN_KEY, "resume-token");
+
+        when(resumeManager.resume(eq("resume-token"))).thenReturn(Optional.of(creature));
+        when(scrollbackManager.replay(eq(existing.getId()), eq(42L))).thenReturn(new Output("[green]You missed this."));
+
+        byte[] result = controller.onSubscribe(principal, message);
+
+        assertEquals(
+            toJson(new Output("[green]You missed this.", "[yellow]Reconnected. Welcome back, Dani!", "[default]> ")),
+            objectMapper.readTree(result));
+    }
+
+    @Test
+    public void testOnSubscribeNoAttributes() throws Exception {
         Message<byte[]> message = buildMockMessage(false, false);
 
-        assertEquals(new Output("[red]Something went wrong! The error has been logged."), controller.onSubscribe(principal, message));
+        assertEquals(
+            toJson(new Output("[red]Something went wrong! The error has been logged.")),
+            objectMapper.readTree(controller.onSubscribe(principal, message)));
     }
 
     @Test
@@ -106,7 +252,55 @@ public class WebSocketControllerTest {
 
         input.setInput("Testing");
 
-        assertEquals(new Output("[cyan]" + input, "[default]> "), controller.onInput(input, message));
+        assertNull(controller.onInput(input, message));
+
+        verify(mailboxExecutor).submitIfOpen(
+            eq((UUID) SimpMessageHeaderAccessor.wrap(message).getSessionAttributes().get(AGONY_CONNECTION_ID_KEY)),
+            taskCaptor.capture());
+        verify(outboxManager, never()).flush(any(), any());
+
+        assertEquals(1L, meterRegistry.get("agony.input").timer().count());
+        assertEquals(0L, meterRegistry.get("agony.input.command").timer().count());
+
+        taskCaptor.getValue().run();
+
+        verify(outboxManager).flush(any(Connection.class), eq(new Output("[cyan]" + input, "[default]> ")));
+
+        assertEquals(1L, meterRegistry.get("agony.input.command").timer().count());
+    }
+
+    @Test
+    public void testOnInputThrottled() {
+        Message<byte[]> message = buildMockMessage(true, true);
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.wrap(message).getSessionAttributes();
+        Input input = new Input();
+
+        input.setInput("gossip spam");
+
+        assertNotNull(attributes);
+
+        attributes.put(AGONY_INPUT_BUCKET_KEY, new TokenBucket(2, 1, System.nanoTime()));
+
+        assertNull(controller.onInput(input, message));
+        assertNull(controller.onInput(input, message));
+        assertEquals(
+            new Output("[red]You're typing too fast! Some of your commands were ignored."),
+            controller.onInput(input, message));
+        assertNull(controller.onInput(input, message));
+
+        verify(mailboxExecutor, times(2)).submitIfOpen(any(UUID.class), any(Runnable.class));
+
+        assertEquals(4L, meterRegistry.get("agony.input").timer().count());
+        assertEquals(2.0, meterRegistry.get("agony.input.throttled").counter().count(), 0.0);
+    }
+
+    @Test
+    public void testGauges() {
+        when(onlineCreatureRegistry.size()).thenReturn(3);
+        when(outboxManager.size()).thenReturn(5);
+
+        assertEquals(3.0, meterRegistry.get("agony.creatures.online").gauge().value(), 0.0);
+        assertEquals(5.0, meterRegistry.get("agony.connections.open").gauge().value(), 0.0);
     }
 
     @Test
@@ -116,10 +310,14 @@ public class WebSocketControllerTest {
 
         input.setInput("Testing");
 
-        when(connectionRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+        when(connectionCache.findById(any(UUID.class))).thenReturn(Optional.empty());
+
+        assertNull(controller.onInput(input, message));
+
+        verify(mailboxExecutor).submitIfOpen(any(UUID.class), taskCaptor.capture());
 
         try {
-            controller.onInput(input, message);
+            taskCaptor.getValue().run();
             fail("Required exception was not thrown.");
         } catch (NullPointerException e) {
             assertTrue(e.getMessage().startsWith("Unable to fetch Connection by ID: "));
@@ -136,7 +334,11 @@ public class WebSocketControllerTest {
         assertEquals(new Output("[red]Something went wrong! The error has been logged."), controller.onInput(input, message));
     }
 
-    private Message<byte[]> buildMockMessage(boolean includeAttributes, boolean includeConnectionId) {
+    private JsonNode toJson(Output output) throws Exception {
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(output));
+    }
+
+    private Message<byte[]> buildMockMessage(boolean includeAttributes, boolean includeConnectionId, String ... nativeHeader) {
         UUID springSessionId = UUID.randomUUID();
         UUID stompSessionId = UUID.randomUUID();
         Map<String, Object> sessionAttributes = new HashMap<>();
@@ -151,6 +353,12 @@ public class WebSocketControllerTest {
 
         headers.put(SimpMessageHeaderAccessor.SESSION_ID_HEADER, stompSessionId.toString());
 
+        if (nativeHeader.length == 2) {
+            headers.put(
+                SimpMessageHeaderAccessor.NATIVE_HEADERS,
+                Collections.singletonMap(nativeHeader[0], Collections.singletonList(nativeHeader[1])));
+        }
+
         if (includeAttributes) {
             headers.put(SimpMessageHeaderAccessor.SESSION_ATTRIBUTES, sessionAttributes);
         }
@@ -0,0 +1,130 @@
+package com.agonyengine.forge.controller.channel;
+
+import com.agonyengine.forge.controller.EncodedOutput;
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
+import com.agonyengine.forge.model.Connection;
+import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ChannelMembershipInterceptorTest {
+    @Mock
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+
+    @Mock
+    private OutboxManager outboxManager;
+
+    @Mock
+    private MessageChannel messageChannel;
+
+    @Captor
+    private ArgumentCaptor<EncodedOutput> outputCaptor;
+
+    private OutputEncoder outputEncoder = new OutputEncoder(new ObjectMapper());
+    private Connection connection = new Connection();
+    private ChannelMembershipInterceptor interceptor;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        Creature scion = new Creature();
+
+        scion.setConnection(connection);
+
+        when(onlineCreatureRegistry.findBySessionId(any())).thenReturn(Optional.empty());
+        when(onlineCreatureRegistry.findBySessionId("scion-session-id")).thenReturn(Optional.of(scion));
+
+        interceptor = new ChannelMembershipInterceptor(onlineCreatureRegistry, () -> outboxManager, outputEncoder);
+    }
+
+    @Test
+    public void testOtherDestination() {
+        Message<byte[]> message = buildMessage("/user/queue/output", "nobody-session-id", null);
+
+        assertSame(message, interceptor.preSend(message, messageChannel));
+    }
+
+    @Test
+    public void testNoDestination() {
+        Message<byte[]> message = buildMessage(null, "nobody-session-id", null);
+
+        assertSame(message, interceptor.preSend(message, messageChannel));
+    }
+
+    @Test
+    public void testOnlineRecipient() {
+        Message<byte[]> message = buildMessage("/topic/channel.gossip", "scion-session-id", "dani-session-id");
+
+        assertNull(interceptor.preSend(message, messageChannel));
+
+        verify(outboxManager).append(eq(connection), outputCaptor.capture());
+
+        assertArrayEquals(new String[] {"[green]Dani gossips 'hello'"}, outputCaptor.getValue().getSource());
+    }
+
+    @Test
+    public void testOfflineRecipient() {
+        Message<byte[]> message = buildMessage("/topic/channel.gossip", "nobody-session-id", "dani-session-id");
+
+        assertNull(interceptor.preSend(message, messageChannel));
+
+        verify(outboxManager, never()).append(any(), any());
+    }
+
+    @Test
+    public void testSender() {
+        Message<byte[]> message = buildMessage("/topic/channel.gossip", "scion-session-id", "scion-session-id");
+
+        assertNull(interceptor.preSend(message, messageChannel));
+
+        verify(outboxManager, never()).append(any(), any());
+    }
+
+    @Test
+    public void testNoSession() {
+        Message<byte[]> message = buildMessage("/topic/channel.gossip", null, "dani-session-id");
+
+        assertNull(interceptor.preSend(message, messageChannel));
+    }
+
+    private Message<byte[]> buildMessage(String destination, String sessionId, String sender) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+
+        headerAccessor.setDestination(destination);
+        headerAccessor.setSessionId(sessionId);
+
+        if (sender != null) {
+            headerAccessor.setNativeHeader(ChannelPublisher.SENDER_HEADER, sender);
+        }
+
+        byte[] payload = outputEncoder.frame(outputEncoder.encode(new Output("[green]Dani gossips 'hello'")));
+
+        return MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,171 @@
+package com.agonyengine.forge.controller.channel;
+
+import com.agonyengine.forge.config.GameLoopProperties;
+import com.agonyengine.forge.config.ResumeProperties;
+import com.agonyengine.forge.config.ScrollbackProperties;
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.ResumeManager;
+import com.agonyengine.forge.controller.scrollback.ScrollbackManager;
+import com.agonyengine.forge.loop.TimingWheel;
+import com.agonyengine.forge.model.Connection;
+import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.repository.CreatureRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+public class ChannelPublisherTest {
+    @Mock
+    private SimpMessagingTemplate simpMessagingTemplate;
+
+    @Mock
+    private CreatureRepository creatureRepository;
+
+    @Mock
+    private SessionRepository<Session> sessionRepository;
+
+    @Mock
+    private Executor executor;
+
+    @Captor
+    private ArgumentCaptor<Message<byte[]>> messageCaptor;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Channel channel = new Channel("gossip");
+    private Creature sender = new Creature();
+    private ScrollbackManager scrollbackManager;
+    private ResumeManager resumeManager;
+    private ChannelPublisher channelPublisher;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        Connection connection = new Connection();
+
+        connection.setSessionId("dani-session-id");
+        sender.setName("Dani");
+        sender.setConnection(connection);
+
+        ScrollbackProperties scrollbackProperties = new ScrollbackProperties();
+        ResumeProperties resumeProperties = new ResumeProperties();
+        GameLoopProperties gameLoopProperties = new GameLoopProperties();
+
+        scrollbackProperties.setCapacity(4096);
+        scrollbackProperties.setDirect(false);
+        resumeProperties.setGracePeriod(60L);
+        gameLoopProperties.setPulse(100L);
+
+        scrollbackManager = new ScrollbackManager(scrollbackProperties);
+        resumeManager = new ResumeManager(
+            creatureRepository,
+            sessionRepository,
+            new TimingWheel(),
+            executor,
+            scrollbackManager,
+            resumeProperties,
+            gameLoopProperties);
+
+        channelPublisher = new ChannelPublisher(
+            simpMessagingTemplate,
+            new OutputEncoder(objectMapper),
+            resumeManager,
+            scrollbackManager,
+            meterRegistry);
+    }
+
+    @Test
+    public void testPublish() throws Exception {
+        Output message = new Output("[green]Dani gossips 'Hello!'");
+
+        channelPublisher.publish(channel, sender, message);
+
+        verify(simpMessagingTemplate).send(eq("/topic/channel.gossip"), messageCaptor.capture());
+
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(messageCaptor.getValue());
+
+        assertEquals(
+            objectMapper.readTree(objectMapper.writeValueAsBytes(message)),
+            objectMapper.readTree(messageCaptor.getValue().getPayload()));
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, headers.getContentType());
+        assertEquals("dani-session-id", headers.getFirstNativeHeader(ChannelPublisher.SENDER_HEADER));
+        assertEquals(1L, meterRegistry.get("agony.channel.publish").timer().count());
+    }
+
+    @Test
+    public void testPublishNoConnection() {
+        sender.setConnection(null);
+
+        channelPublisher.publish(channel, sender, new Output("Hello!"));
+
+        verify(simpMessagingTemplate).send(eq("/topic/channel.gossip"), messageCaptor.capture());
+
+        assertNull(SimpMessageHeaderAccessor.wrap(messageCaptor.getValue()).getFirstNativeHeader(ChannelPublisher.SENDER_HEADER));
+    }
+
+    @Test
+    public void testPublishWhileSuspended() {
+        Creature scion = new Creature();
+        Connection connection = new Connection();
+
+        connection.setId(UUID.randomUUID());
+        scion.setName("Scion");
+        scion.setConnection(connection);
+
+        scrollbackManager.open(connection.getId());
+
+        long sequence = scrollbackManager.record(connection.getId(), Collections.singletonList("[default]Scion> "));
+        String token = resumeManager.issue(connection);
+
+        assertTrue(resumeManager.suspend(scion));
+
+        channelPublisher.publish(channel, sender, new Output("[green]Dani gossips 'Where did Scion go?'"));
+
+        assertEquals(scion, resumeManager.resume(token).orElse(null));
+        assertEquals(
+            Arrays.asList("[green]Dani gossips 'Where did Scion go?'"),
+            scrollbackManager.replay(connection.getId(), sequence).getOutput());
+    }
+
+    @Test
+    public void testPublishSecretWhileSuspended() {
+        Creature scion = new Creature();
+        Connection connection = new Connection();
+
+        connection.setId(UUID.randomUUID());
+        scion.setConnection(connection);
+
+        scrollbackManager.open(connection.getId());
+        resumeManager.issue(connection);
+        resumeManager.suspend(scion);
+
+        channelPublisher.publish(channel, sender, new Output("Password: ").setSecret(true));
+
+        assertTrue(scrollbackManager.replay(connection.getId(), 0).getOutput().isEmpty());
+    }
+}
@@ -0,0 +1,23 @@
+package com.agonyengine.forge.controller.channel;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class ChannelTest {
+    @Test
+    public void testDestination() {
+        Channel channel = new Channel("gossip");
+
+        assertEquals("gossip", channel.getName());
+        assertEquals("/topic/channel.gossip", channel.getDestination());
+    }
+
+    @Test
+    public void testEquals() {
+        assertEquals(new Channel("gossip"), new Channel("gossip"));
+        assertEquals(new Channel("gossip").hashCode(), new Channel("gossip").hashCode());
+        assertNotEquals(new Channel("gossip"), new Channel("auction"));
+    }
+}
@@ -0,0 +1,36 @@
+package com.agonyengine.forge.controller.command;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CommandLineTest {
+    @Test
+    public void testVerbAndArgument() {
+        CommandLine line = new CommandLine("  gossip   Hello,   world!  ");
+
+        assertFalse(line.isEmpty());
+        assertEquals("gossip", line.getVerb());
+        assertEquals(6, line.getVerbLength());
+        assertEquals('g', line.verbCharAt(0));
+        assertTrue(line.hasArgument());
+        assertEquals("Hello,   world!", line.getArgument());
+    }
+
+    @Test
+    public void testVerbOnly() {
+        CommandLine line = new CommandLine("who ");
+
+        assertEquals("who", line.getVerb());
+        assertFalse(line.hasArgument());
+        assertEquals("", line.getArgument());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(new CommandLine("").isEmpty());
+        assertTrue(new CommandLine(" \t ").isEmpty());
+        assertTrue(new CommandLine(null).isEmpty());
+        assertFalse(new CommandLine(null).hasArgument());
+    }
+}
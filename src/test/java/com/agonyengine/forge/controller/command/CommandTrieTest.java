@@ -0,0 +1,116 @@
+package com.agonyengine.forge.controller.command;
+
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.model.Creature;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CommandTrieTest {
+    private Command gossip = new TestCommand("gossip", 0);
+    private Command look = new TestCommand("look", 10);
+    private Command list = new TestCommand("list", 0);
+    private Command lookup = new TestCommand("lookup", 20);
+    private Command get = new TestCommand("get", 0);
+    private Command give = new TestCommand("give", 0);
+    private CommandTrie trie;
+
+    @Before
+    public void setUp() {
+        trie = new CommandTrie(Arrays.asList(gossip, look, list, lookup, get, give));
+    }
+
+    @Test
+    public void testUniquePrefix() {
+        assertSame(gossip, find("gos"));
+        assertSame(gossip, find("go"));
+        assertSame(list, find("li"));
+        assertSame(give, find("gi"));
+    }
+
+    @Test
+    public void testPriority() {
+        assertSame(lookup, find("l"));
+        assertSame(lookup, find("loo"));
+    }
+
+    @Test
+    public void testExactNameWins() {
+        assertSame(look, find("look"));
+        assertSame(lookup, find("looku"));
+    }
+
+    @Test
+    public void testTiesGoToName() {
+        assertSame(get, find("g"));
+    }
+
+    @Test
+    public void testCaseInsensitive() {
+        assertSame(gossip, find("GOS"));
+        assertSame(look, find("Look"));
+    }
+
+    @Test
+    public void testMixedCaseName() {
+        Command recall = new TestCommand("ReCall", 0);
+        Command inspect = new TestCommand("\u0130nspect", 0);
+
+        trie = new CommandTrie(Arrays.asList(gossip, recall, inspect));
+
+        assertSame(recall, find("recall"));
+        assertSame(recall, find("RECALL"));
+        assertSame(recall, find("rEc"));
+        assertSame(inspect, find("\u0130nspect"));
+        assertSame(inspect, find("\u0130NS"));
+    }
+
+    @Test
+    public void testNotFound() {
+        assertNull(find("dance"));
+        assertNull(find("gossipx"));
+        assertNull(find(""));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDuplicateName() {
+        new CommandTrie(Arrays.asList(gossip, new TestCommand("Gossip", 5)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyName() {
+        new CommandTrie(Arrays.asList(gossip, new TestCommand("", 0)));
+    }
+
+    private Command find(String text) {
+        return trie.find(new CommandLine(text + " with an argument"));
+    }
+
+    private static class TestCommand implements Command {
+        private String name;
+        private int priority;
+
+        TestCommand(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+
+        @Override
+        public Output execute(Creature actor, CommandLine line) {
+            return new Output(name);
+        }
+    }
+}
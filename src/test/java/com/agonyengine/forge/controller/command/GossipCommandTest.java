@@ -0,0 +1,50 @@
+package com.agonyengine.forge.controller.command;
+
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.channel.ChannelPublisher;
+import com.agonyengine.forge.model.Creature;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static com.agonyengine.forge.controller.command.GossipCommand.GOSSIP;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class GossipCommandTest {
+    @Mock
+    private ChannelPublisher channelPublisher;
+
+    private Creature me = new Creature();
+    private GossipCommand command;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        me.setName("Scion");
+
+        command = new GossipCommand(channelPublisher);
+    }
+
+    @Test
+    public void testExecute() {
+        Output output = command.execute(me, new CommandLine("gos Hello!"));
+
+        assertEquals(new Output("[green]You gossip 'Hello![green]'"), output);
+
+        verify(channelPublisher).publish(eq(GOSSIP), eq(me), eq(new Output("[green]Scion gossips 'Hello![green]'")));
+    }
+
+    @Test
+    public void testExecuteNoMessage() {
+        Output output = command.execute(me, new CommandLine("gossip"));
+
+        assertEquals(new Output("[default]What would you like to gossip?"), output);
+
+        verifyZeroInteractions(channelPublisher);
+    }
+}
@@ -0,0 +1,43 @@
+package com.agonyengine.forge.controller.command;
+
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+public class WhoCommandTest {
+    @Mock
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+
+    private WhoCommand command;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        command = new WhoCommand(onlineCreatureRegistry);
+    }
+
+    @Test
+    public void testExecute() {
+        Creature scion = new Creature();
+        Creature dani = new Creature();
+
+        scion.setName("Scion");
+        dani.setName("Dani");
+
+        when(onlineCreatureRegistry.stream()).thenReturn(Stream.of(scion, dani));
+
+        assertEquals(
+            new Output("[default]Players online:", "[default]  Dani", "[default]  Scion"),
+            command.execute(scion, new CommandLine("who")));
+    }
+}
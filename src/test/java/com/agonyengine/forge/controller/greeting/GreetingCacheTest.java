@@ -0,0 +1,126 @@
+package com.agonyengine.forge.controller.greeting;
+
+import com.agonyengine.forge.controller.EncodedOutput;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class GreetingCacheTest {
+    private OutputEncoder outputEncoder = new OutputEncoder(new ObjectMapper());
+    private Path directory;
+    private Path file;
+    private GreetingCache greetingCache;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("greeting");
+        file = directory.resolve("greeting.txt");
+
+        Files.write(file, Collections.singletonList("[yellow]First"), UTF_8);
+
+        FileGreetingLoader fileLoader = new FileGreetingLoader(file.toString());
+
+        greetingCache = new GreetingCache(
+            new CompositeGreetingLoader(fileLoader, new ClasspathGreetingLoader()),
+            fileLoader,
+            outputEncoder);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        greetingCache.stop();
+
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void testLoad() {
+        EncodedOutput greeting = greetingCache.get();
+
+        assertArrayEquals(new String[] { "[yellow]First" }, greeting.getSource());
+        assertSame(greeting, greetingCache.get());
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        Files.write(file, Collections.singletonList("[yellow]Second"), UTF_8);
+
+        greetingCache.reload();
+
+        assertArrayEquals(new String[] { "[yellow]Second" }, greetingCache.get().getSource());
+    }
+
+    @Test
+    public void testReloadFallsBackToClasspath() throws Exception {
+        Files.delete(file);
+
+        greetingCache.reload();
+
+        assertEquals("[yellow]Hello&nbsp;world!", greetingCache.get().getSource()[0]);
+    }
+
+    @Test
+    public void testReloadFailureKeepsOldGreeting() {
+        FileGreetingLoader fileLoader = new FileGreetingLoader(file.toString());
+        FailingGreetingLoader failingLoader = new FailingGreetingLoader();
+        GreetingCache cache = new GreetingCache(failingLoader, fileLoader, outputEncoder);
+        EncodedOutput greeting = cache.get();
+
+        failingLoader.isFailing = true;
+        cache.reload();
+
+        assertSame(greeting, cache.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFirstLoadFailure() {
+        FailingGreetingLoader failingLoader = new FailingGreetingLoader();
+
+        failingLoader.isFailing = true;
+
+        new GreetingCache(failingLoader, new FileGreetingLoader(file.toString()), outputEncoder);
+    }
+
+    @Test
+    public void testWatch() throws Exception {
+        greetingCache.start();
+
+        Files.write(file, Collections.singletonList("[yellow]Watched"), UTF_8);
+
+        // some platforms poll for changes instead of being told, so give it plenty of time
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+
+        while (!"[yellow]Watched".equals(greetingCache.get().getSource()[0]) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertArrayEquals(new String[] { "[yellow]Watched" }, greetingCache.get().getSource());
+    }
+
+    private static class FailingGreetingLoader extends GreetingLoader {
+        private boolean isFailing = false;
+
+        @Override
+        public List<String> load() {
+            if (isFailing) {
+                throw new IllegalStateException("Unable to load greeting");
+            }
+
+            return Collections.singletonList("[yellow]Loaded");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.agonyengine.forge.controller.interpret;
+
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.mailbox.MailboxExecutor;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
+import com.agonyengine.forge.model.Connection;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class AsyncAuthenticatorTest {
+    @Mock
+    private MailboxExecutor mailboxExecutor;
+
+    @Mock
+    private OutboxManager outboxManager;
+
+    private Queue<Runnable> authTasks = new LinkedList<>();
+    private Queue<Runnable> mailboxTasks = new LinkedList<>();
+    private Connection connection = new Connection();
+    private AsyncAuthenticator asyncAuthenticator;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        connection.setId(UUID.randomUUID());
+
+        when(mailboxExecutor.submitIfOpen(eq(connection.getId()), any(Runnable.class))).thenAnswer(invocation -> {
+            mailboxTasks.add(invocation.getArgument(1));
+            return true;
+        });
+
+        asyncAuthenticator = new AsyncAuthenticator(authTasks::add, mailboxExecutor, outboxManager);
+    }
+
+    @Test
+    public void testSubmit() {
+        asyncAuthenticator.submit(
+            connection,
+            () -> "result",
+            (result, e) -> new Output("[yellow]" + result + " " + e));
+
+        assertTrue(asyncAuthenticator.isPending(connection));
+
+        authTasks.poll().run();
+
+        assertTrue(asyncAuthenticator.isPending(connection));
+        verifyZeroInteractions(outboxManager);
+
+        mailboxTasks.poll().run();
+
+        assertFalse(asyncAuthenticator.isPending(connection));
+        verify(outboxManager).flush(eq(connection), eq(new Output("[yellow]result null")));
+    }
+
+    @Test
+    public void testSubmitException() {
+        IllegalStateException exception = new IllegalStateException("Boom!");
+
+        asyncAuthenticator.submit(
+            connection,
+            () -> {
+                throw exception;
+            },
+            (result, e) -> new Output(result + " " + e.getMessage()));
+
+        authTasks.poll().run();
+        mailboxTasks.poll().run();
+
+        assertFalse(asyncAuthenticator.isPending(connection));
+        verify(outboxManager).flush(eq(connection), eq(new Output("null Boom!")));
+    }
+
+    @Test
+    public void testSubmitConnectionClosed() {
+        when(mailboxExecutor.submitIfOpen(any(), any())).thenReturn(false);
+
+        asyncAuthenticator.submit(connection, () -> "result", (result, e) -> new Output(result));
+
+        authTasks.poll().run();
+
+        assertFalse(asyncAuthenticator.isPending(connection));
+        assertTrue(mailboxTasks.isEmpty());
+        verifyZeroInteractions(outboxManager);
+    }
+
+    @Test
+    public void testSubmitRejected() {
+        asyncAuthenticator = new AsyncAuthenticator(task -> {
+            throw new RejectedExecutionException("Full");
+        }, mailboxExecutor, outboxManager);
+
+        try {
+            asyncAuthenticator.submit(connection, () -> "result", (result, e) -> new Output(result));
+            fail("Required exception was not thrown");
+        } catch (RejectedExecutionException e) {
+            assertEquals("Full", e.getMessage());
+        }
+
+        assertFalse(asyncAuthenticator.isPending(connection));
+    }
+}
@@ -1,40 +1,59 @@
 package com.agonyengine.forge.controller.interpret;
 
+import com.agonyengine.forge.controller.EncodedOutput;
 import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
 import com.agonyengine.forge.model.Connection;
 import com.agonyengine.forge.model.Creature;
-import com.agonyengine.forge.repository.CreatureRepository;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class BaseInterpreterTest {
     @Mock
-    private CreatureRepository creatureRepository;
+    private OnlineCreatureRegistry onlineCreatureRegistry;
 
     @Mock
-    private SimpMessagingTemplate simpMessagingTemplate;
+    private OutboxManager outboxManager;
 
+    @Captor
+    private ArgumentCaptor<EncodedOutput> encodedOutputCaptor;
+
+    @Captor
+    private ArgumentCaptor<Function<Connection, Output>> promptCaptor;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private OutputEncoder outputEncoder = new OutputEncoder(objectMapper);
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
     private Interpreter interpreter;
 
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
-        interpreter = new EchoInterpreter(creatureRepository, simpMessagingTemplate);
+        interpreter = new EchoInterpreter(onlineCreatureRegistry, outboxManager, outputEncoder, meterRegistry);
     }
 
     @Test
-    public void testEcho() {
+    public void testEcho() throws Exception {
         Creature creature = new Creature();
         Connection connection = new Connection();
         Output output = new Output("Hello");
@@ -44,10 +63,13 @@ public class BaseInterpreterTest {
 
         interpreter.echo(creature, output);
 
-        verify(simpMessagingTemplate).convertAndSendToUser(eq("username"), eq("/queue/output"), eq(output));
-        verifyZeroInteractions(creatureRepository);
+        verify(outboxManager).append(eq(connection), encodedOutputCaptor.capture());
+        verifyZeroInteractions(onlineCreatureRegistry);
 
-        assertEquals("Hello\n[default]> ", output.toString());
+        assertEquals(
+            objectMapper.readTree(objectMapper.writeValueAsBytes(output)),
+            objectMapper.readTree(outputEncoder.frame(encodedOutputCaptor.getValue())));
+        assertEquals("Hello", output.toString());
     }
 
     @Test
@@ -57,7 +79,7 @@ public class BaseInterpreterTest {
 
         interpreter.echo(creature, output);
 
-        verifyZeroInteractions(simpMessagingTemplate, creatureRepository);
+        verifyZeroInteractions(outboxManager, onlineCreatureRegistry);
     }
 
     @Test
@@ -70,7 +92,7 @@ public class BaseInterpreterTest {
 
         interpreter.echo(creature, output);
 
-        verifyZeroInteractions(simpMessagingTemplate, creatureRepository);
+        verifyZeroInteractions(outboxManager, onlineCreatureRegistry);
     }
 
     @Test
@@ -91,17 +113,58 @@ public class BaseInterpreterTest {
         included.setConnection(includedConnection);
         excluded.setConnection(excludedConnection);
 
-        when(creatureRepository.findByConnectionIsNotNull())
+        when(onlineCreatureRegistry.stream())
             .thenReturn(Stream.of(included, excluded));
 
         interpreter.echoToWorld(output, excluded);
 
-        verify(simpMessagingTemplate).convertAndSendToUser(
-            eq("included"),
-            eq("/queue/output"),
-            eq(output.append("[default]> ")));
-        verifyNoMoreInteractions(simpMessagingTemplate);
+        verify(outboxManager).append(eq(includedConnection), any(EncodedOutput.class));
+        verify(outboxManager, never()).append(eq(excludedConnection), any(EncodedOutput.class));
+
+        assertEquals("Hello", output.toString());
+    }
+
+    @Test
+    public void testEchoToWorldEncodesOnce() {
+        Creature first = new Creature();
+        Connection firstConnection = new Connection();
+        Creature second = new Creature();
+        Connection secondConnection = new Connection();
+
+        first.setId(UUID.randomUUID());
+        second.setId(UUID.randomUUID());
+
+        firstConnection.setSessionUsername("first");
+        secondConnection.setSessionUsername("second");
+
+        first.setConnection(firstConnection);
+        second.setConnection(secondConnection);
+
+        when(onlineCreatureRegistry.stream())
+            .thenReturn(Stream.of(first, second));
+
+        interpreter.echoToWorld(new Output("Hello"));
+
+        verify(outboxManager, times(2)).append(any(Connection.class), encodedOutputCaptor.capture());
+
+        assertEquals(1, encodedOutputCaptor.getAllValues().stream().distinct().count());
+        assertFalse(encodedOutputCaptor.getValue().isEmpty());
+    }
+
+    @Test
+    public void testFlushOutboxes() {
+        ((BaseInterpreter) interpreter).flushOutboxes();
+
+        verify(outboxManager).flushAll(promptCaptor.capture());
+
+        assertEquals(new Output("[default]> "), promptCaptor.getValue().apply(new Connection()));
+        assertEquals(1L, meterRegistry.get("agony.outbox.flush").timer().count());
+    }
+
+    @Test
+    public void testOnPulse() {
+        ((BaseInterpreter) interpreter).onPulse(1L);
 
-        assertEquals("Hello\n[default]> ", output.toString());
+        verify(outboxManager).flushAll(any());
     }
 }
@@ -3,30 +3,44 @@ package com.agonyengine.forge.controller.interpret;
 import com.agonyengine.forge.config.LoginConfiguration;
 import com.agonyengine.forge.controller.Input;
 import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.command.Command;
+import com.agonyengine.forge.controller.command.CommandLine;
+import com.agonyengine.forge.controller.command.CommandRegistry;
 import com.agonyengine.forge.model.Connection;
 import com.agonyengine.forge.model.Creature;
-import com.agonyengine.forge.repository.CreatureRepository;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.Collections;
 import java.util.Optional;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DefaultInGameInterpreterDelegateTest {
     @Mock
-    private CreatureRepository creatureRepository;
+    private OnlineCreatureRegistry onlineCreatureRegistry;
 
     @Mock
     private Interpreter primary;
 
+    @Mock
+    private Command command;
+
+    @Captor
+    private ArgumentCaptor<CommandLine> lineCaptor;
+
     private DefaultInGameInterpreterDelegate interpreter;
     private Creature me = new Creature();
 
@@ -38,16 +52,19 @@ public class DefaultInGameInterpreterDelegateTest {
 
         me.setName("Scion");
 
-        when(creatureRepository.findByConnection(any())).thenReturn(Optional.of(me));
+        when(onlineCreatureRegistry.findBySessionUsername(any())).thenReturn(Optional.of(me));
         when(primary.prompt(any())).thenAnswer(invocation -> {
             Connection connection = invocation.getArgument(0);
 
             return interpreter.prompt(primary, connection);
         });
+        when(command.getName()).thenReturn("gossip");
+        when(command.execute(any(Creature.class), any(CommandLine.class))).thenReturn(new Output("[green]You gossip 'Hello!'"));
 
         interpreter = new DefaultInGameInterpreterDelegate(
-            creatureRepository,
-            loginConfiguration
+            onlineCreatureRegistry,
+            loginConfiguration,
+            new CommandRegistry(Collections.singletonList(command))
         );
     }
 
@@ -56,14 +73,45 @@ public class DefaultInGameInterpreterDelegateTest {
         Input input = new Input();
         Connection connection = new Connection();
 
-        input.setInput("Hello!");
+        input.setInput("gos Hello!");
+
+        Output output = interpreter.interpret(primary, input, connection);
+
+        assertTrue(output.toString().startsWith("[green]You gossip 'Hello!'"));
+
+        verify(command).execute(eq(me), lineCaptor.capture());
+        verify(primary).prompt(eq(connection));
+        verify(primary, never()).echoToWorld(any(), any());
+
+        assertEquals("Hello!", lineCaptor.getValue().getArgument());
+    }
+
+    @Test
+    public void testInterpretUnknownCommand() {
+        Input input = new Input();
+        Connection connection = new Connection();
+
+        input.setInput("dance");
+
+        Output output = interpreter.interpret(primary, input, connection);
+
+        assertTrue(output.toString().startsWith("[default]Huh?"));
+
+        verify(command, never()).execute(any(), any());
+    }
+
+    @Test
+    public void testInterpretBlank() {
+        Input input = new Input();
+        Connection connection = new Connection();
+
+        input.setInput("   ");
 
         Output output = interpreter.interpret(primary, input, connection);
 
-        assertTrue(output.toString().contains("You gossip"));
-        assertTrue(output.toString().contains(input.toString()));
+        assertEquals(interpreter.prompt(primary, connection), output);
 
-        verify(primary).echoToWorld(any(), eq(me));
+        verify(command, never()).execute(any(), any());
     }
 
     @Test
@@ -73,7 +121,7 @@ public class DefaultInGameInterpreterDelegateTest {
 
         input.setInput("Hello!");
 
-        when(creatureRepository.findByConnection(any())).thenReturn(Optional.empty());
+        when(onlineCreatureRegistry.findBySessionUsername(any())).thenReturn(Optional.empty());
 
         try {
             interpreter.interpret(primary, input, connection);
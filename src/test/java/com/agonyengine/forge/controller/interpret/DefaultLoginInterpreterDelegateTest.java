@@ -3,10 +3,14 @@ package com.agonyengine.forge.controller.interpret;
 import com.agonyengine.forge.config.LoginConfiguration;
 import com.agonyengine.forge.controller.Input;
 import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.ResumeManager;
 import com.agonyengine.forge.model.Connection;
 import com.agonyengine.forge.model.Creature;
-import com.agonyengine.forge.repository.ConnectionRepository;
+import com.agonyengine.forge.repository.ConnectionCache;
 import com.agonyengine.forge.repository.CreatureRepository;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -21,10 +25,16 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.provisioning.UserDetailsManager;
 import org.springframework.session.Session;
 import org.springframework.session.SessionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
+import static com.agonyengine.forge.controller.ControllerConstants.AGONY_RESUME_TOKEN_KEY;
 import static com.agonyengine.forge.model.DefaultLoginConnectionState.*;
 import static com.agonyengine.forge.model.PrimaryConnectionState.IN_GAME;
 import static com.agonyengine.forge.model.PrimaryConnectionState.LOGIN;
@@ -44,11 +54,23 @@ public class DefaultLoginInterpreterDelegateTest {
     private SessionRepository sessionRepository;
 
     @Mock
-    private ConnectionRepository connectionRepository;
+    private ConnectionCache connectionCache;
 
     @Mock
     private CreatureRepository creatureRepository;
 
+    @Mock
+    private OnlineCreatureRegistry onlineCreatureRegistry;
+
+    @Mock
+    private AsyncAuthenticator asyncAuthenticator;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ResumeManager resumeManager;
+
     @Mock
     private Session session;
 
@@ -61,7 +83,9 @@ public class DefaultLoginInterpreterDelegateTest {
     @Captor
     private ArgumentCaptor<Creature> creatureCaptor;
 
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
     private DefaultLoginInterpreterDelegate interpreter;
+    private Output asyncOutput;
 
     @Before
     public void setUp() {
@@ -79,25 +103,50 @@ public class DefaultLoginInterpreterDelegateTest {
             }
         });
 
-        when(connectionRepository.save(any(Connection.class))).thenAnswer(invocation -> {
+        when(connectionCache.save(any(Connection.class))).thenAnswer(invocation -> {
             Connection connection = invocation.getArgument(0);
 
             connection.setId(UUID.randomUUID());
 
             return connection;
         });
+        when(connectionCache.saveAndFlush(any(Connection.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // run the slow part and its continuation right away, and keep the output that would have gone to the outbox
+        doAnswer(invocation -> {
+            Supplier<Object> work = invocation.getArgument(1);
+            BiFunction<Object, RuntimeException, Output> continuation = invocation.getArgument(2);
+            Object result = null;
+            RuntimeException exception = null;
+
+            try {
+                result = work.get();
+            } catch (RuntimeException e) {
+                exception = e;
+            }
+
+            asyncOutput = continuation.apply(result, exception);
+
+            return null;
+        }).when(asyncAuthenticator).submit(any(Connection.class), any(), any());
 
         Creature creature = new Creature();
 
         when(creatureRepository.findByConnection(any(Connection.class))).thenReturn(Optional.of(creature));
+        when(resumeManager.issue(any(Connection.class))).thenReturn("resume-token");
 
         interpreter = new DefaultLoginInterpreterDelegate(
             loginConfiguration,
             userDetailsManager,
             authenticationManager,
             sessionRepository,
-            connectionRepository,
-            creatureRepository);
+            connectionCache,
+            creatureRepository,
+            onlineCreatureRegistry,
+            asyncAuthenticator,
+            new TransactionTemplate(transactionManager),
+            resumeManager,
+            meterRegistry);
     }
 
     @Test
@@ -214,6 +263,8 @@ public class DefaultLoginInterpreterDelegateTest {
         assertNull(connection.getName());
         assertEquals(LOGIN, connection.getPrimaryState());
         assertEquals(LOGIN_ASK_NAME.name(), connection.getSecondaryState());
+        assertEquals(1L, meterRegistry.get("agony.login.state").tag("state", LOGIN_ASK_NAME.name()).timer().count());
+        assertTrue(meterRegistry.find("agony.login.transition").counters().isEmpty());
     }
 
     @Test
@@ -325,11 +376,15 @@ public class DefaultLoginInterpreterDelegateTest {
 
         verify(sessionRepository).findById(anyString());
         verify(session).setAttribute(eq(SPRING_SECURITY_CONTEXT_KEY), securityContextCaptor.capture());
+        verify(session).setAttribute(eq(AGONY_RESUME_TOKEN_KEY), eq("resume-token"));
         verify(sessionRepository).save(session);
+        verify(connectionCache).saveAndFlush(eq(connection));
         verify(creatureRepository).save(creatureCaptor.capture());
+        verify(onlineCreatureRegistry).register(creatureCaptor.getValue());
 
-        assertEquals("[yellow]Welcome back, Dani!\n\n[default]Dani> ", result.toString());
-        assertFalse(result.getSecret());
+        assertEquals("", result.toString());
+        assertEquals("[yellow]Welcome back, Dani!\n\n[default]Dani> ", asyncOutput.toString());
+        assertFalse(asyncOutput.getSecret());
         assertEquals(IN_GAME, connection.getPrimaryState());
 
         SecurityContext securityContext = securityContextCaptor.getValue();
@@ -342,6 +397,12 @@ public class DefaultLoginInterpreterDelegateTest {
 
         assertEquals("Dani", creature.getName());
         assertEquals(connection, creature.getConnection());
+
+        assertEquals(1L, meterRegistry.get("agony.login.authenticate").tag("state", LOGIN_ASK_PASSWORD.name()).timer().count());
+        assertEquals(1.0, meterRegistry.get("agony.login.transition")
+            .tag("from", LOGIN_ASK_PASSWORD.name())
+            .tag("to", IN_GAME.name())
+            .counter().count(), 0.0);
     }
 
     @Test
@@ -361,10 +422,16 @@ public class DefaultLoginInterpreterDelegateTest {
 
         verifyZeroInteractions(sessionRepository, session);
 
-        assertEquals("[red]Sorry! Please try again!\n[default]Create a new character? [y/N]: ", result.toString());
-        assertFalse(result.getSecret());
+        assertEquals("", result.toString());
+        assertEquals("[red]Sorry! Please try again!\n[default]Create a new character? [y/N]: ", asyncOutput.toString());
+        assertFalse(asyncOutput.getSecret());
         assertEquals(LOGIN, connection.getPrimaryState());
         assertEquals(DEFAULT.name(), connection.getSecondaryState());
+        assertEquals(1L, meterRegistry.get("agony.login.authenticate").tag("state", LOGIN_ASK_PASSWORD.name()).timer().count());
+        assertEquals(1.0, meterRegistry.get("agony.login.transition")
+            .tag("from", LOGIN_ASK_PASSWORD.name())
+            .tag("to", DEFAULT.name())
+            .counter().count(), 0.0);
     }
 
     @Test
@@ -383,6 +450,11 @@ public class DefaultLoginInterpreterDelegateTest {
         assertFalse(result.getSecret());
         assertEquals(LOGIN, connection.getPrimaryState());
         assertEquals(CREATE_CHOOSE_NAME.name(), connection.getSecondaryState());
+        assertEquals(1L, meterRegistry.get("agony.login.state").tag("state", DEFAULT.name()).timer().count());
+        assertEquals(1.0, meterRegistry.get("agony.login.transition")
+            .tag("from", DEFAULT.name())
+            .tag("to", CREATE_CHOOSE_NAME.name())
+            .counter().count(), 0.0);
     }
 
     @Test
@@ -603,10 +675,12 @@ public class DefaultLoginInterpreterDelegateTest {
         verify(userDetailsManager).createUser(any(User.class));
         verify(sessionRepository).findById(anyString());
         verify(session).setAttribute(eq(SPRING_SECURITY_CONTEXT_KEY), securityContextCaptor.capture());
+        verify(session, never()).setAttribute(eq(AGONY_RESUME_TOKEN_KEY), any());
         verify(sessionRepository).save(session);
 
-        assertEquals("[default]Please confirm your password: ", result.toString());
-        assertTrue(result.getSecret());
+        assertEquals("", result.toString());
+        assertEquals("[default]Please confirm your password: ", asyncOutput.toString());
+        assertTrue(asyncOutput.getSecret());
         assertEquals(LOGIN, connection.getPrimaryState());
         assertEquals(CREATE_CONFIRM_PASSWORD.name(), connection.getSecondaryState());
 
@@ -659,8 +733,9 @@ public class DefaultLoginInterpreterDelegateTest {
 
         verifyZeroInteractions(sessionRepository, session);
 
-        assertEquals("[red]Oops! Something bad happened. The error has been logged.\n[default]Please choose a password: ", result.toString());
-        assertTrue(result.getSecret());
+        assertEquals("", result.toString());
+        assertEquals("[red]Oops! Something bad happened. The error has been logged.\n[default]Please choose a password: ", asyncOutput.toString());
+        assertTrue(asyncOutput.getSecret());
         assertEquals(LOGIN, connection.getPrimaryState());
         assertEquals(CREATE_CHOOSE_PASSWORD.name(), connection.getSecondaryState());
     }
@@ -684,11 +759,15 @@ public class DefaultLoginInterpreterDelegateTest {
 
         verify(sessionRepository).findById(anyString());
         verify(session).setAttribute(eq(SPRING_SECURITY_CONTEXT_KEY), securityContextCaptor.capture());
+        verify(session).setAttribute(eq(AGONY_RESUME_TOKEN_KEY), eq("resume-token"));
         verify(sessionRepository).save(session);
+        verify(connectionCache).saveAndFlush(eq(connection));
         verify(creatureRepository).save(creatureCaptor.capture());
+        verify(onlineCreatureRegistry).register(creatureCaptor.getValue());
 
-        assertEquals("[yellow]Welcome, Dani!\n\n[default]Dani> ", result.toString());
-        assertFalse(result.getSecret());
+        assertEquals("", result.toString());
+        assertEquals("[yellow]Welcome, Dani!\n\n[default]Dani> ", asyncOutput.toString());
+        assertFalse(asyncOutput.getSecret());
         assertEquals(IN_GAME, connection.getPrimaryState());
         assertEquals("DEFAULT", connection.getSecondaryState());
 
@@ -747,9 +826,50 @@ public class DefaultLoginInterpreterDelegateTest {
         verifyZeroInteractions(sessionRepository, session);
         verify(userDetailsManager).deleteUser(eq(connection.getName()));
 
-        assertEquals("[red]Passwords do not match. Please try again!\n[default]Please choose a password: ", result.toString());
-        assertTrue(result.getSecret());
+        assertEquals("", result.toString());
+        assertEquals("[red]Passwords do not match. Please try again!\n[default]Please choose a password: ", asyncOutput.toString());
+        assertTrue(asyncOutput.getSecret());
         assertEquals(LOGIN, connection.getPrimaryState());
         assertEquals(CREATE_CHOOSE_PASSWORD.name(), connection.getSecondaryState());
     }
+
+    @Test
+    public void testInterpretPasswordPending() {
+        Input input = new Input();
+        Connection connection = new Connection();
+
+        input.setInput("Not!A_Real123Password");
+        connection.setName("Dani");
+        connection.setPrimaryState(LOGIN);
+        connection.setSecondaryState(LOGIN_ASK_PASSWORD.name());
+
+        when(asyncAuthenticator.isPending(connection)).thenReturn(true);
+
+        Output result = interpreter.interpret(primary, input, connection);
+
+        assertEquals("", result.toString());
+        verify(asyncAuthenticator, never()).submit(any(), any(), any());
+        verifyZeroInteractions(authenticationManager);
+        assertEquals(LOGIN_ASK_PASSWORD.name(), connection.getSecondaryState());
+    }
+
+    @Test
+    public void testInterpretPasswordBusy() {
+        Input input = new Input();
+        Connection connection = new Connection();
+
+        input.setInput("Not!A_Real123Password");
+        connection.setName("Dani");
+        connection.setPrimaryState(LOGIN);
+        connection.setSecondaryState(LOGIN_ASK_PASSWORD.name());
+
+        doThrow(new RejectedExecutionException("Full")).when(asyncAuthenticator).submit(any(), any(), any());
+
+        Output result = interpreter.interpret(primary, input, connection);
+
+        assertEquals("[red]The server is very busy right now. Please try again in a moment.\n[default]Password: ", result.toString());
+        assertTrue(result.getSecret());
+        verifyZeroInteractions(authenticationManager);
+        assertEquals(LOGIN_ASK_PASSWORD.name(), connection.getSecondaryState());
+    }
 }
@@ -2,13 +2,17 @@ package com.agonyengine.forge.controller.interpret;
 
 import com.agonyengine.forge.controller.Input;
 import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
 import com.agonyengine.forge.model.Connection;
-import com.agonyengine.forge.repository.CreatureRepository;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import static com.agonyengine.forge.model.PrimaryConnectionState.IN_GAME;
 import static com.agonyengine.forge.model.PrimaryConnectionState.LOGIN;
@@ -19,10 +23,10 @@ import static org.mockito.Mockito.*;
 
 public class DefaultPrimaryInterpreterTest {
     @Mock
-    private CreatureRepository creatureRepository;
+    private OnlineCreatureRegistry onlineCreatureRegistry;
 
     @Mock
-    private SimpMessagingTemplate simpMessagingTemplate;
+    private OutboxManager outboxManager;
 
     @Mock
     private LoginInterpreterDelegate loginInterpreterDelegate;
@@ -30,6 +34,7 @@ public class DefaultPrimaryInterpreterTest {
     @Mock
     private InGameInterpreterDelegate inGameInterpreterDelegate;
 
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
     private DefaultPrimaryInterpreter primary;
 
     @Before
@@ -37,10 +42,12 @@ public class DefaultPrimaryInterpreterTest {
         MockitoAnnotations.initMocks(this);
 
         primary = new DefaultPrimaryInterpreter(
-            creatureRepository,
-            simpMessagingTemplate,
+            onlineCreatureRegistry,
+            outboxManager,
+            new OutputEncoder(new ObjectMapper()),
             loginInterpreterDelegate,
-            inGameInterpreterDelegate
+            inGameInterpreterDelegate,
+            meterRegistry
         );
 
         // Have to do the expectations after instantiating the class under test
@@ -67,6 +74,8 @@ public class DefaultPrimaryInterpreterTest {
         verifyZeroInteractions(inGameInterpreterDelegate);
 
         assertEquals("Login!", output.toString());
+        assertEquals(1L, meterRegistry.get("agony.interpret").tag("state", "LOGIN").timer().count());
+        assertEquals(0L, meterRegistry.get("agony.interpret").tag("state", "IN_GAME").timer().count());
     }
 
     @Test
@@ -83,6 +92,8 @@ public class DefaultPrimaryInterpreterTest {
         verifyZeroInteractions(loginInterpreterDelegate);
 
         assertEquals("In Game!", output.toString());
+        assertEquals(1L, meterRegistry.get("agony.interpret").tag("state", "IN_GAME").timer().count());
+        assertEquals(0L, meterRegistry.get("agony.interpret").tag("state", "LOGIN").timer().count());
     }
 
     @Test
@@ -2,9 +2,11 @@ package com.agonyengine.forge.controller.interpret;
 
 import com.agonyengine.forge.controller.Input;
 import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.outbox.OutboxManager;
 import com.agonyengine.forge.model.Connection;
-import com.agonyengine.forge.repository.CreatureRepository;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
@@ -12,8 +14,13 @@ import javax.inject.Inject;
 @Component
 public class EchoInterpreter extends BaseInterpreter {
     @Inject
-    public EchoInterpreter(CreatureRepository creatureRepository, SimpMessagingTemplate simpMessagingTemplate) {
-        super(creatureRepository, simpMessagingTemplate);
+    public EchoInterpreter(
+        OnlineCreatureRegistry onlineCreatureRegistry,
+        OutboxManager outboxManager,
+        OutputEncoder outputEncoder,
+        MeterRegistry meterRegistry) {
+
+        super(onlineCreatureRegistry, outboxManager, outputEncoder, meterRegistry);
     }
 
     @Override
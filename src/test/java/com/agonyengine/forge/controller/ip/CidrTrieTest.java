@@ -0,0 +1,89 @@
+package com.agonyengine.forge.controller.ip;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CidrTrieTest {
+    private CidrTrie trie;
+
+    @Before
+    public void setUp() {
+        trie = new CidrTrie();
+    }
+
+    @Test
+    public void testContainsIpv4() {
+        trie.add("10.0.0.0/8");
+        trie.add("172.16.0.0/12");
+        trie.add("203.0.113.7");
+
+        assertTrue(trie.contains(InetAddressParser.parse("10.1.2.3")));
+        assertTrue(trie.contains(InetAddressParser.parse("172.31.255.255")));
+        assertTrue(trie.contains(InetAddressParser.parse("203.0.113.7")));
+
+        assertFalse(trie.contains(InetAddressParser.parse("11.0.0.1")));
+        assertFalse(trie.contains(InetAddressParser.parse("172.32.0.0")));
+        assertFalse(trie.contains(InetAddressParser.parse("203.0.113.8")));
+    }
+
+    @Test
+    public void testContainsIpv6() {
+        trie.add("fc00::/7");
+        trie.add("::1/128");
+
+        assertTrue(trie.contains(InetAddressParser.parse("fd12:3456::1")));
+        assertTrue(trie.contains(InetAddressParser.parse("::1")));
+
+        assertFalse(trie.contains(InetAddressParser.parse("fe80::1")));
+        assertFalse(trie.contains(InetAddressParser.parse("::2")));
+        assertFalse(trie.contains(InetAddressParser.parse("10.0.0.1")));
+    }
+
+    @Test
+    public void testContainsMapped() {
+        trie.add("192.168.0.0/16");
+
+        assertTrue(trie.contains(InetAddressParser.parse("::ffff:192.168.4.4")));
+    }
+
+    @Test
+    public void testWiderBlockCoversNarrower() {
+        trie.add("10.1.0.0/16");
+        trie.add("10.0.0.0/8");
+        trie.add("10.2.0.0/16");
+
+        assertTrue(trie.contains(InetAddressParser.parse("10.3.0.1")));
+    }
+
+    @Test
+    public void testMatchAll() {
+        trie.add("0.0.0.0/0");
+
+        assertTrue(trie.contains(InetAddressParser.parse("8.8.8.8")));
+        assertFalse(trie.contains(InetAddressParser.parse("2001:db8::1")));
+    }
+
+    @Test
+    public void testContainsInvalid() {
+        trie.add("0.0.0.0/0");
+
+        assertFalse(trie.contains(null));
+        assertFalse(trie.contains(new byte[] { 1, 2 }));
+    }
+
+    @Test
+    public void testAddInvalid() {
+        String[] invalid = new String[] { "localhost", "10.0.0.0/33", "::/129", "10.0.0.0/-1", "10.0.0.0/x", "/8" };
+
+        for (String cidr : invalid) {
+            try {
+                trie.add(cidr);
+                fail("Required exception was not thrown for " + cidr);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.agonyengine.forge.controller.ip;
+
+import com.agonyengine.forge.config.ConnectionLimitProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConnectionLimiterTest {
+    private ConnectionLimitProperties properties = new ConnectionLimitProperties();
+    private ConnectionLimiter limiter;
+
+    @Before
+    public void setUp() {
+        properties.setPerAddress(2);
+        properties.setPerSubnet(3);
+
+        limiter = new ConnectionLimiter(properties);
+    }
+
+    @Test
+    public void testPerAddress() {
+        assertTrue(limiter.acquire("8.8.8.8"));
+        assertTrue(limiter.acquire("8.8.8.8"));
+        assertFalse(limiter.acquire("8.8.8.8"));
+
+        assertEquals(2, limiter.countAddress("8.8.8.8"));
+
+        limiter.release("8.8.8.8");
+
+        assertTrue(limiter.acquire("8.8.8.8"));
+    }
+
+    @Test
+    public void testPerSubnet() {
+        assertTrue(limiter.acquire("8.8.8.1"));
+        assertTrue(limiter.acquire("8.8.8.2"));
+        assertTrue(limiter.acquire("8.8.8.3"));
+        assertFalse(limiter.acquire("8.8.8.4"));
+        assertTrue(limiter.acquire("8.8.9.1"));
+
+        assertEquals(3, limiter.countSubnet("8.8.8.200"));
+        assertEquals(0, limiter.countAddress("8.8.8.4"));
+    }
+
+    @Test
+    public void testIpv6Subnet() {
+        assertTrue(limiter.acquire("2001:db8:0:1:0:0:0:1"));
+        assertTrue(limiter.acquire("2001:db8:0:1:0:0:0:2"));
+        assertTrue(limiter.acquire("2001:db8:0:1:ffff:0:0:3"));
+        assertFalse(limiter.acquire("2001:db8:0:1:0:0:0:4"));
+        assertTrue(limiter.acquire("2001:db8:0:2:0:0:0:1"));
+    }
+
+    @Test
+    public void testSubnetOf() {
+        assertEquals("8.8.8.0/24", limiter.subnetOf("8.8.8.8"));
+        assertEquals("2001:db8:0:1:0:0:0:0/64", limiter.subnetOf("2001:db8:0:1:2:3:4:5"));
+        assertEquals("0:0:0:0:0:0:0:0/64", limiter.subnetOf("0:0:0:0:0:0:0:1%0"));
+        assertNull(limiter.subnetOf("unknown"));
+    }
+
+    @Test
+    public void testReleaseForgetsIdleAddresses() {
+        limiter.acquire("8.8.8.8");
+        limiter.acquire("8.8.4.4");
+        limiter.release("8.8.8.8");
+        limiter.release("8.8.4.4");
+
+        assertEquals(0, limiter.size());
+        assertEquals(0, limiter.countSubnet("8.8.8.8"));
+    }
+
+    @Test
+    public void testUnlimited() {
+        properties.setPerAddress(0);
+        properties.setPerSubnet(0);
+        limiter = new ConnectionLimiter(properties);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.acquire("8.8.8.8"));
+        }
+    }
+
+    @Test
+    public void testConcurrentAcquireAndRelease() throws Exception {
+        properties.setPerAddress(8);
+        properties.setPerSubnet(0);
+        limiter = new ConnectionLimiter(properties);
+
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger open = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                for (int i = 0; i < 10000; i++) {
+                    if (limiter.acquire("8.8.8.8")) {
+                        peak.accumulateAndGet(open.incrementAndGet(), Math::max);
+                        open.decrementAndGet();
+                        limiter.release("8.8.8.8");
+                    }
+                }
+            });
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(peak.get() <= 8);
+        assertEquals(0, limiter.countAddress("8.8.8.8"));
+        assertEquals(0, limiter.size());
+    }
+}
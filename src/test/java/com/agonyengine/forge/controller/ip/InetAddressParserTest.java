@@ -0,0 +1,96 @@
+package com.agonyengine.forge.controller.ip;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+
+import static org.junit.Assert.*;
+
+public class InetAddressParserTest {
+    @Test
+    public void testParseIpv4() throws Exception {
+        assertArrayEquals(InetAddress.getByName("8.8.4.4").getAddress(), InetAddressParser.parse("8.8.4.4"));
+        assertArrayEquals(new byte[] { 0, 0, 0, 0 }, InetAddressParser.parse("0.0.0.0"));
+        assertArrayEquals(new byte[] { (byte) 255, (byte) 255, (byte) 255, (byte) 255 }, InetAddressParser.parse("255.255.255.255"));
+        assertArrayEquals(new byte[] { 10, 0, 0, 1 }, InetAddressParser.parse("  10.0.0.1 "));
+    }
+
+    @Test
+    public void testParseIpv6() throws Exception {
+        String[] literals = new String[] {
+            "::",
+            "::1",
+            "1::",
+            "2001:db8::1",
+            "2001:DB8:0:0:8:800:200C:417A",
+            "fe80::1:2:3:4",
+            "1:2:3:4:5:6:7::",
+            "::2:3:4:5:6:7:8",
+            "64:ff9b::192.0.2.33"
+        };
+
+        for (String literal : literals) {
+            assertArrayEquals(literal, InetAddress.getByName(literal).getAddress(), InetAddressParser.parse(literal));
+        }
+
+        assertArrayEquals(InetAddress.getByName("2001:db8::1").getAddress(), InetAddressParser.parse("[2001:db8::1]"));
+    }
+
+    @Test
+    public void testParseMapped() {
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 }, InetAddressParser.parse("::ffff:1.2.3.4"));
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 }, InetAddressParser.parse("::ffff:102:304"));
+    }
+
+    @Test
+    public void testParseInvalid() {
+        String[] invalid = new String[] {
+            null,
+            "",
+            " ",
+            "[]",
+            "localhost",
+            "not.a.valid.hostname",
+            "1.2.3",
+            "1.2.3.4.5",
+            "256.1.1.1",
+            "1.2.3.4:8080",
+            "1..2.3",
+            "1234.1.1.1",
+            "-1.2.3.4",
+            ":",
+            ":::",
+            ":1",
+            "1:",
+            "1::2::3",
+            "1:2:3:4:5:6:7:8:9",
+            "1:2:3:4:5:6:7",
+            "1:2:3:4:5:6:7:8::",
+            "12345::",
+            "g::1",
+            "fe80::1%eth0",
+            "::1.2.3",
+            "1:2:3:4:5:6:7:1.2.3.4"
+        };
+
+        for (String text : invalid) {
+            assertNull(text, InetAddressParser.parse(text));
+        }
+    }
+
+    @Test
+    public void testParseRange() {
+        assertArrayEquals(new byte[] { 8, 8, 8, 8 }, InetAddressParser.parse("1.1.1.1,8.8.8.8", 8, 15));
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals("8.8.8.8", InetAddressParser.format(new byte[] { 8, 8, 8, 8 }));
+        assertEquals("2001:db8:0:0:0:0:0:1", InetAddressParser.format(InetAddressParser.parse("2001:db8::1")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFormatInvalid() {
+        InetAddressParser.format(new byte[] { 1, 2, 3 });
+    }
+}
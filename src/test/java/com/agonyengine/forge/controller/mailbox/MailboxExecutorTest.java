@@ -0,0 +1,124 @@
+package com.agonyengine.forge.controller.mailbox;
+
+import com.agonyengine.forge.config.MailboxProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class MailboxExecutorTest {
+    private Queue<Runnable> executed = new LinkedList<>();
+    private MailboxExecutor mailboxExecutor;
+
+    @Before
+    public void setUp() {
+        mailboxExecutor = new MailboxExecutor(executed::add, new MailboxProperties());
+    }
+
+    @Test
+    public void testSameConnectionRunsSerially() {
+        UUID id = UUID.randomUUID();
+        List<String> results = new ArrayList<>();
+
+        mailboxExecutor.open(id);
+        mailboxExecutor.submitIfOpen(id, () -> results.add("one"));
+        mailboxExecutor.submitIfOpen(id, () -> results.add("two"));
+
+        assertEquals(1, mailboxExecutor.size());
+        assertEquals(1, executed.size());
+
+        executed.poll().run();
+
+        assertEquals(2, results.size());
+        assertEquals("one", results.get(0));
+        assertEquals("two", results.get(1));
+    }
+
+    @Test
+    public void testDifferentConnectionsRunInParallel() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        mailboxExecutor.open(first);
+        mailboxExecutor.open(second);
+        mailboxExecutor.submitIfOpen(first, () -> { });
+        mailboxExecutor.submitIfOpen(second, () -> { });
+
+        assertEquals(2, mailboxExecutor.size());
+        assertEquals(2, executed.size());
+    }
+
+    @Test
+    public void testSubmitIfOpen() {
+        UUID id = UUID.randomUUID();
+        List<String> results = new ArrayList<>();
+
+        assertFalse(mailboxExecutor.submitIfOpen(id, () -> results.add("closed")));
+        assertTrue(executed.isEmpty());
+        assertEquals(0, mailboxExecutor.size());
+
+        mailboxExecutor.open(id);
+
+        assertTrue(mailboxExecutor.submitIfOpen(id, () -> results.add("one")));
+
+        executed.poll().run();
+
+        assertEquals(1, results.size());
+        assertEquals("one", results.get(0));
+    }
+
+    @Test
+    public void testOpenKeepsMailbox() {
+        UUID id = UUID.randomUUID();
+        List<String> results = new ArrayList<>();
+
+        mailboxExecutor.open(id);
+        mailboxExecutor.submitIfOpen(id, () -> results.add("one"));
+        mailboxExecutor.open(id);
+        mailboxExecutor.submitIfOpen(id, () -> results.add("two"));
+
+        assertEquals(1, mailboxExecutor.size());
+        assertEquals(1, executed.size());
+
+        executed.poll().run();
+
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    public void testClose() {
+        UUID id = UUID.randomUUID();
+        List<String> results = new ArrayList<>();
+
+        mailboxExecutor.open(id);
+        mailboxExecutor.submitIfOpen(id, () -> results.add("one"));
+        mailboxExecutor.close(id);
+        mailboxExecutor.close(null);
+
+        assertEquals(0, mailboxExecutor.size());
+
+        executed.poll().run();
+
+        assertEquals(1, results.size());
+    }
+
+    @Test
+    public void testSubmitAfterClose() {
+        UUID id = UUID.randomUUID();
+        List<String> results = new ArrayList<>();
+
+        mailboxExecutor.open(id);
+        mailboxExecutor.close(id);
+
+        assertFalse(mailboxExecutor.submitIfOpen(id, () -> results.add("late")));
+        assertEquals(0, mailboxExecutor.size());
+        assertTrue(executed.isEmpty());
+        assertTrue(results.isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+package com.agonyengine.forge.controller.mailbox;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class MailboxTest {
+    private Queue<Runnable> executed = new LinkedList<>();
+    private Executor executor = executed::add;
+
+    @Test
+    public void testRunsInOrder() {
+        List<Integer> results = new ArrayList<>();
+        Mailbox mailbox = new Mailbox(executor, 10);
+
+        mailbox.submit(() -> results.add(1));
+        mailbox.submit(() -> results.add(2));
+        mailbox.submit(() -> results.add(3));
+
+        assertEquals(1, executed.size());
+
+        executed.poll().run();
+
+        assertEquals(3, results.size());
+        assertEquals(Integer.valueOf(1), results.get(0));
+        assertEquals(Integer.valueOf(2), results.get(1));
+        assertEquals(Integer.valueOf(3), results.get(2));
+        assertTrue(executed.isEmpty());
+    }
+
+    @Test
+    public void testYieldsAfterThroughput() {
+        List<Integer> results = new ArrayList<>();
+        Mailbox mailbox = new Mailbox(executor, 2);
+
+        mailbox.submit(() -> results.add(1));
+        mailbox.submit(() -> results.add(2));
+        mailbox.submit(() -> results.add(3));
+
+        executed.poll().run();
+
+        assertEquals(2, results.size());
+        assertEquals(1, executed.size());
+
+        executed.poll().run();
+
+        assertEquals(3, results.size());
+        assertTrue(executed.isEmpty());
+    }
+
+    @Test
+    public void testSurvivesException() {
+        List<Integer> results = new ArrayList<>();
+        Mailbox mailbox = new Mailbox(executor, 10);
+
+        mailbox.submit(() -> {
+            throw new IllegalStateException("Test");
+        });
+        mailbox.submit(() -> results.add(2));
+
+        executed.poll().run();
+
+        assertEquals(1, results.size());
+
+        mailbox.submit(() -> results.add(3));
+
+        assertEquals(1, executed.size());
+    }
+
+    @Test
+    public void testRejected() {
+        AtomicBoolean reject = new AtomicBoolean(true);
+        Mailbox mailbox = new Mailbox(task -> {
+            if (reject.get()) {
+                throw new RejectedExecutionException("Test");
+            }
+
+            executed.add(task);
+        }, 10);
+
+        try {
+            mailbox.submit(() -> { });
+            fail("Required exception was not thrown");
+        } catch (RejectedExecutionException e) {
+            assertEquals("Test", e.getMessage());
+        }
+
+        reject.set(false);
+        mailbox.submit(() -> { });
+
+        assertEquals(1, executed.size());
+    }
+}
@@ -0,0 +1,276 @@
+package com.agonyengine.forge.controller.outbox;
+
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.config.OutputPolicyProperties;
+import com.agonyengine.forge.config.ScrollbackProperties;
+import com.agonyengine.forge.controller.WireFormat;
+import com.agonyengine.forge.controller.scrollback.ScrollbackManager;
+import com.agonyengine.forge.controller.stats.SessionStats;
+import com.agonyengine.forge.controller.stats.SessionStatsRegistry;
+import com.agonyengine.forge.model.Connection;
+import com.agonyengine.forge.model.PrimaryConnectionState;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class OutboxManagerTest {
+    @Mock
+    private SimpMessagingTemplate simpMessagingTemplate;
+
+    @Mock
+    private Executor closeExecutor;
+
+    @Captor
+    private ArgumentCaptor<Message<byte[]>> messageCaptor;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private OutputEncoder outputEncoder = new OutputEncoder(objectMapper);
+    private ScrollbackManager scrollbackManager = new ScrollbackManager(new ScrollbackProperties());
+    private SessionStatsRegistry sessionStatsRegistry = new SessionStatsRegistry();
+    private Connection connection = new Connection();
+    private OutboxManager outboxManager;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(simpMessagingTemplate.getUserDestinationPrefix()).thenReturn("/user/");
+
+        connection.setId(UUID.randomUUID());
+        connection.setSessionUsername("dani");
+        connection.setSessionId("session");
+
+        outboxManager = new OutboxManager(
+            simpMessagingTemplate,
+            outputEncoder,
+            scrollbackManager,
+            new SlowConsumerPolicy(
+                sessionStatsRegistry,
+                closeExecutor,
+                outputEncoder,
+                new OutputPolicyProperties(),
+                new SimpleMeterRegistry()));
+    }
+
+    @Test
+    public void testOpenAndClose() {
+        outboxManager.open(connection);
+
+        assertEquals(1, outboxManager.size());
+
+        outboxManager.close("dani");
+        outboxManager.close(null);
+
+        assertEquals(0, outboxManager.size());
+    }
+
+    @Test
+    public void testAppendDoesNotSend() {
+        outboxManager.open(connection);
+        outboxManager.append(connection, outputEncoder.encode(new Output("Hello")));
+
+        verify(simpMessagingTemplate, never()).send(anyString(), any());
+    }
+
+    @Test
+    public void testAppendNoOutbox() {
+        outboxManager.append(connection, outputEncoder.encode(new Output("Hello")));
+        outboxManager.flushAll(c -> new Output("> "));
+
+        verify(simpMessagingTemplate, never()).send(anyString(), any());
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        outboxManager.open(connection);
+        outboxManager.append(connection, outputEncoder.encode(new Output("One")));
+        outboxManager.append(connection, outputEncoder.encode(new Output("Two")));
+        outboxManager.flush(connection, new Output("Three", "> "));
+
+        verify(simpMessagingTemplate).send(eq("/user/dani/queue/output"), messageCaptor.capture());
+
+        assertEquals(toJson(new Output("One", "Two", "Three", "> ")), fromPayload(messageCaptor.getValue()));
+        assertEquals(
+            MimeTypeUtils.APPLICATION_JSON,
+            SimpMessageHeaderAccessor.wrap(messageCaptor.getValue()).getContentType());
+
+        outboxManager.flushAll(c -> new Output("> "));
+
+        verifyNoMoreInteractions(simpMessagingTemplate);
+    }
+
+    @Test
+    public void testFlushNoOutbox() throws Exception {
+        outboxManager.flush(connection, new Output("Hello", "> "));
+
+        verify(simpMessagingTemplate).send(eq("/user/dani/queue/output"), messageCaptor.capture());
+
+        assertEquals(toJson(new Output("Hello", "> ")), fromPayload(messageCaptor.getValue()));
+    }
+
+    @Test
+    public void testFlushNothingToSend() {
+        outboxManager.flush(connection, new Output());
+        outboxManager.open(connection);
+        outboxManager.flush(connection, new Output());
+
+        verify(simpMessagingTemplate, never()).send(anyString(), any());
+    }
+
+    @Test
+    public void testFlushOnlyPending() throws Exception {
+        outboxManager.open(connection);
+        outboxManager.append(connection, outputEncoder.encode(new Output("One")));
+        outboxManager.flush(connection, new Output());
+
+        verify(simpMessagingTemplate).send(eq("/user/dani/queue/output"), messageCaptor.capture());
+
+        assertEquals(toJson(new Output("One")), fromPayload(messageCaptor.getValue()));
+    }
+
+    @Test
+    public void testFlushCompact() {
+        outboxManager.open(connection, WireFormat.COMPACT);
+        outboxManager.append(connection, outputEncoder.encode(new Output("One")));
+        outboxManager.flush(connection, new Output("> "));
+
+        verify(simpMessagingTemplate).send(eq("/user/dani/queue/output"), messageCaptor.capture());
+
+        assertEquals("03:One2:> ", new String(messageCaptor.getValue().getPayload(), UTF_8));
+        assertEquals(
+            WireFormat.COMPACT.getMimeType(),
+            SimpMessageHeaderAccessor.wrap(messageCaptor.getValue()).getContentType());
+    }
+
+    @Test
+    public void testFlushAll() throws Exception {
+        Connection other = new Connection();
+
+        other.setId(UUID.randomUUID());
+        other.setSessionUsername("scion");
+
+        outboxManager.open(connection);
+        outboxManager.open(other);
+        outboxManager.append(connection, outputEncoder.encode(new Output("One")));
+        outboxManager.append(connection, outputEncoder.encode(new Output("Two")));
+
+        outboxManager.flushAll(c -> new Output("[default]> ").setSecret(true));
+
+        verify(simpMessagingTemplate).send(eq("/user/dani/queue/output"), messageCaptor.capture());
+        verify(simpMessagingTemplate, never()).send(eq("/user/scion/queue/output"), any());
+
+        assertEquals(
+            toJson(new Output(new Output("One", "Two"), new Output("[default]> ").setSecret(true))),
+            fromPayload(messageCaptor.getValue()));
+
+        outboxManager.flushAll(c -> new Output("[default]> "));
+
+        verify(simpMessagingTemplate, times(1)).send(anyString(), any());
+    }
+
+    @Test
+    public void testFlushRecordsScrollback() {
+        connection.setPrimaryState(PrimaryConnectionState.IN_GAME);
+
+        scrollbackManager.open(connection.getId());
+        outboxManager.open(connection);
+        outboxManager.append(connection, outputEncoder.encode(new Output("One")));
+        outboxManager.append(connection, outputEncoder.encode(new Output("Secret").setSecret(true)));
+        outboxManager.flush(connection, new Output("Two", "> "));
+
+        verify(simpMessagingTemplate).send(eq("/user/dani/queue/output"), messageCaptor.capture());
+
+        assertEquals(
+            "3",
+            SimpMessageHeaderAccessor.wrap(messageCaptor.getValue()).getFirstNativeHeader(ScrollbackManager.SEQUENCE_HEADER));
+        assertEquals(new Output("One", "Two", "> "), scrollbackManager.replay(connection.getId(), 0));
+        assertEquals(new Output("> "), scrollbackManager.replay(connection.getId(), 2));
+    }
+
+    @Test
+    public void testFlushSkipsScrollbackOutOfGame() {
+        connection.setPrimaryState(PrimaryConnectionState.LOGIN);
+
+        outboxManager.open(connection);
+        outboxManager.flush(connection, new Output("Name: "));
+
+        verify(simpMessagingTemplate).send(eq("/user/dani/queue/output"), messageCaptor.capture());
+
+        assertNull(SimpMessageHeaderAccessor.wrap(messageCaptor.getValue()).getFirstNativeHeader(ScrollbackManager.SEQUENCE_HEADER));
+        assertEquals(0, scrollbackManager.size());
+    }
+
+    @Test
+    public void testFlushHoldsWhileBehind() throws Exception {
+        SessionStats stats = sessionStatsRegistry.open("session");
+
+        outboxManager.open(connection);
+
+        for (int i = 0; i < 100; i++) {
+            stats.queue();
+        }
+
+        outboxManager.append(connection, outputEncoder.encode(new Output("One")));
+        outboxManager.flushAll(c -> new Output("> "));
+        outboxManager.flush(connection, new Output("Two", "> "));
+
+        verify(simpMessagingTemplate, never()).send(anyString(), any());
+
+        for (int i = 0; i < 100; i++) {
+            stats.dequeue();
+        }
+
+        outboxManager.append(connection, outputEncoder.encode(new Output("Three")));
+        outboxManager.flushAll(c -> new Output("> "));
+
+        verify(simpMessagingTemplate).send(eq("/user/dani/queue/output"), messageCaptor.capture());
+
+        assertEquals(toJson(new Output("One", "Two", "> ", "Three", "> ")), fromPayload(messageCaptor.getValue()));
+    }
+
+    @Test
+    public void testFlushHoldsWhileStalled() {
+        SessionStats stats = sessionStatsRegistry.open("session");
+
+        outboxManager.open(connection);
+        stats.beginSend(System.nanoTime() - TimeUnit.SECONDS.toNanos(5));
+        outboxManager.flush(connection, new Output("One", "> "));
+
+        verify(simpMessagingTemplate, never()).send(anyString(), any());
+
+        stats.endSend(System.nanoTime(), 10);
+        outboxManager.flush(connection, new Output("Two", "> "));
+
+        verify(simpMessagingTemplate).send(eq("/user/dani/queue/output"), any());
+    }
+
+    private JsonNode toJson(Output output) throws Exception {
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(output));
+    }
+
+    private JsonNode fromPayload(Message<byte[]> message) throws Exception {
+        return objectMapper.readTree(message.getPayload());
+    }
+}
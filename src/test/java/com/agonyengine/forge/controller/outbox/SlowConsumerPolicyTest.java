@@ -0,0 +1,290 @@
+package com.agonyengine.forge.controller.outbox;
+
+import com.agonyengine.forge.config.OutputPolicyProperties;
+import com.agonyengine.forge.controller.EncodedOutput;
+import com.agonyengine.forge.controller.Output;
+import com.agonyengine.forge.controller.OutputEncoder;
+import com.agonyengine.forge.controller.WireFormat;
+import com.agonyengine.forge.controller.stats.SessionStats;
+import com.agonyengine.forge.controller.stats.SessionStatsRegistry;
+import com.agonyengine.forge.model.Connection;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SlowConsumerPolicyTest {
+    @Mock
+    private Executor closeExecutor;
+
+    @Mock
+    private WebSocketSession session;
+
+    @Captor
+    private ArgumentCaptor<Runnable> taskCaptor;
+
+    private OutputEncoder outputEncoder = new OutputEncoder(new ObjectMapper());
+    private SessionStatsRegistry sessionStatsRegistry = new SessionStatsRegistry();
+    private OutputPolicyProperties outputPolicyProperties = new OutputPolicyProperties();
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Connection connection = new Connection();
+    private Outbox outbox;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(session.getId()).thenReturn("session");
+
+        connection.setId(UUID.randomUUID());
+        connection.setSessionUsername("dani");
+        connection.setSessionId("session");
+
+        outputPolicyProperties.setBacklogLimit(3);
+
+        outbox = new Outbox(connection, WireFormat.JSON);
+    }
+
+    @Test
+    public void testIsBehindNoStats() {
+        assertFalse(policy().isBehind(connection, System.nanoTime()));
+    }
+
+    @Test
+    public void testIsBehindQueued() {
+        SessionStats stats = sessionStatsRegistry.open("session");
+        SlowConsumerPolicy policy = policy();
+
+        for (int i = 0; i < 99; i++) {
+            stats.queue();
+        }
+
+        assertFalse(policy.isBehind(connection, System.nanoTime()));
+
+        stats.queue();
+
+        assertTrue(policy.isBehind(connection, System.nanoTime()));
+    }
+
+    @Test
+    public void testIsBehindStalled() {
+        SessionStats stats = sessionStatsRegistry.open("session");
+        SlowConsumerPolicy policy = policy();
+        long now = System.nanoTime();
+
+        stats.beginSend(now);
+
+        assertFalse(policy.isBehind(connection, now + TimeUnit.MILLISECONDS.toNanos(1999)));
+        assertTrue(policy.isBehind(connection, now + TimeUnit.MILLISECONDS.toNanos(2000)));
+    }
+
+    @Test
+    public void testHoldUnderLimit() {
+        SlowConsumerPolicy policy = policy();
+
+        append("One", "Two", "Three");
+        policy.hold(outbox);
+
+        assertEquals(3, outbox.getHeldLines());
+        assertEquals(Arrays.asList("One", "Two", "Three"), lines(policy.release(outbox)));
+        assertEquals(0, count(OutputPolicy.DROP_OLDEST));
+    }
+
+    @Test
+    public void testDropOldest() {
+        SlowConsumerPolicy policy = policy();
+
+        outbox.hold(encode("Mine"), true);
+        append("One", "Two", "Three", "Four");
+        policy.hold(outbox);
+
+        assertEquals(3, outbox.getHeldLines());
+        assertFalse(outbox.isDisconnecting());
+        assertEquals(
+            Arrays.asList(
+                "[yellow]2 lines of output were skipped while your connection caught up.",
+                "Mine",
+                "Three",
+                "Four"),
+            lines(policy.release(outbox)));
+        assertEquals(1, count(OutputPolicy.DROP_OLDEST));
+        assertEquals(2, meterRegistry.get("agony.output.dropped").counter().count(), 0);
+    }
+
+    @Test
+    public void testDropOldestKeepsSecret() {
+        SlowConsumerPolicy policy = policy();
+
+        outbox.append(outputEncoder.encode(new Output("Secret").setSecret(true)));
+        append("One", "Two", "Three");
+        policy.hold(outbox);
+
+        assertEquals(
+            Arrays.asList(
+                "[yellow]1 line of output was skipped while your connection caught up.",
+                "Secret",
+                "Two",
+                "Three"),
+            lines(policy.release(outbox)));
+    }
+
+    @Test
+    public void testCollapseRepeats() {
+        outputPolicyProperties.setPolicy(OutputPolicy.COLLAPSE_REPEATS);
+        outputPolicyProperties.setBacklogLimit(10);
+
+        SlowConsumerPolicy policy = policy();
+
+        append("Boom!", "Boom!", "Boom!", "Quiet.", "Boom!", "Boom!");
+        policy.hold(outbox);
+
+        assertEquals(
+            Arrays.asList(
+                "Boom!",
+                "[dwhite](repeated 2 more times)",
+                "Quiet.",
+                "Boom!",
+                "[dwhite](repeated 1 more time)"),
+            lines(policy.release(outbox)));
+        assertEquals(1, count(OutputPolicy.COLLAPSE_REPEATS));
+        assertEquals(0, count(OutputPolicy.DROP_OLDEST));
+    }
+
+    @Test
+    public void testCollapseRepeatsThenDrop() {
+        outputPolicyProperties.setPolicy(OutputPolicy.COLLAPSE_REPEATS);
+
+        SlowConsumerPolicy policy = policy();
+
+        append("One", "Two", "Three", "Four", "Four");
+        policy.hold(outbox);
+
+        assertEquals(
+            Arrays.asList(
+                "[yellow]2 lines of output were skipped while your connection caught up.",
+                "Three",
+                "Four",
+                "[dwhite](repeated 1 more time)"),
+            lines(policy.release(outbox)));
+        assertEquals(1, count(OutputPolicy.COLLAPSE_REPEATS));
+        assertEquals(1, count(OutputPolicy.DROP_OLDEST));
+    }
+
+    @Test
+    public void testDisconnect() throws Exception {
+        outputPolicyProperties.setPolicy(OutputPolicy.DISCONNECT);
+        sessionStatsRegistry.open(session);
+
+        SlowConsumerPolicy policy = policy();
+
+        append("One", "Two", "Three", "Four");
+        policy.hold(outbox);
+
+        assertTrue(outbox.isDisconnecting());
+        assertEquals(0, outbox.getHeldLines());
+        assertEquals(1, count(OutputPolicy.DISCONNECT));
+
+        verify(closeExecutor).execute(taskCaptor.capture());
+        verify(session, never()).close(any());
+
+        taskCaptor.getValue().run();
+
+        verify(session).close(SlowConsumerPolicy.TOO_SLOW);
+
+        append("Five");
+        policy.hold(outbox);
+
+        assertEquals(0, outbox.getHeldLines());
+        assertEquals(1, count(OutputPolicy.DISCONNECT));
+    }
+
+    @Test
+    public void testDisconnectCriticalOverLimit() {
+        sessionStatsRegistry.open(session);
+
+        SlowConsumerPolicy policy = policy();
+
+        outbox.hold(encode("One", "Two"), true);
+        outbox.hold(encode("Three", "Four"), true);
+        append("Five");
+        policy.hold(outbox);
+
+        assertTrue(outbox.isDisconnecting());
+        assertEquals(1, count(OutputPolicy.DROP_OLDEST));
+        assertEquals(1, count(OutputPolicy.DISCONNECT));
+
+        verify(closeExecutor).execute(any());
+    }
+
+    @Test
+    public void testDisconnectCloseRejected() throws Exception {
+        outputPolicyProperties.setPolicy(OutputPolicy.DISCONNECT);
+        sessionStatsRegistry.open(session);
+
+        doThrow(new RejectedExecutionException()).when(closeExecutor).execute(any());
+
+        SlowConsumerPolicy policy = policy();
+
+        append("One", "Two", "Three", "Four");
+        policy.hold(outbox);
+
+        assertTrue(outbox.isDisconnecting());
+        assertEquals(0, outbox.getHeldLines());
+
+        verify(session, never()).close(any());
+    }
+
+    private SlowConsumerPolicy policy() {
+        return new SlowConsumerPolicy(
+            sessionStatsRegistry,
+            closeExecutor,
+            outputEncoder,
+            outputPolicyProperties,
+            meterRegistry);
+    }
+
+    private EncodedOutput encode(String ... lines) {
+        return outputEncoder.encode(new Output(lines));
+    }
+
+    private void append(String ... lines) {
+        for (String line : lines) {
+            outbox.append(encode(line));
+        }
+    }
+
+    private double count(OutputPolicy policy) {
+        return meterRegistry.get("agony.output.policy").tag("policy", policy.getTag()).counter().count();
+    }
+
+    private static List<String> lines(List<EncodedOutput> parts) {
+        List<String> lines = new ArrayList<>();
+
+        parts.forEach(part -> lines.addAll(Arrays.asList(part.getSource())));
+
+        return lines;
+    }
+}
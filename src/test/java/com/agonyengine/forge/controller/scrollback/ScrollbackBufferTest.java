@@ -0,0 +1,91 @@
+package com.agonyengine.forge.controller.scrollback;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScrollbackBufferTest {
+    @Test
+    public void testEmpty() {
+        ScrollbackBuffer buffer = new ScrollbackBuffer(64, false);
+
+        assertEquals(0, buffer.getSequence());
+        assertEquals(Collections.emptyList(), buffer.since(0));
+    }
+
+    @Test
+    public void testAppendAndSince() {
+        ScrollbackBuffer buffer = new ScrollbackBuffer(64, false);
+
+        assertEquals(1, buffer.append("One"));
+        assertEquals(2, buffer.append("Two"));
+        assertEquals(3, buffer.append("Three"));
+
+        assertEquals(Arrays.asList("One", "Two", "Three"), buffer.since(0));
+        assertEquals(Arrays.asList("Two", "Three"), buffer.since(1));
+        assertEquals(Collections.emptyList(), buffer.since(3));
+    }
+
+    @Test
+    public void testSinceFuture() {
+        ScrollbackBuffer buffer = new ScrollbackBuffer(64, false);
+
+        buffer.append("One");
+
+        // a sequence we never handed out means the client's count is from somewhere else
+        assertEquals(Collections.singletonList("One"), buffer.since(99));
+    }
+
+    @Test
+    public void testEvictsOldest() {
+        // room for two 8 byte lines plus their 4 byte headers
+        ScrollbackBuffer buffer = new ScrollbackBuffer(24, false);
+
+        buffer.append("Line0001");
+        buffer.append("Line0002");
+        buffer.append("Line0003");
+
+        assertEquals(24, buffer.getUsed());
+        assertEquals(Arrays.asList("Line0002", "Line0003"), buffer.since(0));
+        assertEquals(Collections.singletonList("Line0003"), buffer.since(2));
+    }
+
+    @Test
+    public void testWrapAround() {
+        ScrollbackBuffer buffer = new ScrollbackBuffer(50, true);
+        List<String> expected = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            String line = "L" + i + "\u00e9";
+
+            buffer.append(line);
+            expected.add(line);
+
+            List<String> held = buffer.since(0);
+
+            assertTrue(buffer.getUsed() <= buffer.getCapacity());
+            assertEquals(expected.subList(expected.size() - held.size(), expected.size()), held);
+        }
+    }
+
+    @Test
+    public void testLineTooLarge() {
+        ScrollbackBuffer buffer = new ScrollbackBuffer(16, false);
+
+        buffer.append("One");
+
+        assertEquals(2, buffer.append("This line is far too long to fit"));
+        assertEquals(Collections.emptyList(), buffer.since(0));
+
+        buffer.append("Two");
+
+        assertEquals(Collections.singletonList("Two"), buffer.since(0));
+        assertEquals(3, buffer.getSequence());
+    }
+}
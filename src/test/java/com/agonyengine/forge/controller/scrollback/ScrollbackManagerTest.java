@@ -0,0 +1,83 @@
+package com.agonyengine.forge.controller.scrollback;
+
+import com.agonyengine.forge.config.ScrollbackProperties;
+import com.agonyengine.forge.controller.Output;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScrollbackManagerTest {
+    private UUID connectionId = UUID.randomUUID();
+
+    @Test
+    public void testRecordAndReplay() {
+        ScrollbackManager scrollbackManager = new ScrollbackManager(new ScrollbackProperties());
+
+        scrollbackManager.open(connectionId);
+
+        assertEquals(2, scrollbackManager.record(connectionId, Arrays.asList("One", "Two")));
+        assertEquals(3, scrollbackManager.record(connectionId, Arrays.asList("Three")));
+        assertEquals(1, scrollbackManager.size());
+
+        assertEquals(new Output("One", "Two", "Three"), scrollbackManager.replay(connectionId, 0));
+        assertEquals(new Output("Three"), scrollbackManager.replay(connectionId, 2));
+        assertEquals(new Output(), scrollbackManager.replay(UUID.randomUUID(), 0));
+    }
+
+    @Test
+    public void testDiscard() {
+        ScrollbackManager scrollbackManager = new ScrollbackManager(new ScrollbackProperties());
+
+        scrollbackManager.open(connectionId);
+        scrollbackManager.record(connectionId, Arrays.asList("One", "Two"));
+        scrollbackManager.discard(connectionId);
+        scrollbackManager.discard(null);
+
+        assertEquals(0, scrollbackManager.size());
+        assertEquals(new Output(), scrollbackManager.replay(connectionId, 0));
+    }
+
+    @Test
+    public void testRecordWithoutBuffer() {
+        ScrollbackManager scrollbackManager = new ScrollbackManager(new ScrollbackProperties());
+
+        assertEquals(-1, scrollbackManager.record(connectionId, Arrays.asList("One", "Two")));
+        assertEquals(-1, scrollbackManager.record(null, Arrays.asList("One", "Two")));
+        assertEquals(0, scrollbackManager.size());
+
+        scrollbackManager.open(connectionId);
+        scrollbackManager.discard(connectionId);
+
+        assertEquals(-1, scrollbackManager.record(connectionId, Arrays.asList("Three")));
+        assertEquals(0, scrollbackManager.size());
+    }
+
+    @Test
+    public void testOpenKeepsBuffer() {
+        ScrollbackManager scrollbackManager = new ScrollbackManager(new ScrollbackProperties());
+
+        scrollbackManager.open(connectionId);
+        scrollbackManager.record(connectionId, Arrays.asList("One", "Two"));
+        scrollbackManager.open(connectionId);
+
+        assertEquals(1, scrollbackManager.size());
+        assertEquals(new Output("One", "Two"), scrollbackManager.replay(connectionId, 0));
+    }
+
+    @Test
+    public void testDisabled() {
+        ScrollbackProperties scrollbackProperties = new ScrollbackProperties();
+
+        scrollbackProperties.setCapacity(0);
+
+        ScrollbackManager scrollbackManager = new ScrollbackManager(scrollbackProperties);
+
+        scrollbackManager.open(connectionId);
+
+        assertEquals(-1, scrollbackManager.record(connectionId, Arrays.asList("One", "Two")));
+        assertEquals(0, scrollbackManager.size());
+    }
+}
@@ -0,0 +1,48 @@
+package com.agonyengine.forge.controller.stats;
+
+import org.junit.Test;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BrokerRelayMonitorTest {
+    private BrokerRelayMonitor monitor = new BrokerRelayMonitor();
+
+    @Test
+    public void testReconnects() {
+        StompBrokerRelayMessageHandler relay = mock(StompBrokerRelayMessageHandler.class);
+
+        when(relay.getConnectionCount()).thenReturn(3);
+
+        assertFalse(monitor.isAvailable());
+        assertEquals(-1, monitor.getRelayConnections());
+
+        monitor.onApplicationEvent(new BrokerAvailabilityEvent(true, relay));
+
+        assertTrue(monitor.isAvailable());
+        assertEquals(0, monitor.getReconnects());
+        assertEquals(3, monitor.getRelayConnections());
+
+        monitor.onApplicationEvent(new BrokerAvailabilityEvent(false, relay));
+
+        assertFalse(monitor.isAvailable());
+        assertEquals(1, monitor.getDisconnects());
+        assertEquals(0, monitor.getReconnects());
+
+        monitor.onApplicationEvent(new BrokerAvailabilityEvent(true, relay));
+
+        assertTrue(monitor.isAvailable());
+        assertEquals(1, monitor.getReconnects());
+    }
+
+    @Test
+    public void testNotRelay() {
+        monitor.onApplicationEvent(new BrokerAvailabilityEvent(true, new Object()));
+
+        assertTrue(monitor.isAvailable());
+        assertEquals(-1, monitor.getRelayConnections());
+    }
+}
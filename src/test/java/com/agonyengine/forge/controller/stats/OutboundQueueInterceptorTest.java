@@ -0,0 +1,76 @@
+package com.agonyengine.forge.controller.stats;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class OutboundQueueInterceptorTest {
+    @Mock
+    private MessageChannel channel;
+
+    @Mock
+    private MessageHandler handler;
+
+    private SessionStatsRegistry registry = new SessionStatsRegistry();
+    private OutboundQueueInterceptor interceptor = new OutboundQueueInterceptor(registry);
+    private SessionStats stats;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        stats = registry.open("session");
+    }
+
+    @Test
+    public void testQueuedUntilHandled() {
+        Message<byte[]> message = buildMessage("session");
+
+        assertSame(message, interceptor.preSend(message, channel));
+        interceptor.afterSendCompletion(message, channel, true, null);
+
+        assertEquals(1, stats.getQueued());
+
+        interceptor.afterMessageHandled(message, channel, handler, null);
+
+        assertEquals(0, stats.getQueued());
+    }
+
+    @Test
+    public void testNotSent() {
+        Message<byte[]> message = buildMessage("session");
+
+        interceptor.preSend(message, channel);
+        interceptor.afterSendCompletion(message, channel, false, new IllegalStateException("Rejected"));
+
+        assertEquals(0, stats.getQueued());
+    }
+
+    @Test
+    public void testUnknownSession() {
+        Message<byte[]> message = buildMessage("unknown");
+
+        assertSame(message, interceptor.preSend(message, channel));
+        interceptor.afterMessageHandled(message, channel, handler, null);
+
+        assertEquals(0, registry.getQueued());
+        assertEquals(1, registry.size());
+    }
+
+    private static Message<byte[]> buildMessage(String sessionId) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
+
+        headerAccessor.setSessionId(sessionId);
+
+        return MessageBuilder.createMessage(new byte[0], headerAccessor.getMessageHeaders());
+    }
+}
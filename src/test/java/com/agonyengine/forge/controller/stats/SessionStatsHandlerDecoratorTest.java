@@ -0,0 +1,74 @@
+package com.agonyengine.forge.controller.stats;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SessionStatsHandlerDecoratorTest {
+    @Mock
+    private WebSocketHandler delegate;
+
+    @Mock
+    private WebSocketSession session;
+
+    @Captor
+    private ArgumentCaptor<WebSocketSession> sessionCaptor;
+
+    private SessionStatsRegistry registry = new SessionStatsRegistry();
+    private SessionStatsHandlerDecorator decorator;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(session.getId()).thenReturn("session");
+
+        decorator = new SessionStatsHandlerDecorator(delegate, registry);
+    }
+
+    @Test
+    public void testTimesSends() throws Exception {
+        TextMessage message = new TextMessage("Hello!");
+
+        decorator.afterConnectionEstablished(session);
+
+        verify(delegate).afterConnectionEstablished(sessionCaptor.capture());
+
+        WebSocketSession timed = sessionCaptor.getValue();
+
+        assertNotSame(session, timed);
+        assertEquals("session", timed.getId());
+
+        timed.sendMessage(message);
+
+        verify(session).sendMessage(eq(message));
+
+        SessionStats stats = registry.find("session").orElseThrow(AssertionError::new);
+
+        assertEquals(1, stats.getMessagesSent());
+        assertEquals(6, stats.getBytesSent());
+        assertEquals(0, stats.getStalledNanos(System.nanoTime()));
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        decorator.afterConnectionEstablished(session);
+        decorator.afterConnectionClosed(session, CloseStatus.NORMAL);
+
+        verify(delegate).afterConnectionClosed(eq(session), eq(CloseStatus.NORMAL));
+
+        assertEquals(0, registry.size());
+    }
+}
@@ -0,0 +1,89 @@
+package com.agonyengine.forge.controller.stats;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class SessionStatsRegistryTest {
+    private SessionStatsRegistry registry = new SessionStatsRegistry();
+
+    @Test
+    public void testOpenAndClose() {
+        SessionStats stats = registry.open("one");
+
+        assertSame(stats, registry.open("one"));
+        assertSame(stats, registry.find("one").orElse(null));
+        assertEquals(1, registry.size());
+
+        registry.close("one");
+        registry.close(null);
+
+        assertFalse(registry.find("one").isPresent());
+        assertFalse(registry.find(null).isPresent());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testSendTimes() {
+        SessionStats stats = registry.open("one");
+
+        stats.beginSend(100);
+
+        assertEquals(50, stats.getStalledNanos(150));
+        assertEquals(50, stats.getWorstSendNanos(150));
+
+        stats.endSend(130, 10);
+        stats.beginSend(200);
+        stats.endSend(210, 5);
+
+        assertEquals(0, stats.getStalledNanos(1000));
+        assertEquals(30, stats.getMaxSendNanos());
+        assertEquals(20, stats.getAverageSendNanos());
+        assertEquals(2, stats.getMessagesSent());
+        assertEquals(15, stats.getBytesSent());
+    }
+
+    @Test
+    public void testQueued() {
+        SessionStats one = registry.open("one");
+        SessionStats two = registry.open("two");
+
+        one.queue();
+        one.queue();
+        two.queue();
+        two.dequeue();
+        two.dequeue();
+
+        assertEquals(2, one.getQueued());
+        assertEquals(0, two.getQueued());
+        assertEquals(2, registry.getQueued());
+    }
+
+    @Test
+    public void testSlowest() {
+        registry.open("idle");
+        send(registry.open("slow"), 0, 500);
+        send(registry.open("fast"), 0, 10);
+        registry.open("stuck").beginSend(0);
+        send(registry.open("middling"), 0, 100);
+
+        assertEquals(asList("stuck", "slow", "middling"), ids(registry.slowest(3, 1000)));
+        assertEquals(asList("slow", "middling", "stuck"), ids(registry.slowest(3, 50)));
+        assertEquals(5, registry.slowest(10, 1000).size());
+        assertTrue(registry.slowest(0, 1000).isEmpty());
+        assertEquals(1, registry.getStalled(1000));
+    }
+
+    private static void send(SessionStats stats, long start, long end) {
+        stats.beginSend(start);
+        stats.endSend(end, 1);
+    }
+
+    private static List<String> ids(List<SessionStats> sessions) {
+        return sessions.stream().map(SessionStats::getSessionId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,99 @@
+package com.agonyengine.forge.controller.stats;
+
+import com.agonyengine.forge.model.Connection;
+import com.agonyengine.forge.model.Creature;
+import com.agonyengine.forge.repository.OnlineCreatureRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class StompStatsEndpointTest {
+    private ThreadPoolTaskExecutor inbound = buildExecutor();
+    private ThreadPoolTaskExecutor outbound = buildExecutor();
+    private ThreadPoolTaskExecutor broker = buildExecutor();
+    private SessionStatsRegistry sessionStatsRegistry = new SessionStatsRegistry();
+    private OnlineCreatureRegistry onlineCreatureRegistry = new OnlineCreatureRegistry();
+    private StompStatsEndpoint endpoint;
+
+    @Before
+    public void setUp() {
+        endpoint = new StompStatsEndpoint(
+            inbound,
+            outbound,
+            broker,
+            sessionStatsRegistry,
+            new BrokerRelayMonitor(),
+            onlineCreatureRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        inbound.shutdown();
+        outbound.shutdown();
+        broker.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testStats() {
+        Creature creature = new Creature();
+        Connection connection = new Connection();
+
+        connection.setSessionUsername("user");
+        connection.setSessionId("slow");
+        creature.setName("Dani");
+        creature.setConnection(connection);
+        onlineCreatureRegistry.register(creature);
+
+        SessionStats slow = sessionStatsRegistry.open("slow");
+
+        slow.queue();
+        slow.beginSend(0);
+        slow.endSend(5_000_000, 100);
+
+        sessionStatsRegistry.open("fast");
+
+        Map<String, Object> stats = endpoint.stats(1);
+        Map<String, Object> executors = (Map<String, Object>) stats.get("executors");
+        Map<String, Object> clientInbound = (Map<String, Object>) executors.get("clientInbound");
+        Map<String, Object> sessions = (Map<String, Object>) stats.get("sessions");
+        List<Map<String, Object>> slowest = (List<Map<String, Object>>) stats.get("slowest");
+
+        assertEquals(0, clientInbound.get("active"));
+        assertEquals(0, clientInbound.get("queued"));
+        assertEquals(0.0, (Double) clientInbound.get("saturation"), 0.0);
+        assertFalse((Boolean) ((Map<String, Object>) stats.get("broker")).get("available"));
+        assertEquals(2, sessions.get("open"));
+        assertEquals(1, sessions.get("queued"));
+        assertEquals(1, slowest.size());
+        assertEquals("slow", slowest.get(0).get("session"));
+        assertEquals("Dani", slowest.get(0).get("name"));
+        assertEquals(5L, slowest.get(0).get("maxSendMillis"));
+        assertEquals(100L, slowest.get(0).get("bytesSent"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testDefaultLimit() {
+        for (int i = 0; i < StompStatsEndpoint.DEFAULT_LIMIT + 5; i++) {
+            sessionStatsRegistry.open("session-" + i);
+        }
+
+        assertEquals(StompStatsEndpoint.DEFAULT_LIMIT, ((List<Object>) endpoint.stats(null).get("slowest")).size());
+    }
+
+    private static ThreadPoolTaskExecutor buildExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(2);
+        executor.initialize();
+
+        return executor;
+    }
+}
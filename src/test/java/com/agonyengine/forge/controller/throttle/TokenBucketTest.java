@@ -0,0 +1,73 @@
+package com.agonyengine.forge.controller.throttle;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurst() {
+        TokenBucket bucket = new TokenBucket(3, 1, 0L);
+
+        assertTrue(bucket.tryConsume(0L));
+        assertTrue(bucket.tryConsume(0L));
+        assertTrue(bucket.tryConsume(0L));
+        assertFalse(bucket.tryConsume(0L));
+    }
+
+    @Test
+    public void testRefill() {
+        TokenBucket bucket = new TokenBucket(2, 2, 0L);
+
+        assertTrue(bucket.tryConsume(0L));
+        assertTrue(bucket.tryConsume(0L));
+        assertFalse(bucket.tryConsume(SECOND / 4));
+        assertTrue(bucket.tryConsume(SECOND / 2));
+        assertFalse(bucket.tryConsume(SECOND / 2));
+        assertTrue(bucket.tryConsume(SECOND));
+    }
+
+    @Test
+    public void testIdleDoesNotOverfill() {
+        TokenBucket bucket = new TokenBucket(2, 10, 0L);
+        long later = 60 * SECOND;
+
+        assertTrue(bucket.tryConsume(later));
+        assertTrue(bucket.tryConsume(later));
+        assertFalse(bucket.tryConsume(later));
+    }
+
+    @Test
+    public void testNanoTimeWraps() {
+        long start = Long.MAX_VALUE - SECOND / 2;
+        TokenBucket bucket = new TokenBucket(1, 1, start);
+
+        assertTrue(bucket.tryConsume(start));
+        assertFalse(bucket.tryConsume(start + SECOND / 2));
+        assertTrue(bucket.tryConsume(start + SECOND));
+    }
+
+    @Test
+    public void testWarnOncePerFlood() {
+        TokenBucket bucket = new TokenBucket(1, 1, 0L);
+
+        assertTrue(bucket.tryConsume(0L));
+        assertFalse(bucket.tryConsume(0L));
+        assertTrue(bucket.warn());
+        assertFalse(bucket.tryConsume(0L));
+        assertFalse(bucket.warn());
+
+        assertTrue(bucket.tryConsume(SECOND));
+        assertFalse(bucket.tryConsume(SECOND));
+        assertTrue(bucket.warn());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalid() {
+        new TokenBucket(0, 1, 0L);
+    }
+}
@@ -0,0 +1,107 @@
+package com.agonyengine.forge.loop;
+
+import com.agonyengine.forge.config.GameLoopProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class GameLoopTest {
+    @Mock
+    private PulseListener first;
+
+    @Mock
+    private PulseListener second;
+
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private GameLoopProperties gameLoopProperties = new GameLoopProperties();
+    private GameLoop gameLoop;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        gameLoop = new GameLoop(Arrays.asList(first, second), gameLoopProperties, meterRegistry);
+    }
+
+    @Test
+    public void testTick() {
+        gameLoop.tick();
+        gameLoop.tick();
+
+        InOrder inOrder = inOrder(first, second);
+
+        inOrder.verify(first).onPulse(1L);
+        inOrder.verify(second).onPulse(1L);
+        inOrder.verify(first).onPulse(2L);
+        inOrder.verify(second).onPulse(2L);
+
+        assertEquals(2L, gameLoop.getPulse());
+        assertEquals(2L, meterRegistry.get("agony.loop.tick").timer().count());
+        assertEquals(0.0, meterRegistry.get("agony.loop.overrun").counter().count(), 0.0);
+        assertNotNull(meterRegistry.get("agony.loop.lag").timeGauge());
+    }
+
+    @Test
+    public void testTickSurvivesException() {
+        doThrow(new IllegalStateException("Test")).when(first).onPulse(anyLong());
+
+        gameLoop.tick();
+
+        verify(second).onPulse(1L);
+        assertEquals(1L, meterRegistry.get("agony.loop.tick").timer().count());
+    }
+
+    @Test
+    public void testTickSurvivesError() {
+        doThrow(new StackOverflowError()).when(first).onPulse(anyLong());
+
+        gameLoop.tick();
+        gameLoop.tick();
+
+        verify(second).onPulse(1L);
+        verify(second).onPulse(2L);
+        assertEquals(2L, meterRegistry.get("agony.loop.tick").timer().count());
+    }
+
+    @Test
+    public void testOverrun() {
+        gameLoopProperties.setPulse(1L);
+
+        PulseListener slow = pulse -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        gameLoop = new GameLoop(Collections.singletonList(slow), gameLoopProperties, meterRegistry);
+        gameLoop.tick();
+
+        assertEquals(1.0, meterRegistry.get("agony.loop.overrun").counter().count(), 0.0);
+    }
+
+    @Test
+    public void testStartAndStop() {
+        gameLoopProperties.setPulse(1L);
+
+        gameLoop = new GameLoop(Collections.singletonList(first), gameLoopProperties, meterRegistry);
+        gameLoop.start();
+
+        verify(first, timeout(1000).atLeastOnce()).onPulse(anyLong());
+
+        gameLoop.stop();
+    }
+}
@@ -0,0 +1,164 @@
+package com.agonyengine.forge.loop;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+    private TimingWheel wheel;
+
+    @Before
+    public void setUp() {
+        wheel = new TimingWheel();
+    }
+
+    @Test
+    public void testNextPulse() {
+        AtomicInteger count = new AtomicInteger();
+
+        wheel.schedule(count::incrementAndGet, 0);
+        wheel.schedule(count::incrementAndGet, 1);
+
+        assertEquals(2, wheel.size());
+
+        wheel.onPulse(1L);
+
+        assertEquals(2, count.get());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testDelays() {
+        long[] delays = new long[] { 5, 63, 64, 65, 200, 4095, 4096, 4097, 70000, 300000 };
+        List<Long> fired = new ArrayList<>();
+
+        for (long delay : delays) {
+            wheel.schedule(() -> fired.add(wheel.getCurrentTick()), delay);
+        }
+
+        advance(300000);
+
+        assertEquals(delays.length, fired.size());
+
+        for (int i = 0; i < delays.length; i++) {
+            assertEquals(Long.valueOf(delays[i]), fired.get(i));
+        }
+
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testScheduledLater() {
+        List<Long> fired = new ArrayList<>();
+
+        advance(100);
+
+        wheel.schedule(() -> fired.add(wheel.getCurrentTick()), 30);
+
+        advance(30);
+
+        assertEquals(1, fired.size());
+        assertEquals(Long.valueOf(130), fired.get(0));
+    }
+
+    @Test
+    public void testCancelBeforePlaced() {
+        AtomicInteger count = new AtomicInteger();
+        Timeout timeout = wheel.schedule(count::incrementAndGet, 1);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertEquals(0, wheel.size());
+
+        advance(2);
+
+        assertEquals(0, count.get());
+    }
+
+    @Test
+    public void testCancelAfterPlaced() {
+        AtomicInteger count = new AtomicInteger();
+        Timeout first = wheel.schedule(count::incrementAndGet, 10);
+        Timeout second = wheel.schedule(count::incrementAndGet, 10);
+        Timeout third = wheel.schedule(count::incrementAndGet, 10);
+
+        advance(5);
+
+        assertTrue(second.cancel());
+
+        advance(5);
+
+        assertEquals(2, count.get());
+        assertTrue(first.isExpired());
+        assertFalse(second.isExpired());
+        assertTrue(third.isExpired());
+        assertFalse(first.cancel());
+    }
+
+    @Test
+    public void testCancelInUpperLevel() {
+        AtomicInteger count = new AtomicInteger();
+        Timeout timeout = wheel.schedule(count::incrementAndGet, 5000);
+
+        advance(1);
+        timeout.cancel();
+        advance(5000);
+
+        assertEquals(0, count.get());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testRecurring() {
+        List<Long> fired = new ArrayList<>();
+        Timeout timeout = wheel.scheduleRecurring(() -> fired.add(wheel.getCurrentTick()), 3, 50);
+
+        advance(200);
+
+        assertEquals(4, fired.size());
+        assertEquals(Long.valueOf(3), fired.get(0));
+        assertEquals(Long.valueOf(53), fired.get(1));
+        assertEquals(Long.valueOf(103), fired.get(2));
+        assertEquals(Long.valueOf(153), fired.get(3));
+        assertEquals(1, wheel.size());
+
+        assertTrue(timeout.cancel());
+
+        advance(100);
+
+        assertEquals(4, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecurringBadPeriod() {
+        wheel.scheduleRecurring(() -> { }, 1, 0);
+    }
+
+    @Test
+    public void testCallbackException() {
+        AtomicInteger count = new AtomicInteger();
+
+        wheel.schedule(() -> {
+            throw new IllegalStateException("Test");
+        }, 1);
+        wheel.schedule(count::incrementAndGet, 1);
+
+        advance(1);
+
+        assertEquals(1, count.get());
+        assertEquals(0, wheel.size());
+    }
+
+    private void advance(int pulses) {
+        for (int i = 0; i < pulses; i++) {
+            wheel.advance();
+        }
+    }
+}
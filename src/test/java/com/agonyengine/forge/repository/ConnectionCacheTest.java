@@ -0,0 +1,227 @@
+package com.agonyengine.forge.repository;
+
+import com.agonyengine.forge.model.Connection;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ConnectionCacheTest {
+    @Mock
+    private ConnectionRepository connectionRepository;
+
+    @Captor
+    private ArgumentCaptor<List<Connection>> batchCaptor;
+
+    private ConnectionCache connectionCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(connectionRepository.save(any(Connection.class))).thenAnswer(invocation -> {
+            Connection connection = invocation.getArgument(0);
+            Connection saved = new Connection();
+
+            saved.setId(connection.getId() == null ? UUID.randomUUID() : connection.getId());
+            saved.setName(connection.getName());
+
+            return saved;
+        });
+
+        connectionCache = new ConnectionCache(connectionRepository);
+    }
+
+    @Test
+    public void testSaveNew() {
+        Connection connection = new Connection();
+        Connection saved = connectionCache.save(connection);
+
+        assertNotNull(saved.getId());
+        assertEquals(1, connectionCache.size());
+        assertSame(saved, connectionCache.findById(saved.getId()).orElse(null));
+
+        verify(connectionRepository).save(connection);
+        verify(connectionRepository, never()).findById(any());
+    }
+
+    @Test
+    public void testSaveExistingIsDeferred() {
+        Connection connection = buildConnection();
+
+        assertSame(connection, connectionCache.save(connection));
+
+        verify(connectionRepository, never()).save(any(Connection.class));
+
+        connectionCache.flush();
+
+        verify(connectionRepository).updateAll(batchCaptor.capture());
+        assertEquals(1, batchCaptor.getValue().size());
+        assertNotSame(connection, batchCaptor.getValue().get(0));
+        assertEquals(connection.getId(), batchCaptor.getValue().get(0).getId());
+        assertEquals("Dani", batchCaptor.getValue().get(0).getName());
+        assertSame(connection, connectionCache.findById(connection.getId()).orElse(null));
+
+        connectionCache.flush();
+
+        verify(connectionRepository, times(1)).updateAll(any());
+    }
+
+    @Test
+    public void testSaveTakesSnapshot() {
+        Connection connection = buildConnection();
+
+        connectionCache.save(connection);
+        connection.setName("Scion");
+        connectionCache.flush();
+
+        verify(connectionRepository).updateAll(batchCaptor.capture());
+        assertEquals("Dani", batchCaptor.getValue().get(0).getName());
+    }
+
+    @Test
+    public void testChangeDuringFlush() throws Exception {
+        Connection connection = buildConnection();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch changed = new CountDownLatch(1);
+        List<String> written = new ArrayList<>();
+
+        doAnswer(invocation -> {
+            Collection<Connection> batch = invocation.getArgument(0);
+
+            writing.countDown();
+            assertTrue(changed.await(5, TimeUnit.SECONDS));
+
+            batch.forEach(snapshot -> written.add(snapshot.getName()));
+
+            return null;
+        }).when(connectionRepository).updateAll(any());
+
+        connectionCache.save(connection);
+
+        Thread flusher = new Thread(connectionCache::flush);
+
+        flusher.start();
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // a command changes the connection while the write is still going on
+        connection.setName("Scion");
+        connectionCache.save(connection);
+        changed.countDown();
+        flusher.join(5000);
+
+        assertEquals(Collections.singletonList("Dani"), written);
+
+        connectionCache.flush();
+
+        assertEquals(Arrays.asList("Dani", "Scion"), written);
+
+        connectionCache.flush();
+
+        verify(connectionRepository, times(2)).updateAll(any());
+    }
+
+    @Test
+    public void testFlushNothingDirty() {
+        connectionCache.flush();
+
+        verify(connectionRepository, never()).updateAll(any());
+    }
+
+    @Test
+    public void testFindByIdLoadsOnce() {
+        Connection connection = buildConnection();
+
+        when(connectionRepository.findById(connection.getId())).thenReturn(Optional.of(connection));
+
+        assertSame(connection, connectionCache.findById(connection.getId()).orElse(null));
+        assertSame(connection, connectionCache.findById(connection.getId()).orElse(null));
+
+        verify(connectionRepository, times(1)).findById(connection.getId());
+    }
+
+    @Test
+    public void testFindByIdMissing() {
+        UUID id = UUID.randomUUID();
+
+        when(connectionRepository.findById(id)).thenReturn(Optional.empty());
+
+        assertFalse(connectionCache.findById(id).isPresent());
+        assertFalse(connectionCache.findById(null).isPresent());
+        assertEquals(0, connectionCache.size());
+    }
+
+    @Test
+    public void testSaveAndFlush() {
+        Connection connection = buildConnection();
+
+        connectionCache.save(connection);
+
+        Connection saved = connectionCache.saveAndFlush(connection);
+
+        assertNotSame(connection, saved);
+        assertEquals(connection.getId(), saved.getId());
+        assertSame(saved, connectionCache.findById(connection.getId()).orElse(null));
+
+        connectionCache.flush();
+
+        verify(connectionRepository, never()).updateAll(any());
+    }
+
+    @Test
+    public void testEvictDirty() {
+        Connection connection = buildConnection();
+
+        connectionCache.save(connection);
+        connectionCache.evict(connection.getId());
+
+        verify(connectionRepository).updateAll(batchCaptor.capture());
+        assertEquals(connection.getId(), batchCaptor.getValue().get(0).getId());
+        assertEquals(0, connectionCache.size());
+
+        connectionCache.flush();
+
+        verify(connectionRepository, times(1)).updateAll(any());
+        verify(connectionRepository, never()).save(any(Connection.class));
+    }
+
+    @Test
+    public void testEvictClean() {
+        Connection connection = buildConnection();
+
+        when(connectionRepository.findById(connection.getId())).thenReturn(Optional.of(connection));
+
+        connectionCache.findById(connection.getId());
+        connectionCache.evict(connection.getId());
+        connectionCache.evict(null);
+
+        verify(connectionRepository, never()).save(any(Connection.class));
+        verify(connectionRepository, never()).updateAll(any());
+        assertEquals(0, connectionCache.size());
+    }
+
+    private Connection buildConnection() {
+        Connection connection = new Connection();
+
+        connection.setId(UUID.randomUUID());
+        connection.setName("Dani");
+
+        return connection;
+    }
+}
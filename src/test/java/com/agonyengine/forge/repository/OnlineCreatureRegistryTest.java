@@ -0,0 +1,119 @@
+package com.agonyengine.forge.repository;
+
+import com.agonyengine.forge.model.Connection;
+import com.agonyengine.forge.model.Creature;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class OnlineCreatureRegistryTest {
+    private OnlineCreatureRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new OnlineCreatureRegistry();
+    }
+
+    @Test
+    public void testRegister() {
+        Creature creature = buildCreature("Dani", "dani-session");
+
+        registry.register(creature);
+
+        assertEquals(1, registry.size());
+        assertEquals(Optional.of(creature), registry.findById(creature.getId()));
+        assertEquals(Optional.of(creature), registry.findBySessionUsername("dani-session"));
+        assertEquals(Optional.of(creature), registry.findBySessionId("dani-session-id"));
+        assertTrue(registry.stream().anyMatch(creature::equals));
+    }
+
+    @Test
+    public void testRegisterNoConnection() {
+        Creature creature = new Creature();
+
+        creature.setId(UUID.randomUUID());
+
+        registry.register(creature);
+
+        assertEquals(0, registry.size());
+        assertFalse(registry.findById(creature.getId()).isPresent());
+    }
+
+    @Test
+    public void testRegisterNoSessionUsername() {
+        Creature creature = buildCreature("Dani", null);
+
+        registry.register(creature);
+
+        assertEquals(0, registry.size());
+        assertFalse(registry.findById(creature.getId()).isPresent());
+    }
+
+    @Test
+    public void testRegisterNoId() {
+        Creature creature = buildCreature("Dani", "dani-session");
+
+        creature.setId(null);
+        creature.getConnection().setSessionId(null);
+
+        registry.register(creature);
+
+        assertEquals(1, registry.size());
+        assertEquals(Optional.of(creature), registry.findBySessionUsername("dani-session"));
+        assertEquals(Optional.of(creature), registry.unregister("dani-session"));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testUnregister() {
+        Creature dani = buildCreature("Dani", "dani-session");
+        Creature scion = buildCreature("Scion", "scion-session");
+
+        registry.register(dani);
+        registry.register(scion);
+
+        assertEquals(Optional.of(dani), registry.unregister("dani-session"));
+
+        assertEquals(1, registry.size());
+        assertFalse(registry.findById(dani.getId()).isPresent());
+        assertFalse(registry.findBySessionUsername("dani-session").isPresent());
+        assertFalse(registry.findBySessionId("dani-session-id").isPresent());
+        assertEquals(
+            Collections.singletonList(scion),
+            registry.stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testUnregisterUnknown() {
+        assertFalse(registry.unregister("nobody").isPresent());
+        assertFalse(registry.unregister(null).isPresent());
+    }
+
+    @Test
+    public void testFindNulls() {
+        assertFalse(registry.findById(null).isPresent());
+        assertFalse(registry.findBySessionUsername(null).isPresent());
+        assertFalse(registry.findBySessionId(null).isPresent());
+    }
+
+    private Creature buildCreature(String name, String sessionUsername) {
+        Creature creature = new Creature();
+        Connection connection = new Connection();
+
+        connection.setId(UUID.randomUUID());
+        connection.setSessionUsername(sessionUsername);
+        connection.setSessionId(sessionUsername == null ? null : sessionUsername + "-id");
+
+        creature.setId(UUID.randomUUID());
+        creature.setName(name);
+        creature.setConnection(connection);
+
+        return creature;
+    }
+}